@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.Query;
+import twitter4j.QueryResult;
+import twitter4j.RateLimitStatus;
+import twitter4j.Status;
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Search responses of realistic size, built once and served by a stubbed {@link Twitter} without any network.
+ */
+public class CannedSearch {
+  public static final TwitterCredential CREDENTIAL =
+    new TwitterCredential( "bench-key", "bench-secret", "bench-token", "bench-token-secret" );
+
+  private final List<QueryResult> results = new ArrayList<>();
+  private final List<byte[]> responses = new ArrayList<>();
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * @param pages how many distinct pages are served, in turn.
+   * @param pageSize how many tweets each page holds.
+   */
+  public CannedSearch( int pages, int pageSize ) throws TwitterException {
+    long id = 1050118621198921728L;
+    for ( int page = 0; page < pages; page++ ) {
+      List<Status> tweets = new ArrayList<>();
+      StringBuilder response = new StringBuilder( "{\"statuses\":[" );
+      for ( int i = 0; i < pageSize; i++, id++ ) {
+        String json = statusJson( id, i );
+        tweets.add( TwitterObjectFactory.createStatus( json ) );
+        response.append( i == 0 ? "" : "," ).append( json );
+      }
+      response.append( "],\"search_metadata\":{\"completed_in\":0.035,\"max_id\":" ).append( id - 1 )
+        .append( ",\"query\":\"pentaho\",\"count\":" ).append( pageSize ).append( ",\"since_id\":0}}" );
+      results.add( new Result( tweets ) );
+      responses.add( response.toString().getBytes( StandardCharsets.UTF_8 ) );
+    }
+  }
+
+  /**
+   * @return the next page, as returned by twitter4j.
+   */
+  public QueryResult nextResult() {
+    return results.get( Math.floorMod( next.getAndIncrement(), results.size() ) );
+  }
+
+  /**
+   * @return the next page, as the raw JSON response of the API.
+   */
+  public byte[] nextResponse() {
+    return responses.get( Math.floorMod( next.getAndIncrement(), responses.size() ) );
+  }
+
+  /**
+   * @return a client whose searches return the canned pages, and which supports nothing else.
+   */
+  public Twitter twitter() {
+    return (Twitter) Proxy.newProxyInstance( Twitter.class.getClassLoader(), new Class<?>[] { Twitter.class },
+      ( proxy, method, args ) -> {
+        if ( "search".equals( method.getName() ) ) {
+          return nextResult();
+        }
+        if ( "hashCode".equals( method.getName() ) ) {
+          return System.identityHashCode( proxy );
+        }
+        if ( "equals".equals( method.getName() ) ) {
+          return proxy == args[ 0 ];
+        }
+        if ( "toString".equals( method.getName() ) ) {
+          return "CannedSearch";
+        }
+        throw new UnsupportedOperationException( method.getName() );
+      } );
+  }
+
+  /**
+   * @return the JSON of a tweet, with the given ID and the values of the i-th tweet of a page.
+   */
+  static String statusJson( long id, int i ) {
+    String text = "Loading tweets with #pentaho and #kettle, thanks @kettle! Row " + i + " of the nightly run, "
+      + "more in the docs https://t.co/AbCdEf" + ( i % 10 );
+    return "{\"created_at\":\"Wed Oct 10 20:19:24 +0000 2018\",\"id\":" + id + ",\"id_str\":\"" + id + "\","
+      + "\"text\":\"" + text + "\",\"truncated\":false,"
+      + "\"entities\":{\"hashtags\":[{\"text\":\"pentaho\",\"indices\":[20,28]},"
+      + "{\"text\":\"kettle\",\"indices\":[33,40]}],"
+      + "\"symbols\":[],\"user_mentions\":[{\"screen_name\":\"kettle\",\"name\":\"Kettle\",\"id\":6253282,"
+      + "\"id_str\":\"6253282\",\"indices\":[49,56]}],\"urls\":[{\"url\":\"https://t.co/AbCdEf" + ( i % 10 ) + "\","
+      + "\"expanded_url\":\"https://example.com/docs/" + i + "\",\"display_url\":\"example.com/docs/" + i + "\","
+      + "\"indices\":[98,122]}]},"
+      + "\"metadata\":{\"iso_language_code\":\"en\",\"result_type\":\"recent\"},"
+      + "\"source\":\"<a href=\\\"https://mobile.twitter.com\\\" rel=\\\"nofollow\\\">Twitter Web App</a>\","
+      + "\"in_reply_to_status_id\":null,\"in_reply_to_status_id_str\":null,\"in_reply_to_user_id\":null,"
+      + "\"in_reply_to_user_id_str\":null,\"in_reply_to_screen_name\":null,"
+      + "\"user\":{\"id\":" + ( 1000 + i ) + ",\"id_str\":\"" + ( 1000 + i ) + "\","
+      + "\"name\":\"Data Engineer " + i + "\","
+      + "\"screen_name\":\"engineer" + i + "\",\"location\":\"Lisbon, Portugal\","
+      + "\"description\":\"Pipelines, transformations and the occasional job. Opinions are my own.\","
+      + "\"url\":null,\"entities\":{\"description\":{\"urls\":[]}},\"protected\":false,"
+      + "\"followers_count\":" + ( 100 + i * 7 ) + ",\"friends_count\":" + ( 50 + i ) + ",\"listed_count\":3,"
+      + "\"created_at\":\"Mon Mar 05 11:02:41 +0000 2012\",\"favourites_count\":120,\"utc_offset\":null,"
+      + "\"time_zone\":null,\"geo_enabled\":true,\"verified\":" + ( i % 5 == 0 ) + ",\"statuses_count\":4567,"
+      + "\"lang\":null,\"contributors_enabled\":false,\"is_translator\":false,"
+      + "\"profile_background_color\":\"F5F8FA\","
+      + "\"profile_image_url\":\"http://pbs.twimg.com/profile_images/1/a_normal.jpg\","
+      + "\"profile_image_url_https\":\"https://pbs.twimg.com/profile_images/1/a_normal.jpg\","
+      + "\"default_profile\":true,\"default_profile_image\":false,\"following\":null,\"follow_request_sent\":null,"
+      + "\"notifications\":null},"
+      + "\"geo\":null,\"coordinates\":" + ( i % 4 == 0
+      ? "{\"type\":\"Point\",\"coordinates\":[-9.1393,38.7223]}" : "null" ) + ","
+      + "\"place\":null,\"contributors\":null,\"is_quote_status\":false,"
+      + "\"retweet_count\":" + ( i % 13 ) + ",\"favorite_count\":" + ( i % 29 ) + ",\"favorited\":false,"
+      + "\"retweeted\":false,\"possibly_sensitive\":" + ( i % 17 == 0 ) + ",\"lang\":\"en\"}";
+  }
+
+  /**
+   * A single page, without a next one.
+   */
+  private static class Result implements QueryResult {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Status> tweets;
+
+    Result( List<Status> tweets ) {
+      this.tweets = Collections.unmodifiableList( tweets );
+    }
+
+    @Override
+    public long getSinceId() {
+      return 0;
+    }
+
+    @Override
+    public long getMaxId() {
+      return tweets.isEmpty() ? 0 : tweets.get( tweets.size() - 1 ).getId();
+    }
+
+    @Override
+    public String getRefreshURL() {
+      return null;
+    }
+
+    @Override
+    public int getCount() {
+      return tweets.size();
+    }
+
+    @Override
+    public double getCompletedIn() {
+      return 0;
+    }
+
+    @Override
+    public String getQuery() {
+      return "pentaho";
+    }
+
+    @Override
+    public List<Status> getTweets() {
+      return tweets;
+    }
+
+    @Override
+    public Query nextQuery() {
+      return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return false;
+    }
+
+    @Override
+    public RateLimitStatus getRateLimitStatus() {
+      return null;
+    }
+
+    @Override
+    public int getAccessLevel() {
+      return NONE;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.annotations.Step;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.plugins.PluginRegistry;
+import org.pentaho.di.core.plugins.StepPluginType;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.trans.RowProducer;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.RowAdapter;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+import org.pentaho.di.trans.steps.injector.InjectorMeta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a full transformation, injecting query rows into the step pointed at a {@link MockSearchServer},
+ * and reports the rows it emitted per second. Options are given as name=value arguments:
+ * queries, pages, count, latency (ms), rateLimit (calls per window), window (seconds), errorRate,
+ * concurrency, copies, api (TWITTER4J or STREAMING) and seed.
+ */
+public class MockSearchLoadTest {
+
+  public static void main( String[] args ) throws Exception {
+    Map<String, String> options = optionsOf( args );
+    int queries = Integer.parseInt( options.getOrDefault( "queries", "100" ) );
+    int pages = Integer.parseInt( options.getOrDefault( "pages", "3" ) );
+    int count = Integer.parseInt( options.getOrDefault( "count", "100" ) );
+
+    KettleEnvironment.init();
+    PluginRegistry.getInstance().registerPluginClass( TwitterSearchMeta.class.getName(), StepPluginType.class,
+      Step.class );
+
+    try ( MockSearchServer server = new MockSearchServer( Long.parseLong( options.getOrDefault( "seed", "1" ) ) ) ) {
+      server.setLatency( Long.parseLong( options.getOrDefault( "latency", "50" ) ) );
+      server.setPages( pages );
+      server.setRateLimit( Integer.parseInt( options.getOrDefault( "rateLimit", "0" ) ),
+        TimeUnit.SECONDS.toMillis( Long.parseLong( options.getOrDefault( "window", "10" ) ) ) );
+      server.setErrorRate( Double.parseDouble( options.getOrDefault( "errorRate", "0" ) ) );
+
+      TwitterSearchMeta meta = new TwitterSearchMeta();
+      meta.setDefault();
+      meta.setSearchQueryField( "query" );
+      meta.setCredentialsField( new ArrayList<>( Collections.singletonList( CannedSearch.CREDENTIAL ) ) );
+      meta.setBaseUrlField( server.getBaseUrl() );
+      meta.setSearchApiField( options.getOrDefault( "api", "TWITTER4J" ) );
+      meta.setPageSizeField( count );
+      meta.setConcurrencyField( Integer.parseInt( options.getOrDefault( "concurrency", "4" ) ) );
+      meta.setCacheSizeField( 0 );
+      meta.setRetryDelayField( 100 );
+      meta.setMaxRetryDelayField( 2000 );
+      meta.setJmxField( false );
+
+      TransMeta transMeta = new TransMeta();
+      transMeta.setName( "mock-search-load" );
+      StepMeta input = new StepMeta( "Queries", new InjectorMeta() );
+      StepMeta search = new StepMeta( "Twitter Search", meta );
+      search.setCopies( Integer.parseInt( options.getOrDefault( "copies", "1" ) ) );
+      transMeta.addStep( input );
+      transMeta.addStep( search );
+      transMeta.addTransHop( new TransHopMeta( input, search ) );
+
+      Trans trans = new Trans( transMeta );
+      trans.prepareExecution( null );
+      RowProducer producer = trans.addRowProducer( input.getName(), 0 );
+      AtomicLong rows = new AtomicLong();
+      for ( StepMetaDataCombi combi : trans.getSteps() ) {
+        if ( search.getName().equals( combi.stepname ) ) {
+          combi.step.addRowListener( new RowAdapter() {
+            @Override
+            public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) {
+              rows.incrementAndGet();
+            }
+          } );
+        }
+      }
+
+      long start = System.nanoTime();
+      trans.startThreads();
+      RowMetaInterface rowMeta = new RowMeta();
+      rowMeta.addValueMeta( new ValueMetaString( "query" ) );
+      for ( int i = 0; i < queries; i++ ) {
+        producer.putRow( rowMeta, new Object[] { "mock query " + i } );
+      }
+      producer.finished();
+      trans.waitUntilFinished();
+      double seconds = ( System.nanoTime() - start ) / (double) TimeUnit.SECONDS.toNanos( 1 );
+
+      if ( trans.getErrors() > 0 ) {
+        throw new KettleException( "The transformation failed, see the log above" );
+      }
+      System.out.printf( "%d queries, %d rows in %.2f s: %.0f rows/s%n", queries, rows.get(), seconds,
+        rows.get() / seconds );
+      System.out.printf( "%d calls, %d rate limited, %d failed%n", server.getCalls(), server.getRateLimited(),
+        server.getFailed() );
+    }
+  }
+
+  /**
+   * @return the name=value arguments, by name.
+   */
+  static Map<String, String> optionsOf( String[] args ) {
+    Map<String, String> options = new HashMap<>();
+    for ( String arg : args ) {
+      int separator = arg.indexOf( '=' );
+      if ( separator <= 0 ) {
+        throw new IllegalArgumentException( "Expected name=value, got " + arg );
+      }
+      options.put( arg.substring( 0, separator ), arg.substring( separator + 1 ) );
+    }
+    return options;
+  }
+}
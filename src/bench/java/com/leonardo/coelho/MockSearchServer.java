@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server emulating the search endpoint of the API, to run the step without calling Twitter.
+ * Every query finds the same synthetic tweets on every run, spread over a configurable number of pages.
+ * Calls can be slowed down, limited to a number per rate limit window, and failed at random with a 503.
+ * Point the API base URL of the step to {@link #getBaseUrl()}; credentials aren't checked.
+ */
+public class MockSearchServer implements Closeable {
+  private static final int DEFAULT_COUNT = 15;
+  private static final int MAX_COUNT = 100;
+  // IDs of the synthetic tweets are spread above this one, by query.
+  private static final long FIRST_ID = 1000000000000000000L;
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final Random random;
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong rateLimited = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  private volatile long latency;
+  private volatile int pages = 3;
+  private volatile int rateLimit;
+  private volatile long window = TimeUnit.MINUTES.toMillis( 15 );
+  private volatile double errorRate;
+
+  private int remaining;
+  private long resetAt;
+
+  /**
+   * Start a server on a free port of the loopback interface.
+   *
+   * @param seed the seed of the failures injected at random.
+   */
+  public MockSearchServer( long seed ) throws IOException {
+    random = new Random( seed );
+    server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ), 0 );
+    server.createContext( "/1.1/search/tweets.json", this::search );
+    server.setExecutor( executor );
+    server.start();
+  }
+
+  /**
+   * @return the base URL of the API served, ending with a slash.
+   */
+  public String getBaseUrl() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/1.1/";
+  }
+
+  /**
+   * @param latency the milliseconds every call waits before being answered.
+   */
+  public void setLatency( long latency ) {
+    this.latency = latency;
+  }
+
+  /**
+   * @param pages how many pages of tweets every query finds.
+   */
+  public void setPages( int pages ) {
+    this.pages = pages;
+  }
+
+  /**
+   * @param rateLimit how many calls are answered per window before a 429, 0 for no limit.
+   * @param window the milliseconds of a rate limit window.
+   */
+  public synchronized void setRateLimit( int rateLimit, long window ) {
+    this.rateLimit = rateLimit;
+    this.window = window;
+    this.remaining = rateLimit;
+    this.resetAt = 0;
+  }
+
+  /**
+   * @param errorRate the share of calls, from 0 to 1, failed with a 503.
+   */
+  public void setErrorRate( double errorRate ) {
+    this.errorRate = errorRate;
+  }
+
+  public long getCalls() {
+    return calls.get();
+  }
+
+  public long getRateLimited() {
+    return rateLimited.get();
+  }
+
+  public long getFailed() {
+    return failed.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop( 0 );
+    executor.shutdownNow();
+  }
+
+  private void search( HttpExchange exchange ) throws IOException {
+    try {
+      calls.incrementAndGet();
+      if ( latency > 0 ) {
+        try {
+          Thread.sleep( latency );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      long now = System.currentTimeMillis();
+      int left;
+      long reset;
+      boolean fail;
+      synchronized ( this ) {
+        if ( rateLimit > 0 && now >= resetAt ) {
+          remaining = rateLimit;
+          resetAt = now + window;
+        }
+        left = rateLimit > 0 ? remaining : -1;
+        reset = TimeUnit.MILLISECONDS.toSeconds( resetAt ) + 1;
+        if ( left > 0 ) {
+          remaining--;
+        }
+        fail = errorRate > 0 && random.nextDouble() < errorRate;
+      }
+      if ( left >= 0 ) {
+        exchange.getResponseHeaders().set( "x-rate-limit-limit", String.valueOf( rateLimit ) );
+        exchange.getResponseHeaders().set( "x-rate-limit-remaining", String.valueOf( Math.max( 0, left - 1 ) ) );
+        exchange.getResponseHeaders().set( "x-rate-limit-reset", String.valueOf( reset ) );
+      }
+      if ( left == 0 ) {
+        rateLimited.incrementAndGet();
+        respond( exchange, 429, "{\"errors\":[{\"code\":88,\"message\":\"Rate limit exceeded\"}]}" );
+      } else if ( fail ) {
+        failed.incrementAndGet();
+        respond( exchange, 503, "{\"errors\":[{\"code\":130,\"message\":\"Over capacity\"}]}" );
+      } else {
+        respond( exchange, 200, page( parametersOf( exchange.getRequestURI().getRawQuery() ) ) );
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * @return the search response for the parameters, with tweets from max_id down, above since_id.
+   */
+  private String page( Map<String, String> parameters ) throws UnsupportedEncodingException {
+    String query = parameters.getOrDefault( "q", "" );
+    int count = Math.min( MAX_COUNT, Integer.parseInt( parameters.getOrDefault( "count",
+      String.valueOf( DEFAULT_COUNT ) ) ) );
+    long maxId = Long.parseLong( parameters.getOrDefault( "max_id", "0" ) );
+    long sinceId = Long.parseLong( parameters.getOrDefault( "since_id", "0" ) );
+
+    long top = FIRST_ID + ( query.hashCode() & 0xffffffL ) * 100000L;
+    long bottom = Math.max( top - (long) pages * count + 1, sinceId + 1 );
+    long start = maxId > 0 ? Math.min( maxId, top ) : top;
+    long end = Math.max( bottom, start - count + 1 );
+
+    StringBuilder response = new StringBuilder( "{\"statuses\":[" );
+    for ( long id = start; id >= end; id-- ) {
+      response.append( id == start ? "" : "," ).append( CannedSearch.statusJson( id, (int) ( top - id ) ) );
+    }
+    String encoded = URLEncoder.encode( query, "UTF-8" );
+    response.append( "],\"search_metadata\":{\"completed_in\":0.01,\"max_id\":" ).append( start )
+      .append( ",\"max_id_str\":\"" ).append( start ).append( "\"," );
+    if ( start >= end && end > bottom ) {
+      response.append( "\"next_results\":\"?max_id=" ).append( end - 1 ).append( "&q=" ).append( encoded )
+        .append( "&count=" ).append( count ).append( "&include_entities=1\"," );
+    }
+    response.append( "\"query\":\"" ).append( encoded ).append( "\",\"refresh_url\":\"?since_id=" ).append( start )
+      .append( "&q=" ).append( encoded ).append( "&include_entities=1\",\"count\":" ).append( count )
+      .append( ",\"since_id\":" ).append( sinceId ).append( ",\"since_id_str\":\"" ).append( sinceId ).append( "\"}}" );
+    return response.toString();
+  }
+
+  private static void respond( HttpExchange exchange, int status, String body ) throws IOException {
+    byte[] bytes = body.getBytes( StandardCharsets.UTF_8 );
+    String acceptEncoding = exchange.getRequestHeaders().getFirst( "Accept-Encoding" );
+    if ( acceptEncoding != null && acceptEncoding.contains( "gzip" ) ) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      try ( OutputStream gzip = new GZIPOutputStream( compressed ) ) {
+        gzip.write( bytes );
+      }
+      bytes = compressed.toByteArray();
+      exchange.getResponseHeaders().set( "Content-Encoding", "gzip" );
+    }
+    exchange.getResponseHeaders().set( "Content-Type", "application/json;charset=utf-8" );
+    exchange.sendResponseHeaders( status, bytes.length );
+    try ( OutputStream out = exchange.getResponseBody() ) {
+      out.write( bytes );
+    }
+  }
+
+  private static Map<String, String> parametersOf( String rawQuery ) throws UnsupportedEncodingException {
+    Map<String, String> parameters = new HashMap<>();
+    if ( rawQuery == null ) {
+      return parameters;
+    }
+    for ( String parameter : rawQuery.split( "&" ) ) {
+      int separator = parameter.indexOf( '=' );
+      if ( separator > 0 ) {
+        parameters.put( URLDecoder.decode( parameter.substring( 0, separator ), "UTF-8" ),
+          URLDecoder.decode( parameter.substring( separator + 1 ), "UTF-8" ) );
+      }
+    }
+    return parameters;
+  }
+
+  /**
+   * Serve the mock API until the process is stopped, to point a transformation at it from Spoon.
+   */
+  public static void main( String[] args ) throws IOException, InterruptedException {
+    Map<String, String> options = MockSearchLoadTest.optionsOf( args );
+    MockSearchServer server = new MockSearchServer( Long.parseLong( options.getOrDefault( "seed", "1" ) ) );
+    server.setLatency( Long.parseLong( options.getOrDefault( "latency", "0" ) ) );
+    server.setPages( Integer.parseInt( options.getOrDefault( "pages", "3" ) ) );
+    server.setRateLimit( Integer.parseInt( options.getOrDefault( "rateLimit", "0" ) ),
+      TimeUnit.SECONDS.toMillis( Long.parseLong( options.getOrDefault( "window", "900" ) ) ) );
+    server.setErrorRate( Double.parseDouble( options.getOrDefault( "errorRate", "0" ) ) );
+    System.out.println( "Serving the search API at " + server.getBaseUrl() );
+    Thread.currentThread().join();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import twitter4j.TwitterException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parts of the hot path that don't involve the step runtime: turning a page of tweets into
+ * output values, with twitter4j or the streaming parser, and computing the output row layout.
+ */
+@State( Scope.Thread )
+@Fork( 1 )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class TwitterRowBenchmark {
+  private static final int PAGES = 16;
+  private static final int PAGE_SIZE = 100;
+
+  // How many attributes of the catalog are extracted.
+  @Param( { "1", "5", "ALL" } )
+  public String fields;
+
+  private CannedSearch canned;
+  private TwitterField[] outputFields;
+  private TwitterSearchMeta meta;
+  private RowMetaInterface inputRowMeta;
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException, TwitterException {
+    KettleEnvironment.init();
+    canned = new CannedSearch( PAGES, PAGE_SIZE );
+    TwitterField[] all = TwitterField.values();
+    outputFields = "ALL".equals( fields ) ? all : Arrays.copyOf( all, Integer.parseInt( fields ) );
+
+    meta = new TwitterSearchMeta();
+    meta.setDefault();
+    meta.setTweetBodyField( null );
+    List<TwitterOutputField> additional = new ArrayList<>();
+    for ( TwitterField field : outputFields ) {
+      additional.add( new TwitterOutputField( field.name().toLowerCase( Locale.ROOT ), field ) );
+    }
+    meta.setAdditionalFieldsField( additional );
+    inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "query" ) );
+  }
+
+  /**
+   * Extract the output values of a page mapped by twitter4j, per tweet.
+   */
+  @Benchmark
+  @OperationsPerInvocation( PAGE_SIZE )
+  public TwitterSearchPage mappedPage() {
+    return TwitterSearchPage.of( canned.nextResult(), outputFields );
+  }
+
+  /**
+   * Parse the output values out of a raw search response, per tweet.
+   */
+  @Benchmark
+  @OperationsPerInvocation( PAGE_SIZE )
+  public void streamedPage( Blackhole blackhole ) throws IOException {
+    TwitterStatusParser statuses = new TwitterStatusParser( outputFields );
+    try ( JsonParser json = TwitterStatusParser.JSON.createParser( canned.nextResponse() ) ) {
+      json.nextToken();
+      while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+        String name = json.getCurrentName();
+        if ( json.nextToken() == JsonToken.START_ARRAY && "statuses".equals( name ) ) {
+          while ( json.nextToken() == JsonToken.START_OBJECT ) {
+            blackhole.consume( statuses.parse( json ) );
+          }
+        } else {
+          json.skipChildren();
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute the layout of the output rows, as done once per step copy and by every step asking for it.
+   */
+  @Benchmark
+  public RowMetaInterface getFields() throws KettleException {
+    RowMetaInterface rowMeta = inputRowMeta.clone();
+    meta.getFields( rowMeta, "Twitter Search", null, null, new Variables(), null, null );
+    return rowMeta;
+  }
+}
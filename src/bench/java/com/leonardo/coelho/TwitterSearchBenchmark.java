@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import twitter4j.TwitterException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the step over input rows, from init to dispose, against a stubbed API returning canned pages.
+ * Measures the rows emitted per second, and with -prof gc the allocations per input row.
+ */
+@State( Scope.Thread )
+@Fork( 1 )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+public class TwitterSearchBenchmark {
+  private static final int ROWS = 50;
+  private static final int PAGE_SIZE = 100;
+
+  @Param( { "NONE", "EXACT", "APPROXIMATE" } )
+  public String dedup;
+
+  // Only the tweet text, or every attribute of the catalog.
+  @Param( { "TEXT", "ALL" } )
+  public String fields;
+
+  @Param( { "1", "4" } )
+  public int concurrency;
+
+  private TwitterSearchMeta meta;
+  private RowMetaInterface inputRowMeta;
+  private Object[][] rows;
+
+  /**
+   * The step, reading its rows from an array and handing its output rows to the blackhole.
+   */
+  private static class BenchStep extends TwitterSearch {
+    private final Object[][] rows;
+    private final Blackhole blackhole;
+    private int next;
+
+    BenchStep( StepMeta stepMeta, TwitterSearchData data, TransMeta transMeta, Trans trans,
+      RowMetaInterface inputRowMeta, Object[][] rows, Blackhole blackhole ) {
+      super( stepMeta, data, 0, transMeta, trans );
+      setInputRowMeta( inputRowMeta );
+      this.rows = rows;
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public Object[] getRow() {
+      return next < rows.length ? rows[ next++ ] : null;
+    }
+
+    @Override
+    public void putRow( RowMetaInterface rowMeta, Object[] row ) {
+      blackhole.consume( row );
+    }
+  }
+
+  @Setup( Level.Trial )
+  public void setUp() throws KettleException, TwitterException {
+    KettleEnvironment.init();
+
+    meta = new TwitterSearchMeta();
+    meta.setDefault();
+    meta.setSearchQueryField( "query" );
+    meta.setCredentialsField( new ArrayList<>( Collections.singletonList( CannedSearch.CREDENTIAL ) ) );
+    meta.setDedupField( dedup );
+    meta.setConcurrencyField( concurrency );
+    // Every row searches for something else, the cache would only cost time.
+    meta.setCacheSizeField( 0 );
+    meta.setMetricsIntervalField( 0 );
+    meta.setJmxField( false );
+    if ( "ALL".equals( fields ) ) {
+      meta.setCreationDateField( "created" );
+      meta.setAuthorField( "author" );
+      meta.setAuthorScreenNameField( "screen_name" );
+      meta.setAuthorLocationField( "location" );
+      List<TwitterOutputField> additional = new ArrayList<>();
+      for ( TwitterField field : TwitterField.values() ) {
+        if ( !Arrays.asList( meta.getOutputFields() ).contains( field ) ) {
+          additional.add( new TwitterOutputField( field.name().toLowerCase( Locale.ROOT ), field ) );
+        }
+      }
+      meta.setAdditionalFieldsField( additional );
+    }
+
+    inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "query" ) );
+    rows = new Object[ ROWS ][];
+    for ( int i = 0; i < ROWS; i++ ) {
+      rows[ i ] = new Object[] { "pentaho " + i };
+    }
+
+    TwitterClientRegistry.register( CannedSearch.CREDENTIAL, TwitterSearchApi.DEFAULT_BASE_URL,
+      new TwitterClientRegistry.Settings( meta.isKeepAliveField(), meta.isGzipField(), meta.getConnectTimeoutField(),
+        meta.getReadTimeoutField(), meta.isDebugField() ),
+      new CannedSearch( ROWS, PAGE_SIZE ).twitter() );
+  }
+
+  @Benchmark
+  @BenchmarkMode( Mode.Throughput )
+  @OutputTimeUnit( TimeUnit.SECONDS )
+  @OperationsPerInvocation( ROWS * PAGE_SIZE )
+  public void emittedRows( Blackhole blackhole ) throws KettleException {
+    run( blackhole );
+  }
+
+  @Benchmark
+  @BenchmarkMode( Mode.SampleTime )
+  @OutputTimeUnit( TimeUnit.MILLISECONDS )
+  public void runLatency( Blackhole blackhole ) throws KettleException {
+    run( blackhole );
+  }
+
+  private void run( Blackhole blackhole ) throws KettleException {
+    TransMeta transMeta = new TransMeta();
+    transMeta.setName( "bench" );
+    StepMeta stepMeta = new StepMeta( "Twitter Search", meta );
+    transMeta.addStep( stepMeta );
+    Trans trans = new Trans( transMeta );
+    TwitterSearchData data = new TwitterSearchData();
+    BenchStep step = new BenchStep( stepMeta, data, transMeta, trans, inputRowMeta, rows, blackhole );
+    if ( !step.init( meta, data ) ) {
+      throw new KettleStepException( "The step failed to initialize" );
+    }
+    try {
+      while ( step.processRow( meta, data ) ) {
+        // Next row.
+      }
+    } finally {
+      step.dispose( meta, data );
+    }
+  }
+}
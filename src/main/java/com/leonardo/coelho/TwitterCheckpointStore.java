@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.Query;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the highest status ID seen by each query, so that later runs only fetch newer tweets.
+ * Checkpoints are appended to a local file, one "id key" line each, and synced to disk before
+ * returning. A line torn by a crash is dropped on load, and the file is compacted once it grows too large, on load
+ * or while checkpoints are recorded.
+ * Several processes may share the file: appends and compactions hold the lock of a sibling ".lock" file, and a
+ * compaction reads the file again first, so that it keeps the checkpoints the other processes recorded.
+ */
+public class TwitterCheckpointStore {
+  private static final ConcurrentMap<Path, TwitterCheckpointStore> stores = new ConcurrentHashMap<>();
+
+  // Compact the file once it holds this many lines more than checkpoints.
+  private static final int COMPACT_THRESHOLD = 1000;
+
+  private final Path file;
+  private final Path lockFile;
+  private Map<String, Long> checkpoints;
+  // Lines in the file.
+  private int lines;
+
+  private TwitterCheckpointStore( Path file ) {
+    this.file = file;
+    this.lockFile = file.resolveSibling( file.getFileName() + ".lock" );
+  }
+
+  /**
+   * @return the store kept in the given file, shared by every step copy of the JVM.
+   */
+  public static TwitterCheckpointStore forFile( String filename ) {
+    Path path = Paths.get( filename ).toAbsolutePath().normalize();
+    return stores.computeIfAbsent( path, TwitterCheckpointStore::new );
+  }
+
+  /**
+   * @return the key of a query: its text, language, result type, and until date and place if any.
+   */
+  public static String keyOf( Query query ) {
+    try {
+      String key = query.getResultType() + ":" + query.getLang() + ":" + URLEncoder.encode( query.getQuery(), "UTF-8" );
+      // Queries that only differ by these filters find other tweets. Keys without them are those of older runs.
+      if ( query.getUntil() != null ) {
+        key += ":until=" + query.getUntil();
+      }
+      if ( query.getGeocode() != null ) {
+        key += ":geocode=" + URLEncoder.encode( query.getGeocode(), "UTF-8" );
+      }
+      return key;
+    } catch ( UnsupportedEncodingException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  /**
+   * @return the highest status ID recorded for the key, or 0 if there is none.
+   */
+  public synchronized long get( String key ) throws IOException {
+    load();
+    Long id = checkpoints.get( key );
+    return id == null ? 0 : id;
+  }
+
+  /**
+   * Record the highest status ID seen for the key, if it is higher than the one recorded.
+   */
+  public synchronized void put( String key, long id ) throws IOException {
+    load();
+    Long current = checkpoints.get( key );
+    if ( current != null && current >= id ) {
+      return;
+    }
+    checkpoints.put( key, id );
+    try ( FileChannel lock = lock() ) {
+      Files.write( file, ( id + " " + key + "\n" ).getBytes( StandardCharsets.UTF_8 ),
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC );
+      // The store lives as long as the JVM, which may run the step many times without loading the file again.
+      if ( ++lines > checkpoints.size() + COMPACT_THRESHOLD ) {
+        compact();
+      }
+    }
+  }
+
+  private void load() throws IOException {
+    if ( checkpoints != null ) {
+      return;
+    }
+    checkpoints = new HashMap<>();
+    if ( !Files.exists( file ) ) {
+      return;
+    }
+    if ( read() || lines > checkpoints.size() + COMPACT_THRESHOLD ) {
+      try ( FileChannel lock = lock() ) {
+        compact();
+      }
+    }
+  }
+
+  /**
+   * Read the checkpoints of the file, keeping the highest of those already known for each key.
+   *
+   * @return true if the last line of the file is torn.
+   */
+  private boolean read() throws IOException {
+    if ( !Files.exists( file ) ) {
+      lines = 0;
+      return false;
+    }
+    String content = new String( Files.readAllBytes( file ), StandardCharsets.UTF_8 );
+    String[] fileLines = content.split( "\n" );
+    // A line torn by a crash would be glued to the next checkpoint, so rewrite the file without it.
+    boolean torn = !content.isEmpty() && !content.endsWith( "\n" );
+    lines = fileLines.length;
+    for ( int i = 0; i < ( torn ? fileLines.length - 1 : fileLines.length ); i++ ) {
+      String line = fileLines[ i ];
+      int separator = line.indexOf( ' ' );
+      if ( separator <= 0 ) {
+        continue;
+      }
+      long id;
+      try {
+        id = Long.parseLong( line.substring( 0, separator ) );
+      } catch ( NumberFormatException e ) {
+        continue;
+      }
+      String key = line.substring( separator + 1 );
+      Long current = checkpoints.get( key );
+      if ( current == null || current < id ) {
+        checkpoints.put( key, id );
+      }
+    }
+    return torn;
+  }
+
+  /**
+   * Rewrite the file with one line per checkpoint. Only call it holding the lock.
+   */
+  private void compact() throws IOException {
+    // Other processes may have recorded checkpoints since the file was read.
+    read();
+    StringBuilder content = new StringBuilder();
+    for ( Map.Entry<String, Long> checkpoint : checkpoints.entrySet() ) {
+      content.append( checkpoint.getValue() ).append( ' ' ).append( checkpoint.getKey() ).append( '\n' );
+    }
+    Path tmp = file.resolveSibling( file.getFileName() + ".tmp" );
+    try ( FileChannel channel = FileChannel.open( tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING ) ) {
+      ByteBuffer buffer = ByteBuffer.wrap( content.toString().getBytes( StandardCharsets.UTF_8 ) );
+      while ( buffer.hasRemaining() ) {
+        channel.write( buffer );
+      }
+      // Otherwise a crash right after the move may leave an empty file in place of the checkpoints.
+      channel.force( true );
+    }
+    Files.move( tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    lines = checkpoints.size();
+  }
+
+  /**
+   * @return the channel holding the lock of the file, closing it releases the lock.
+   */
+  private FileChannel lock() throws IOException {
+    FileChannel channel = FileChannel.open( lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+    try {
+      channel.lock();
+    } catch ( IOException | RuntimeException e ) {
+      channel.close();
+      throw e;
+    }
+    return channel;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pauses the search calls once too many of the recent ones failed, so that an unavailable API
+ * isn't flooded with retries. After the pause a single call is let through: the breaker closes
+ * again if it succeeds, and pauses once more if it fails.
+ */
+public class TwitterCircuitBreaker {
+  // Number of recent calls the failure ratio is computed over.
+  private static final int WINDOW = 20;
+  // Longest single wait, so that stopped steps are noticed quickly.
+  private static final long MAX_WAIT_SLICE = TimeUnit.SECONDS.toMillis( 1 );
+
+  private final int threshold;
+  private final long pause;
+
+  // Outcomes of the recent calls, true for a failure.
+  private final boolean[] outcomes = new boolean[ WINDOW ];
+  private int next;
+  private int calls;
+  private int failures;
+  private long openUntil;
+  private boolean probing;
+  private long opened;
+
+  /**
+   * @param threshold the percentage of failed calls, among the recent ones, that pauses the calls.
+   * @param pause the milliseconds the calls are paused for.
+   */
+  public TwitterCircuitBreaker( int threshold, long pause ) {
+    this.threshold = threshold;
+    this.pause = pause;
+  }
+
+  /**
+   * Wait until a call may be made.
+   *
+   * @param stopped tells whether the caller gave up waiting.
+   * @throws InterruptedException if the caller was stopped or interrupted while waiting.
+   */
+  public synchronized void acquire( BooleanSupplier stopped ) throws InterruptedException {
+    while ( true ) {
+      long now = System.currentTimeMillis();
+      if ( openUntil == 0 ) {
+        return;
+      }
+      if ( now >= openUntil && !probing ) {
+        // Half open, this call tells whether the API is back.
+        probing = true;
+        return;
+      }
+      if ( stopped.getAsBoolean() ) {
+        throw new InterruptedException();
+      }
+      wait( Math.max( 1, Math.min( openUntil - now, MAX_WAIT_SLICE ) ) );
+    }
+  }
+
+  /**
+   * Record a call the API answered, even with an error that isn't worth retrying.
+   */
+  public synchronized void success() {
+    if ( probing ) {
+      close();
+    } else {
+      record( false );
+    }
+  }
+
+  /**
+   * Record a call that failed for a network issue or a server error.
+   */
+  public synchronized void failure() {
+    if ( probing ) {
+      probing = false;
+      open();
+    } else if ( openUntil == 0 ) {
+      record( true );
+      if ( calls == WINDOW && failures * 100 >= threshold * WINDOW ) {
+        open();
+      }
+    }
+  }
+
+  /**
+   * @return how many times the calls were paused.
+   */
+  public synchronized long getOpened() {
+    return opened;
+  }
+
+  private void record( boolean failed ) {
+    if ( calls < WINDOW ) {
+      calls++;
+    } else if ( outcomes[ next ] ) {
+      failures--;
+    }
+    outcomes[ next ] = failed;
+    if ( failed ) {
+      failures++;
+    }
+    next = ( next + 1 ) % WINDOW;
+  }
+
+  private void open() {
+    openUntil = System.currentTimeMillis() + pause;
+    opened++;
+  }
+
+  private void close() {
+    probing = false;
+    openUntil = 0;
+    next = 0;
+    calls = 0;
+    failures = 0;
+    Arrays.fill( outcomes, false );
+    notifyAll();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.Twitter;
+import twitter4j.TwitterFactory;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.net.HttpURLConnection;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the API clients of the JVM, so that step copies and transformations using the same credential
+ * and connection settings share one client instead of building their own.
+ */
+public class TwitterClientRegistry {
+  private static final ConcurrentMap<String, Twitter> clients = new ConcurrentHashMap<>();
+
+  /**
+   * How the connections to the API are made.
+   */
+  public static class Settings {
+    private final boolean keepAlive;
+    private final boolean gzip;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final boolean debug;
+
+    /**
+     * @param keepAlive whether connections are kept open to be reused by the following calls.
+     * @param gzip whether responses are compressed.
+     * @param connectTimeout the milliseconds to wait for a connection.
+     * @param readTimeout the milliseconds to wait for a response.
+     * @param debug whether the client logs every request and response.
+     */
+    public Settings( boolean keepAlive, boolean gzip, int connectTimeout, int readTimeout, boolean debug ) {
+      this.keepAlive = keepAlive;
+      this.gzip = gzip;
+      this.connectTimeout = connectTimeout;
+      this.readTimeout = readTimeout;
+      this.debug = debug;
+    }
+
+    public boolean isKeepAlive() {
+      return keepAlive;
+    }
+
+    public boolean isGzip() {
+      return gzip;
+    }
+
+    public int getConnectTimeout() {
+      return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+      return readTimeout;
+    }
+
+    public boolean isDebug() {
+      return debug;
+    }
+
+    /**
+     * Apply the settings to a connection made without the client.
+     */
+    public void apply( HttpURLConnection connection ) {
+      connection.setConnectTimeout( connectTimeout );
+      connection.setReadTimeout( readTimeout );
+      if ( gzip ) {
+        connection.setRequestProperty( "Accept-Encoding", "gzip" );
+      }
+      if ( !keepAlive ) {
+        connection.setRequestProperty( "Connection", "close" );
+      }
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+      if ( this == o ) {
+        return true;
+      }
+      if ( o == null || getClass() != o.getClass() ) {
+        return false;
+      }
+      Settings settings = (Settings) o;
+      return keepAlive == settings.keepAlive && gzip == settings.gzip && connectTimeout == settings.connectTimeout
+        && readTimeout == settings.readTimeout && debug == settings.debug;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash( keepAlive, gzip, connectTimeout, readTimeout, debug );
+    }
+
+    @Override
+    public String toString() {
+      return keepAlive + ":" + gzip + ":" + connectTimeout + ":" + readTimeout + ":" + debug;
+    }
+  }
+
+  /**
+   * @param baseUrl the base URL of the API, ending with a slash.
+   * @return the client of the credential, built on first use.
+   */
+  public static Twitter forCredential( TwitterCredential credential, String baseUrl, Settings settings ) {
+    return clients.computeIfAbsent( keyOf( credential, baseUrl, settings ),
+      key -> build( credential, baseUrl, settings ) );
+  }
+
+  /**
+   * Use the given client for the credential, in place of one built from the settings. Lets the benchmarks
+   * run the step against a stubbed API.
+   */
+  static void register( TwitterCredential credential, String baseUrl, Settings settings, Twitter twitter ) {
+    clients.put( keyOf( credential, baseUrl, settings ), twitter );
+  }
+
+  private static Twitter build( TwitterCredential credential, String baseUrl, Settings settings ) {
+    return new TwitterFactory( new ConfigurationBuilder()
+      .setDebugEnabled( settings.isDebug() )
+      .setGZIPEnabled( settings.isGzip() )
+      .setHttpConnectionTimeout( settings.getConnectTimeout() )
+      .setHttpReadTimeout( settings.getReadTimeout() )
+      .setRestBaseURL( baseUrl )
+      .setOAuthConsumerKey( credential.getConsumerKeyField() )
+      .setOAuthConsumerSecret( credential.getConsumerSecretField() )
+      .setOAuthAccessToken( credential.getAccessTokenKeyField() )
+      .setOAuthAccessTokenSecret( credential.getAccessTokenSecretField() )
+      .build() ).getInstance();
+  }
+
+  private static String keyOf( TwitterCredential credential, String baseUrl, Settings settings ) {
+    return String.join( "\n", credential.getConsumerKeyField(), credential.getConsumerSecretField(),
+      credential.getAccessTokenKeyField(), credential.getAccessTokenSecretField(), baseUrl, settings.toString() );
+  }
+}
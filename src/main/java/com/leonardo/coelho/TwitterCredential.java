@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+/**
+ * One set of Twitter API credentials.
+ */
+public class TwitterCredential implements Cloneable {
+  private String consumerKeyField;
+  private String consumerSecretField;
+  private String accessTokenKeyField;
+  private String accessTokenSecretField;
+
+  public TwitterCredential() {
+  }
+
+  public TwitterCredential( String consumerKeyField, String consumerSecretField, String accessTokenKeyField,
+    String accessTokenSecretField ) {
+    this.consumerKeyField = consumerKeyField;
+    this.consumerSecretField = consumerSecretField;
+    this.accessTokenKeyField = accessTokenKeyField;
+    this.accessTokenSecretField = accessTokenSecretField;
+  }
+
+  @Override
+  public TwitterCredential clone() {
+    return new TwitterCredential( consumerKeyField, consumerSecretField, accessTokenKeyField, accessTokenSecretField );
+  }
+
+  public String getConsumerKeyField() {
+    return consumerKeyField;
+  }
+
+  public void setConsumerKeyField( String consumerKeyField ) {
+    this.consumerKeyField = consumerKeyField;
+  }
+
+  public String getConsumerSecretField() {
+    return consumerSecretField;
+  }
+
+  public void setConsumerSecretField( String consumerSecretField ) {
+    this.consumerSecretField = consumerSecretField;
+  }
+
+  public String getAccessTokenKeyField() {
+    return accessTokenKeyField;
+  }
+
+  public void setAccessTokenKeyField( String accessTokenKeyField ) {
+    this.accessTokenKeyField = accessTokenKeyField;
+  }
+
+  public String getAccessTokenSecretField() {
+    return accessTokenSecretField;
+  }
+
+  public void setAccessTokenSecretField( String accessTokenSecretField ) {
+    this.accessTokenSecretField = accessTokenSecretField;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.Twitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spreads search calls across several credentials, each with its own rate limit budget.
+ */
+public class TwitterCredentialPool {
+
+  public enum Dispatch {
+    // Take the credentials in turn, skipping those with an exhausted budget.
+    ROUND_ROBIN,
+    // Take the credential with the largest budget left.
+    LEAST_LOADED
+  }
+
+  /**
+   * A credential picked for one call.
+   */
+  public static class Lease {
+    private final Twitter twitter;
+    private final TwitterRateLimiter limiter;
+
+    private Lease( Twitter twitter, TwitterRateLimiter limiter ) {
+      this.twitter = twitter;
+      this.limiter = limiter;
+    }
+
+    public Twitter getTwitter() {
+      return twitter;
+    }
+
+    public TwitterRateLimiter getLimiter() {
+      return limiter;
+    }
+  }
+
+  private final List<Lease> leases = new ArrayList<>();
+  private final Dispatch dispatch;
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * @param baseUrl the base URL of the API, ending with a slash.
+   * @param coordinator the coordinator sharing the budgets with other processes, or null to keep them local.
+   */
+  public TwitterCredentialPool( List<TwitterCredential> credentials, Dispatch dispatch, String baseUrl,
+    TwitterClientRegistry.Settings settings, TwitterQuotaCoordinator coordinator ) {
+    this.dispatch = dispatch;
+    for ( TwitterCredential credential : credentials ) {
+      TwitterRateLimiter limiter = TwitterRateLimiter.forCredential( credential.getConsumerKeyField(),
+        credential.getAccessTokenKeyField(), coordinator );
+      leases.add( new Lease( TwitterClientRegistry.forCredential( credential, baseUrl, settings ), limiter ) );
+    }
+  }
+
+  /**
+   * @return the calls left in the current windows of every credential, or -1 while none of them is known.
+   */
+  public long getBudget() {
+    long budget = -1;
+    for ( Lease lease : leases ) {
+      int remaining = lease.limiter.getRemaining();
+      if ( remaining >= 0 ) {
+        budget = Math.max( budget, 0 ) + remaining;
+      }
+    }
+    return budget;
+  }
+
+  /**
+   * Pick a credential and take one call from its budget.
+   * When every budget is exhausted, wait for the credential whose window resets first.
+   *
+   * @throws InterruptedException if the caller was stopped while waiting.
+   */
+  public Lease acquire( BooleanSupplier stopped ) throws InterruptedException {
+    int size = leases.size();
+    int start = Math.floorMod( next.getAndIncrement(), size );
+    if ( dispatch == Dispatch.LEAST_LOADED ) {
+      Lease best = null;
+      int bestBudget = 0;
+      for ( int i = 0; i < size; i++ ) {
+        Lease lease = leases.get( ( start + i ) % size );
+        int budget = lease.limiter.getBudget();
+        if ( budget > bestBudget ) {
+          best = lease;
+          bestBudget = budget;
+        }
+      }
+      if ( best != null && best.limiter.tryAcquire() ) {
+        return best;
+      }
+    }
+    for ( int i = 0; i < size; i++ ) {
+      Lease lease = leases.get( ( start + i ) % size );
+      if ( lease.limiter.tryAcquire() ) {
+        return lease;
+      }
+    }
+
+    Lease first = leases.get( start );
+    for ( Lease lease : leases ) {
+      if ( lease.limiter.getResetAt() < first.limiter.getResetAt() ) {
+        first = lease;
+      }
+    }
+    first.limiter.acquire( stopped );
+    return first;
+  }
+}
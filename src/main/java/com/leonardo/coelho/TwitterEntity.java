@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.HashtagEntity;
+import twitter4j.Status;
+import twitter4j.URLEntity;
+import twitter4j.UserMentionEntity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hashtag, user mention or URL the API found in the text of a tweet, with its position in the text.
+ */
+public class TwitterEntity implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public enum Type {
+    // The text of the hashtag, without the #.
+    HASHTAG,
+    // The screen name of the mentioned user, without the @.
+    MENTION,
+    // The expanded URL.
+    URL
+  }
+
+  private final Type type;
+  private final String value;
+  private final int start;
+  private final int end;
+
+  /**
+   * @param start the index of the first character of the entity in the text.
+   * @param end the index following the last character of the entity in the text.
+   */
+  public TwitterEntity( Type type, String value, int start, int end ) {
+    this.type = type;
+    this.value = value;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * @return the entities of a twitter4j status.
+   */
+  public static List<TwitterEntity> of( Status status ) {
+    List<TwitterEntity> entities = new ArrayList<>();
+    for ( HashtagEntity hashtag : status.getHashtagEntities() ) {
+      entities.add( new TwitterEntity( Type.HASHTAG, hashtag.getText(), hashtag.getStart(), hashtag.getEnd() ) );
+    }
+    for ( UserMentionEntity mention : status.getUserMentionEntities() ) {
+      entities.add( new TwitterEntity( Type.MENTION, mention.getScreenName(), mention.getStart(), mention.getEnd() ) );
+    }
+    for ( URLEntity url : status.getURLEntities() ) {
+      entities.add( new TwitterEntity( Type.URL, url.getExpandedURL(), url.getStart(), url.getEnd() ) );
+    }
+    return entities;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public int getStart() {
+    return start;
+  }
+
+  public int getEnd() {
+    return end;
+  }
+}
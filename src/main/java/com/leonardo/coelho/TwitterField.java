@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import twitter4j.GeoLocation;
+import twitter4j.HashtagEntity;
+import twitter4j.Place;
+import twitter4j.Status;
+
+/**
+ * Catalog of the tweet attributes the step can write to its output fields.
+ * Each attribute is only extracted, and converted to its Kettle type, when an output field selects it.
+ */
+public enum TwitterField {
+  CREATION_DATE( ValueMetaInterface.TYPE_DATE ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getCreatedAt();
+    }
+  },
+  AUTHOR_NAME( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getUser().getName();
+    }
+  },
+  AUTHOR_SCREEN_NAME( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getUser().getScreenName();
+    }
+  },
+  AUTHOR_LOCATION( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getUser().getLocation();
+    }
+  },
+  TWEET_BODY( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getText();
+    }
+  },
+  STATUS_ID( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getId();
+    }
+  },
+  RETWEET_COUNT( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return (long) status.getRetweetCount();
+    }
+  },
+  FAVORITE_COUNT( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return (long) status.getFavoriteCount();
+    }
+  },
+  IN_REPLY_TO_STATUS_ID( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return idOrNull( status.getInReplyToStatusId() );
+    }
+  },
+  IN_REPLY_TO_SCREEN_NAME( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getInReplyToScreenName();
+    }
+  },
+  QUOTED_STATUS_ID( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return idOrNull( status.getQuotedStatusId() );
+    }
+  },
+  RETWEETED_STATUS_ID( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getRetweetedStatus() == null ? null : status.getRetweetedStatus().getId();
+    }
+  },
+  LANGUAGE( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getLang();
+    }
+  },
+  SOURCE( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getSource();
+    }
+  },
+  POSSIBLY_SENSITIVE( ValueMetaInterface.TYPE_BOOLEAN ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.isPossiblySensitive();
+    }
+  },
+  HASHTAGS( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      HashtagEntity[] hashtags = status.getHashtagEntities();
+      if ( hashtags == null || hashtags.length == 0 ) {
+        return null;
+      }
+      StringBuilder joined = new StringBuilder( hashtags[ 0 ].getText() );
+      for ( int i = 1; i < hashtags.length; i++ ) {
+        joined.append( ',' ).append( hashtags[ i ].getText() );
+      }
+      return joined.toString();
+    }
+  },
+  LATITUDE( ValueMetaInterface.TYPE_NUMBER ) {
+    @Override
+    public Object extract( Status status ) {
+      GeoLocation location = status.getGeoLocation();
+      return location == null ? null : location.getLatitude();
+    }
+  },
+  LONGITUDE( ValueMetaInterface.TYPE_NUMBER ) {
+    @Override
+    public Object extract( Status status ) {
+      GeoLocation location = status.getGeoLocation();
+      return location == null ? null : location.getLongitude();
+    }
+  },
+  PLACE( ValueMetaInterface.TYPE_STRING ) {
+    @Override
+    public Object extract( Status status ) {
+      Place place = status.getPlace();
+      return place == null ? null : place.getFullName();
+    }
+  },
+  AUTHOR_ID( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getUser().getId();
+    }
+  },
+  AUTHOR_FOLLOWERS_COUNT( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return (long) status.getUser().getFollowersCount();
+    }
+  },
+  AUTHOR_FRIENDS_COUNT( ValueMetaInterface.TYPE_INTEGER ) {
+    @Override
+    public Object extract( Status status ) {
+      return (long) status.getUser().getFriendsCount();
+    }
+  },
+  AUTHOR_VERIFIED( ValueMetaInterface.TYPE_BOOLEAN ) {
+    @Override
+    public Object extract( Status status ) {
+      return status.getUser().isVerified();
+    }
+  };
+
+  private final int type;
+
+  TwitterField( int type ) {
+    this.type = type;
+  }
+
+  /**
+   * @return the value of the output field for a tweet, as the Java class of its Kettle type.
+   */
+  public abstract Object extract( Status status );
+
+  public int getType() {
+    return type;
+  }
+
+  /**
+   * @return the value meta of an output field holding this attribute.
+   */
+  public ValueMetaInterface createValueMeta( String name ) {
+    switch ( type ) {
+      case ValueMetaInterface.TYPE_DATE:
+        return new ValueMetaDate( name );
+      case ValueMetaInterface.TYPE_INTEGER:
+        return new ValueMetaInteger( name );
+      case ValueMetaInterface.TYPE_NUMBER:
+        return new ValueMetaNumber( name );
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        return new ValueMetaBoolean( name );
+      default:
+        return new ValueMetaString( name );
+    }
+  }
+
+  // The API uses -1 when there is no such status.
+  private static Long idOrNull( long id ) {
+    return id > 0 ? id : null;
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.i18n.BaseMessages;
+import twitter4j.HttpParameter;
+import twitter4j.HttpRequest;
+import twitter4j.RequestMethod;
+import twitter4j.auth.Authorization;
+import twitter4j.auth.AuthorizationFactory;
+import twitter4j.conf.ConfigurationBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Long-lived connection to the filter stream, pushing the matching tweets into a queue.
+ * The connection is made again when it drops, backing off as the API asks clients to: linearly for network
+ * errors, exponentially for HTTP errors, and from a minute on for rate limit errors.
+ */
+public class TwitterFilterStream implements Runnable {
+  private static Class<?> PKG = TwitterSearchMeta.class; // for i18n purposes, needed by Translator2!!   $NON-NLS-1$
+
+  public static final String DEFAULT_BASE_URL = "https://stream.twitter.com/1.1/";
+
+  private static final long NETWORK_BACKOFF_STEP = 250;
+  private static final long NETWORK_BACKOFF_MAX = TimeUnit.SECONDS.toMillis( 16 );
+  private static final long HTTP_BACKOFF_MIN = TimeUnit.SECONDS.toMillis( 5 );
+  private static final long HTTP_BACKOFF_MAX = TimeUnit.SECONDS.toMillis( 320 );
+  private static final long RATE_LIMIT_BACKOFF_MIN = TimeUnit.MINUTES.toMillis( 1 );
+  private static final long RATE_LIMIT_BACKOFF_MAX = TimeUnit.MINUTES.toMillis( 16 );
+
+  private final String filterUrl;
+  private final HttpParameter[] parameters;
+  private final Authorization authorization;
+  private final TwitterClientRegistry.Settings settings;
+  private final TwitterField[] fields;
+  private final boolean entities;
+  private final TwitterStreamQueue queue;
+  private final LogChannelInterface log;
+
+  private volatile boolean closed;
+  private volatile String failure;
+  private volatile HttpURLConnection connection;
+  private Thread thread;
+
+  /**
+   * @param baseUrl the base URL of the streaming API, ending with a slash.
+   * @param settings how the connections are made. The API sends a keep-alive every 30 seconds, so a longer read
+   * timeout tells a stalled connection.
+   * @param track the comma separated phrases to track, or null.
+   * @param follow the comma separated IDs of the users to follow, or null.
+   * @param locations the comma separated longitude and latitude pairs of the bounding boxes, or null.
+   * @param entities whether the hashtags, mentions and URLs of the tweets are read too.
+   */
+  public TwitterFilterStream( String baseUrl, TwitterClientRegistry.Settings settings, TwitterCredential credential,
+    String track, String follow, String locations, TwitterField[] fields, boolean entities, TwitterStreamQueue queue,
+    LogChannelInterface log ) {
+    this.filterUrl = baseUrl + "statuses/filter.json";
+    this.settings = settings;
+    List<HttpParameter> parameters = new ArrayList<>();
+    if ( track != null ) {
+      parameters.add( new HttpParameter( "track", track ) );
+    }
+    if ( follow != null ) {
+      parameters.add( new HttpParameter( "follow", follow ) );
+    }
+    if ( locations != null ) {
+      parameters.add( new HttpParameter( "locations", locations ) );
+    }
+    this.parameters = parameters.toArray( new HttpParameter[0] );
+    this.authorization = AuthorizationFactory.getInstance( new ConfigurationBuilder()
+      .setOAuthConsumerKey( credential.getConsumerKeyField() )
+      .setOAuthConsumerSecret( credential.getConsumerSecretField() )
+      .setOAuthAccessToken( credential.getAccessTokenKeyField() )
+      .setOAuthAccessTokenSecret( credential.getAccessTokenSecretField() )
+      .build() );
+    this.fields = fields;
+    this.entities = entities;
+    this.queue = queue;
+    this.log = log;
+  }
+
+  public synchronized void start( String name ) {
+    thread = new Thread( this, name + ".stream" );
+    thread.setDaemon( true );
+    thread.start();
+  }
+
+  /**
+   * Disconnect and stop reconnecting.
+   */
+  public synchronized void close() {
+    closed = true;
+    HttpURLConnection current = connection;
+    if ( current != null ) {
+      current.disconnect();
+    }
+    if ( thread != null ) {
+      thread.interrupt();
+    }
+    queue.close();
+  }
+
+  /**
+   * @return why the stream gave up, or null while it is running.
+   */
+  public String getFailure() {
+    return failure;
+  }
+
+  @Override
+  public void run() {
+    long delay = 0;
+    while ( !closed ) {
+      String reason;
+      try {
+        int statusCode = connect();
+        if ( statusCode == HttpURLConnection.HTTP_OK ) {
+          // Connected, the next error starts a new backoff.
+          delay = 0;
+          read();
+          reason = BaseMessages.getString( PKG, "TwitterSearch.Stream.Disconnected" );
+          delay = networkBackoff( delay );
+        } else if ( isFatal( statusCode ) ) {
+          failure = BaseMessages.getString( PKG, "TwitterSearch.Stream.Refused", statusCode );
+          return;
+        } else if ( statusCode == 420 || statusCode == 429 ) {
+          reason = String.valueOf( statusCode );
+          delay = Math.min( Math.max( delay * 2, RATE_LIMIT_BACKOFF_MIN ), RATE_LIMIT_BACKOFF_MAX );
+        } else {
+          reason = String.valueOf( statusCode );
+          delay = Math.min( Math.max( delay * 2, HTTP_BACKOFF_MIN ), HTTP_BACKOFF_MAX );
+        }
+      } catch ( IOException e ) {
+        reason = e.getMessage();
+        delay = networkBackoff( delay );
+      } catch ( InterruptedException e ) {
+        return;
+      } finally {
+        connection = null;
+      }
+      if ( closed ) {
+        return;
+      }
+      if ( log.isBasic() ) {
+        log.logBasic( BaseMessages.getString( PKG, "TwitterSearch.Stream.Reconnecting", reason, delay ) );
+      }
+      try {
+        Thread.sleep( delay );
+      } catch ( InterruptedException e ) {
+        return;
+      }
+    }
+  }
+
+  private static long networkBackoff( long delay ) {
+    return Math.min( delay + NETWORK_BACKOFF_STEP, NETWORK_BACKOFF_MAX );
+  }
+
+  /**
+   * Errors that reconnecting won't fix, such as invalid credentials or filters.
+   */
+  private static boolean isFatal( int statusCode ) {
+    switch ( statusCode ) {
+      case HttpURLConnection.HTTP_UNAUTHORIZED:
+      case HttpURLConnection.HTTP_FORBIDDEN:
+      case HttpURLConnection.HTTP_NOT_FOUND:
+      case HttpURLConnection.HTTP_NOT_ACCEPTABLE:
+      case HttpURLConnection.HTTP_ENTITY_TOO_LARGE:
+      case 416:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Open the connection, leaving it in {@link #connection} if the API accepted it.
+   *
+   * @return the HTTP status code of the response.
+   */
+  private int connect() throws IOException {
+    HttpRequest request = new HttpRequest( RequestMethod.POST, filterUrl, parameters, authorization, null );
+    HttpURLConnection current = (HttpURLConnection) new URL( filterUrl ).openConnection();
+    connection = current;
+    settings.apply( current );
+    current.setRequestMethod( "POST" );
+    current.setDoOutput( true );
+    current.setRequestProperty( "Authorization", authorization.getAuthorizationHeader( request ) );
+    current.setRequestProperty( "Content-Type", "application/x-www-form-urlencoded" );
+    try ( OutputStream out = current.getOutputStream() ) {
+      out.write( HttpParameter.encodeParameters( parameters ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+    int statusCode = current.getResponseCode();
+    if ( statusCode != HttpURLConnection.HTTP_OK ) {
+      current.disconnect();
+    }
+    return statusCode;
+  }
+
+  /**
+   * Queue the tweets of the connection until it drops.
+   */
+  private void read() throws IOException, InterruptedException {
+    TwitterStatusParser statuses = new TwitterStatusParser( fields, entities );
+    InputStream body = connection.getInputStream();
+    if ( "gzip".equalsIgnoreCase( connection.getContentEncoding() ) ) {
+      body = new GZIPInputStream( body );
+    }
+    try ( InputStream in = body;
+          JsonParser json = TwitterStatusParser.JSON.createParser( in ) ) {
+      JsonToken token;
+      while ( !closed && ( token = json.nextToken() ) != null ) {
+        if ( token == JsonToken.START_OBJECT ) {
+          TwitterSearchPage.Tweet tweet = statuses.parse( json );
+          if ( tweet != null ) {
+            queue.put( tweet );
+          }
+        } else {
+          json.skipChildren();
+        }
+      }
+    }
+  }
+}
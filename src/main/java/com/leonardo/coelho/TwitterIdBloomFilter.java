@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+/**
+ * Approximate set of status IDs for very large runs, kept in a fixed size bit array.
+ * It takes about 10 bits per expected ID for a 1% false positive rate, whatever the ID count.
+ * A false positive makes a new tweet look like a duplicate, so it isn't emitted.
+ */
+public class TwitterIdBloomFilter implements TwitterIdSet {
+  private final long[] bits;
+  private final long size;
+  private final int hashes;
+
+  /**
+   * @param expected the number of IDs the filter is sized for.
+   * @param falsePositiveRate the rate of false positives once the expected number of IDs is reached.
+   */
+  public TwitterIdBloomFilter( long expected, double falsePositiveRate ) {
+    expected = Math.max( expected, 1 );
+    long wanted = (long) Math.ceil( -expected * Math.log( falsePositiveRate ) / ( Math.log( 2 ) * Math.log( 2 ) ) );
+    bits = new long[ (int) Math.min( ( wanted + 63 ) / 64, Integer.MAX_VALUE - 8 ) ];
+    size = bits.length * 64L;
+    hashes = Math.max( 1, (int) Math.round( (double) size / expected * Math.log( 2 ) ) );
+  }
+
+  @Override
+  public boolean add( long id ) {
+    long hash1 = TwitterIdHashSet.mix( id );
+    long hash2 = TwitterIdHashSet.mix( hash1 ) | 1;
+    boolean added = false;
+    for ( int i = 0; i < hashes; i++ ) {
+      long bit = Math.floorMod( hash1 + i * hash2, size );
+      int word = (int) ( bit >>> 6 );
+      long mask = 1L << bit;
+      if ( ( bits[ word ] & mask ) == 0 ) {
+        bits[ word ] |= mask;
+        added = true;
+      }
+    }
+    return added;
+  }
+}
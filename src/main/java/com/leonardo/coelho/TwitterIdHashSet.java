@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+/**
+ * Exact set of status IDs, kept in an open addressing table of primitive longs.
+ * It takes between 11 and 22 bytes per ID, without any object per entry. Once the table is as large as an array
+ * can be, the IDs that don't fit in it are kept in a Bloom filter.
+ */
+public class TwitterIdHashSet implements TwitterIdSet {
+  // Status IDs are positive, so 0 marks a free slot.
+  private static final long FREE = 0;
+  private static final double MAX_LOAD = 0.75;
+  // Twice as many slots wouldn't fit in an array.
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final int maxCapacity;
+  private long[] table;
+  private int size;
+  private boolean hasFree;
+  // IDs added once the table was full, if any.
+  private TwitterIdBloomFilter overflow;
+
+  public TwitterIdHashSet( int expected ) {
+    this( expected, MAX_CAPACITY );
+  }
+
+  /**
+   * @param maxCapacity the number of slots past which the table doesn't grow.
+   */
+  TwitterIdHashSet( int expected, int maxCapacity ) {
+    this.maxCapacity = maxCapacity;
+    table = new long[ capacityFor( Math.max( expected, 16 ), maxCapacity ) ];
+  }
+
+  @Override
+  public boolean add( long id ) {
+    if ( id == FREE ) {
+      boolean added = !hasFree;
+      hasFree = true;
+      return added;
+    }
+    if ( size + 1 > table.length * MAX_LOAD ) {
+      if ( table.length >= maxCapacity ) {
+        return addOverflow( id );
+      }
+      grow();
+    }
+    if ( insert( table, id ) ) {
+      size++;
+      return true;
+    }
+    return false;
+  }
+
+  private boolean addOverflow( long id ) {
+    if ( contains( table, id ) ) {
+      return false;
+    }
+    if ( overflow == null ) {
+      // Sized for as many IDs again as the table holds, a few new tweets may be taken for duplicates from now on.
+      overflow = new TwitterIdBloomFilter( size, FALSE_POSITIVE_RATE );
+    }
+    return overflow.add( id );
+  }
+
+  private static boolean contains( long[] table, long id ) {
+    int mask = table.length - 1;
+    int slot = (int) mix( id ) & mask;
+    while ( table[ slot ] != FREE ) {
+      if ( table[ slot ] == id ) {
+        return true;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+    return false;
+  }
+
+  private static boolean insert( long[] table, long id ) {
+    int mask = table.length - 1;
+    int slot = (int) mix( id ) & mask;
+    while ( table[ slot ] != FREE ) {
+      if ( table[ slot ] == id ) {
+        return false;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+    table[ slot ] = id;
+    return true;
+  }
+
+  private void grow() {
+    long[] grown = new long[ table.length * 2 ];
+    for ( long id : table ) {
+      if ( id != FREE ) {
+        insert( grown, id );
+      }
+    }
+    table = grown;
+  }
+
+  private static int capacityFor( int expected, int maxCapacity ) {
+    long capacity = Long.highestOneBit( (long) ( expected / MAX_LOAD ) ) << 1;
+    return (int) Math.min( capacity, maxCapacity );
+  }
+
+  // Status IDs are snowflakes with clustered low bits, spread them before masking.
+  static long mix( long id ) {
+    id ^= id >>> 33;
+    id *= 0xff51afd7ed558ccdL;
+    id ^= id >>> 33;
+    id *= 0xc4ceb9fe1a85ec53L;
+    id ^= id >>> 33;
+    return id;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+/**
+ * Set of status IDs, used to emit each tweet only once across queries.
+ */
+public interface TwitterIdSet {
+
+  enum Dedup {
+    // Emit every copy of a tweet.
+    NONE,
+    // Remember every ID exactly.
+    EXACT,
+    // Remember IDs in a Bloom filter, a few new tweets may be taken for duplicates.
+    APPROXIMATE
+  }
+
+  // False positive rate of the Bloom filter once it holds the expected number of IDs.
+  double FALSE_POSITIVE_RATE = 0.01;
+
+  /**
+   * @return the set for the dedup mode, or null if tweets aren't deduplicated.
+   */
+  static TwitterIdSet create( Dedup dedup, int expected ) {
+    switch ( dedup ) {
+      case EXACT:
+        return new TwitterIdHashSet( expected );
+      case APPROXIMATE:
+        return new TwitterIdBloomFilter( expected, FALSE_POSITIVE_RATE );
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return true if the ID wasn't in the set yet.
+   */
+  boolean add( long id );
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.Query;
+import twitter4j.QueryResult;
+import twitter4j.TwitterException;
+
+/**
+ * Searches through twitter4j, which maps the whole response to objects.
+ */
+public class TwitterMappedSearchApi implements TwitterSearchApi {
+  private final TwitterField[] fields;
+  private final boolean entities;
+
+  /**
+   * @param entities whether the hashtags, mentions and URLs of the tweets are kept too.
+   */
+  public TwitterMappedSearchApi( TwitterField[] fields, boolean entities ) {
+    this.fields = fields;
+    this.entities = entities;
+  }
+
+  @Override
+  public TwitterSearchPage search( TwitterCredentialPool.Lease lease, Query query ) throws TwitterException {
+    QueryResult result = lease.getTwitter().search( query );
+    lease.getLimiter().update( result.getRateLimitStatus() );
+    return TwitterSearchPage.of( result, fields, entities );
+  }
+}
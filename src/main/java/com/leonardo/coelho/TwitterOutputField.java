@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+/**
+ * An additional output field, holding one attribute of the field catalog.
+ */
+public class TwitterOutputField implements Cloneable {
+  private String nameField;
+  private TwitterField attributeField;
+
+  public TwitterOutputField() {
+  }
+
+  public TwitterOutputField( String nameField, TwitterField attributeField ) {
+    this.nameField = nameField;
+    this.attributeField = attributeField;
+  }
+
+  @Override
+  public TwitterOutputField clone() {
+    return new TwitterOutputField( nameField, attributeField );
+  }
+
+  public String getNameField() {
+    return nameField;
+  }
+
+  public void setNameField( String nameField ) {
+    this.nameField = nameField;
+  }
+
+  public TwitterField getAttributeField() {
+    return attributeField;
+  }
+
+  public void setAttributeField( String attributeField ) {
+    this.attributeField = TwitterField.valueOf( attributeField );
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers where the paging of each query in progress stopped, so that a restarted run resumes it from the
+ * following page instead of the first one. Cursors are appended to a local file, one "key cursor" line each, and
+ * synced to disk before returning; a query that completes is removed with a line holding only its key. A line torn
+ * by a crash is dropped on load, and the file is compacted once it grows too large, or deleted once it is empty.
+ * Several processes may share the file: appends, compactions and the deletion hold the lock of a sibling ".lock"
+ * file, and read the file again first, so that the queries the other processes have in progress are kept.
+ */
+public class TwitterPaginationJournal {
+  private static final ConcurrentMap<Path, TwitterPaginationJournal> journals = new ConcurrentHashMap<>();
+
+  // Compact the file once it holds this many lines more than cursors.
+  private static final int COMPACT_THRESHOLD = 1000;
+
+  /**
+   * Where the paging of a query stopped.
+   */
+  public static class Cursor {
+    private final long sinceId;
+    private final long maxId;
+    private final int page;
+    private final long emitted;
+    private final long highestId;
+
+    /**
+     * @param sinceId the ID after which the query searches.
+     * @param maxId the highest ID of the following page, or 0 if the query hasn't started yet.
+     * @param page the number of pages done, or -1 once every page was done.
+     * @param emitted the number of tweets emitted so far.
+     * @param highestId the highest status ID seen so far.
+     */
+    public Cursor( long sinceId, long maxId, int page, long emitted, long highestId ) {
+      this.sinceId = sinceId;
+      this.maxId = maxId;
+      this.page = page;
+      this.emitted = emitted;
+      this.highestId = highestId;
+    }
+
+    public long getSinceId() {
+      return sinceId;
+    }
+
+    public long getMaxId() {
+      return maxId;
+    }
+
+    public int getPage() {
+      return page;
+    }
+
+    public long getEmitted() {
+      return emitted;
+    }
+
+    public long getHighestId() {
+      return highestId;
+    }
+
+    /**
+     * @return true if every page of the query was done.
+     */
+    public boolean isDone() {
+      return page < 0;
+    }
+
+    private static Cursor parse( String[] values ) {
+      return new Cursor( Long.parseLong( values[ 1 ] ), Long.parseLong( values[ 2 ] ), Integer.parseInt( values[ 3 ] ),
+        Long.parseLong( values[ 4 ] ), Long.parseLong( values[ 5 ] ) );
+    }
+
+    @Override
+    public String toString() {
+      return sinceId + " " + maxId + " " + page + " " + emitted + " " + highestId;
+    }
+  }
+
+  private final Path file;
+  private final Path lockFile;
+  private Map<String, Cursor> cursors;
+  // Lines in the file.
+  private int lines;
+
+  private TwitterPaginationJournal( Path file ) {
+    this.file = file;
+    this.lockFile = file.resolveSibling( file.getFileName() + ".lock" );
+  }
+
+  /**
+   * @return the journal kept in the given file, shared by every step copy of the JVM.
+   */
+  public static TwitterPaginationJournal forFile( String filename ) {
+    Path path = Paths.get( filename ).toAbsolutePath().normalize();
+    return journals.computeIfAbsent( path, TwitterPaginationJournal::new );
+  }
+
+  /**
+   * @return the cursor recorded for the key, or null if the query isn't in progress.
+   */
+  public synchronized Cursor get( String key ) throws IOException {
+    load();
+    return cursors.get( key );
+  }
+
+  /**
+   * Record where the paging of the query stopped.
+   */
+  public synchronized void put( String key, Cursor cursor ) throws IOException {
+    load();
+    cursors.put( key, cursor );
+    append( key + " " + cursor + "\n" );
+  }
+
+  /**
+   * Forget the query, once its results no longer need to be resumed.
+   */
+  public synchronized void remove( String key ) throws IOException {
+    load();
+    if ( cursors.remove( key ) != null ) {
+      append( key + "\n" );
+    }
+  }
+
+  /**
+   * Delete the file if no query is left in progress, so that the next run starts afresh.
+   */
+  public synchronized void close() throws IOException {
+    if ( cursors == null || !cursors.isEmpty() ) {
+      return;
+    }
+    try ( FileChannel lock = lock() ) {
+      // Other processes may still have queries in progress in the file.
+      read();
+      if ( cursors.isEmpty() ) {
+        Files.deleteIfExists( file );
+      }
+    }
+    cursors = null;
+  }
+
+  private void append( String line ) throws IOException {
+    try ( FileChannel lock = lock() ) {
+      Files.write( file, line.getBytes( StandardCharsets.UTF_8 ),
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC );
+      // Every page appends a line, so a long run would otherwise grow the file until the next load.
+      if ( ++lines > cursors.size() + COMPACT_THRESHOLD ) {
+        compact();
+      }
+    }
+  }
+
+  private void load() throws IOException {
+    if ( cursors != null ) {
+      return;
+    }
+    if ( read() || lines > cursors.size() + COMPACT_THRESHOLD ) {
+      try ( FileChannel lock = lock() ) {
+        compact();
+      }
+    }
+  }
+
+  /**
+   * Read the cursors of the file, which holds every change made to them by this process and the others.
+   *
+   * @return true if the last line of the file is torn.
+   */
+  private boolean read() throws IOException {
+    cursors = new HashMap<>();
+    lines = 0;
+    if ( !Files.exists( file ) ) {
+      return false;
+    }
+    String content = new String( Files.readAllBytes( file ), StandardCharsets.UTF_8 );
+    String[] fileLines = content.split( "\n" );
+    // A line torn by a crash would be glued to the next cursor, so rewrite the file without it.
+    boolean torn = !content.isEmpty() && !content.endsWith( "\n" );
+    lines = fileLines.length;
+    for ( int i = 0; i < ( torn ? fileLines.length - 1 : fileLines.length ); i++ ) {
+      String[] values = fileLines[ i ].split( " " );
+      if ( values.length == 1 ) {
+        cursors.remove( values[ 0 ] );
+        continue;
+      }
+      try {
+        cursors.put( values[ 0 ], Cursor.parse( values ) );
+      } catch ( ArrayIndexOutOfBoundsException | NumberFormatException e ) {
+        // Not a line we wrote.
+      }
+    }
+    return torn;
+  }
+
+  /**
+   * Rewrite the file with one line per cursor. Only call it holding the lock.
+   */
+  private void compact() throws IOException {
+    // Other processes may have recorded cursors since the file was read.
+    read();
+    StringBuilder content = new StringBuilder();
+    for ( Map.Entry<String, Cursor> cursor : cursors.entrySet() ) {
+      content.append( cursor.getKey() ).append( ' ' ).append( cursor.getValue() ).append( '\n' );
+    }
+    Path tmp = file.resolveSibling( file.getFileName() + ".tmp" );
+    try ( FileChannel channel = FileChannel.open( tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING ) ) {
+      ByteBuffer buffer = ByteBuffer.wrap( content.toString().getBytes( StandardCharsets.UTF_8 ) );
+      while ( buffer.hasRemaining() ) {
+        channel.write( buffer );
+      }
+      // Otherwise a crash right after the move may leave an empty file in place of the cursors.
+      channel.force( true );
+    }
+    Files.move( tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    lines = cursors.size();
+  }
+
+  /**
+   * @return the channel holding the lock of the file, closing it releases the lock.
+   */
+  private FileChannel lock() throws IOException {
+    FileChannel channel = FileChannel.open( lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+    try {
+      channel.lock();
+    } catch ( IOException | RuntimeException e ) {
+      channel.close();
+      throw e;
+    }
+    return channel;
+  }
+}
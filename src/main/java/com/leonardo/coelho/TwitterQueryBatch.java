@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.HttpParameter;
+import twitter4j.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Input rows whose queries are searched together, as a single query joining them with OR.
+ * Only queries made of a single term are batched, so that each tweet can be matched back to the rows whose term
+ * it contains.
+ */
+public class TwitterQueryBatch {
+  // A word, hashtag, mention or cashtag, or a quoted phrase.
+  private static final Pattern TERM = Pattern.compile( "[#@$]?[\\p{L}\\p{N}_]+|\"[^\"]+\"" );
+  private static final int SEPARATOR_LENGTH = HttpParameter.encode( " OR " ).length();
+
+  private final int maxLength;
+  private final List<Object[]> rows = new ArrayList<>();
+  private final List<Query> queries = new ArrayList<>();
+  private final List<String> terms = new ArrayList<>();
+  private final List<Long> emitted = new ArrayList<>();
+  private final StringBuilder combined = new StringBuilder();
+  private int length;
+
+  /**
+   * @param maxLength the longest combined query, URL encoded, the API accepts.
+   * @param operators the operators appended to the combined query.
+   */
+  public TwitterQueryBatch( int maxLength, String operators ) {
+    this.maxLength = maxLength - HttpParameter.encode( operators ).length();
+  }
+
+  /**
+   * @return true if the query is a single term, that can be searched with others.
+   */
+  public static boolean isCoalescable( String query ) {
+    return query != null && TERM.matcher( query.trim() ).matches();
+  }
+
+  /**
+   * @return true if the query fits in the batch.
+   */
+  public boolean fits( String term ) {
+    int added = HttpParameter.encode( term.trim() ).length();
+    return terms.isEmpty() || length + SEPARATOR_LENGTH + added <= maxLength;
+  }
+
+  /**
+   * @param term the single term query of the row.
+   * @param query the query of the row alone, with its own since ID if any.
+   */
+  public void add( Object[] row, String term, Query query ) {
+    term = term.trim();
+    length += ( terms.isEmpty() ? 0 : SEPARATOR_LENGTH ) + HttpParameter.encode( term ).length();
+    rows.add( row );
+    queries.add( query );
+    combined.append( combined.length() == 0 ? "" : " OR " ).append( term );
+    // Quotes only delimit the phrase.
+    terms.add( term.replace( "\"", "" ).toLowerCase( Locale.ROOT ) );
+    emitted.add( 0L );
+  }
+
+  public int size() {
+    return rows.size();
+  }
+
+  public boolean isEmpty() {
+    return rows.isEmpty();
+  }
+
+  /**
+   * @return the terms of every row joined with OR, without the operators.
+   */
+  public String getCombinedTerms() {
+    return combined.toString();
+  }
+
+  /**
+   * @return the lowest since ID of the rows, or 0 if a row has none.
+   */
+  public long getSinceId() {
+    long sinceId = Long.MAX_VALUE;
+    for ( Query query : queries ) {
+      // Tweets older than the since ID of a row are skipped for it.
+      sinceId = Math.min( sinceId, Math.max( query.getSinceId(), 0 ) );
+    }
+    return sinceId;
+  }
+
+  public Object[] getRow( int i ) {
+    return rows.get( i );
+  }
+
+  public Query getQuery( int i ) {
+    return queries.get( i );
+  }
+
+  public long getEmitted( int i ) {
+    return emitted.get( i );
+  }
+
+  public void addEmitted( int i ) {
+    emitted.set( i, emitted.get( i ) + 1 );
+  }
+
+  /**
+   * @return true if the tweet is newer than the since ID of the row, if any.
+   */
+  public boolean admits( int i, long id ) {
+    return id > queries.get( i ).getSinceId();
+  }
+
+  /**
+   * @param text the text of the tweet, in lower case.
+   * @return true if the tweet was found by the query of the row.
+   */
+  public boolean matches( int i, long id, String text ) {
+    return admits( i, id ) && contains( i, text );
+  }
+
+  /**
+   * @param text the text of the tweet, in lower case.
+   * @return true if the text holds the term of the row.
+   */
+  public boolean contains( int i, String text ) {
+    String term = terms.get( i );
+    for ( int at = text.indexOf( term ); at >= 0; at = text.indexOf( term, at + 1 ) ) {
+      // The term must be a whole word, "cat" doesn't find "category".
+      int end = at + term.length();
+      if ( ( at == 0 || !isWordChar( text.charAt( at - 1 ) ) || !isWordChar( term.charAt( 0 ) ) )
+        && ( end == text.length() || !isWordChar( text.charAt( end ) ) ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isWordChar( char c ) {
+    return Character.isLetterOrDigit( c ) || c == '_';
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+/**
+ * Splits the date range of a query into windows of status IDs, searched in parallel, and follows their progress.
+ * Status IDs start with their creation time, so a range of dates is a range of IDs. The windows don't overlap:
+ * each ends on the ID before the first one of the next window, so no tweet is found at two window edges.
+ */
+public class TwitterQueryWindows {
+  // Start of the status ID timestamps, in milliseconds since the epoch.
+  private static final long TWEPOCH = 1288834974657L;
+  // Bits of a status ID below its timestamp.
+  private static final int TIMESTAMP_SHIFT = 22;
+
+  private final long[] sinceIds;
+  private final long[] maxIds;
+  private int pending;
+  private long emitted;
+  private long highestId;
+
+  private TwitterQueryWindows( long[] sinceIds, long[] maxIds ) {
+    this.sinceIds = sinceIds;
+    this.maxIds = maxIds;
+    this.pending = sinceIds.length;
+  }
+
+  /**
+   * @return the lowest status ID of a tweet created at the given time.
+   */
+  public static long idOf( long time ) {
+    return ( time - TWEPOCH ) << TIMESTAMP_SHIFT;
+  }
+
+  /**
+   * @return the time at which the tweet with the given status ID was created.
+   */
+  public static long timeOf( long id ) {
+    return ( id >> TIMESTAMP_SHIFT ) + TWEPOCH;
+  }
+
+  /**
+   * Split the tweets created from a time until another in windows of equal duration, newest first.
+   *
+   * @param sinceId the ID after which the range starts.
+   * @param until the time at which the range ends, the newest window being left open.
+   * @param count the number of windows.
+   * @return the windows, or null if the range is too short to be split.
+   */
+  public static TwitterQueryWindows split( long sinceId, long until, int count ) {
+    long since = timeOf( sinceId );
+    long duration = ( until - since ) / count;
+    if ( count <= 1 || duration <= 0 ) {
+      return null;
+    }
+    long[] sinceIds = new long[ count ];
+    long[] maxIds = new long[ count ];
+    for ( int i = 0; i < count; i++ ) {
+      // Window i, counted from the oldest, holds the IDs from its start until the ID before the next start.
+      int window = count - 1 - i;
+      sinceIds[ window ] = i == 0 ? sinceId : idOf( since + i * duration ) - 1;
+      maxIds[ window ] = i == count - 1 ? 0 : idOf( since + ( i + 1 ) * duration ) - 1;
+    }
+    return new TwitterQueryWindows( sinceIds, maxIds );
+  }
+
+  public int size() {
+    return sinceIds.length;
+  }
+
+  /**
+   * @return the ID after which the window starts.
+   */
+  public long getSinceId( int window ) {
+    return sinceIds[ window ];
+  }
+
+  /**
+   * @return the highest ID of the window, or 0 if the window is open.
+   */
+  public long getMaxId( int window ) {
+    return maxIds[ window ];
+  }
+
+  /**
+   * @return the number of tweets emitted by every window so far.
+   */
+  public long getEmitted() {
+    return emitted;
+  }
+
+  public void setEmitted( long emitted ) {
+    this.emitted = emitted;
+  }
+
+  /**
+   * Record the end of one window.
+   *
+   * @param highestId the highest status ID seen by the window.
+   * @return true if it was the last window still searched.
+   */
+  public boolean complete( long highestId ) {
+    this.highestId = Math.max( this.highestId, highestId );
+    return --pending == 0;
+  }
+
+  /**
+   * @return the highest status ID seen by the windows completed so far.
+   */
+  public long getHighestId() {
+    return highestId;
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the rate limit budget of each credential between the processes using it, through a lease file per
+ * credential in a shared directory. Each process takes calls from the file in small leases, under a file lock,
+ * and gives back what the API reports about the budget. Leases are sized so that the calls left are split
+ * evenly between the processes seen recently.
+ */
+public class TwitterQuotaCoordinator {
+  private static final ConcurrentMap<Path, TwitterQuotaCoordinator> coordinators = new ConcurrentHashMap<>();
+
+  // Identifies this process in the lease files.
+  private static final String MEMBER = ManagementFactory.getRuntimeMXBean().getName().replace( ' ', '_' )
+    + "-" + UUID.randomUUID().toString().substring( 0, 8 );
+  // A process that took no lease for this long no longer counts for the split.
+  private static final long MEMBER_TIMEOUT = TimeUnit.MINUTES.toMillis( 1 );
+  // Largest lease, so that calls left unused by a process that stops are few.
+  private static final int MAX_LEASE = 10;
+
+  private static final int UNKNOWN = -1;
+
+  /**
+   * Calls granted by a lease.
+   */
+  public static class Lease {
+    private final int calls;
+    private final long resetAt;
+
+    Lease( int calls, long resetAt ) {
+      this.calls = calls;
+      this.resetAt = resetAt;
+    }
+
+    /**
+     * @return the calls granted, or 0 if the budget is exhausted.
+     */
+    public int getCalls() {
+      return calls;
+    }
+
+    /**
+     * @return the time at which the budget is refilled, or 0 if it is unknown.
+     */
+    public long getResetAt() {
+      return resetAt;
+    }
+  }
+
+  /**
+   * The content of a lease file.
+   */
+  private static class Budget {
+    int limit = UNKNOWN;
+    int remaining = UNKNOWN;
+    long resetAt;
+    final Map<String, Long> members = new HashMap<>();
+  }
+
+  private final Path directory;
+
+  private TwitterQuotaCoordinator( Path directory ) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return the coordinator keeping its lease files in the given directory, shared by every step copy of the JVM.
+   */
+  public static TwitterQuotaCoordinator forDirectory( String directory ) {
+    Path path = Paths.get( directory ).toAbsolutePath().normalize();
+    return coordinators.computeIfAbsent( path, TwitterQuotaCoordinator::new );
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Take calls from the shared budget of the credential.
+   *
+   * @throws UncheckedIOException if the lease file can't be used.
+   */
+  public synchronized Lease take( String credential ) {
+    long now = System.currentTimeMillis();
+    return change( credential, budget -> {
+      budget.members.put( MEMBER, now );
+      if ( budget.remaining == UNKNOWN ) {
+        // Nobody knows the budget yet, the first call will tell.
+        return new Lease( 1, budget.resetAt );
+      }
+      int calls = Math.min( budget.remaining, Math.max( 1, Math.min( MAX_LEASE,
+        budget.remaining / budget.members.size() ) ) );
+      budget.remaining -= calls;
+      return new Lease( calls, budget.resetAt );
+    } );
+  }
+
+  /**
+   * Record the budget reported by the API.
+   */
+  public synchronized void update( String credential, int limit, int remaining, long resetAt ) {
+    change( credential, budget -> {
+      budget.limit = limit;
+      if ( resetAt > budget.resetAt ) {
+        budget.resetAt = resetAt;
+        budget.remaining = remaining;
+      } else {
+        // Responses of calls made in parallel arrive out of order, keep the lowest budget of the window.
+        budget.remaining = budget.remaining == UNKNOWN ? remaining : Math.min( budget.remaining, remaining );
+      }
+      return null;
+    } );
+  }
+
+  /**
+   * Empty the budget after the API refused a call for exceeding the rate limit.
+   */
+  public synchronized void exhausted( String credential, long resetAt ) {
+    change( credential, budget -> {
+      budget.resetAt = Math.max( budget.resetAt, resetAt );
+      budget.remaining = 0;
+      return null;
+    } );
+  }
+
+  private interface Change<T> {
+    T apply( Budget budget );
+  }
+
+  /**
+   * Apply a change to the budget of the credential, holding the lock of its lease file.
+   */
+  private <T> T change( String credential, Change<T> change ) {
+    Path file = directory.resolve( Hashing.sha1().hashString( credential, StandardCharsets.UTF_8 ) + ".lease" );
+    try {
+      Files.createDirectories( directory );
+      try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE ); FileLock lock = channel.lock() ) {
+        ByteBuffer buffer = ByteBuffer.allocate( (int) channel.size() );
+        while ( buffer.hasRemaining() && channel.read( buffer ) >= 0 ) {
+          // Read the whole file.
+        }
+        Budget budget = parse( new String( buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8 ) );
+        long now = System.currentTimeMillis();
+        if ( budget.resetAt > 0 && now >= budget.resetAt ) {
+          // New window, the full budget is back.
+          budget.remaining = budget.limit;
+          budget.resetAt = 0;
+        }
+        budget.members.values().removeIf( seen -> seen < now - MEMBER_TIMEOUT );
+        T result = change.apply( budget );
+        byte[] content = format( budget ).getBytes( StandardCharsets.UTF_8 );
+        channel.truncate( 0 );
+        channel.write( ByteBuffer.wrap( content ), 0 );
+        channel.force( false );
+        return result;
+      }
+    } catch ( IOException e ) {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private static Budget parse( String content ) {
+    Budget budget = new Budget();
+    for ( String line : content.split( "\n" ) ) {
+      String[] words = line.split( " " );
+      try {
+        switch ( words[ 0 ] ) {
+          case "limit":
+            budget.limit = Integer.parseInt( words[ 1 ] );
+            break;
+          case "remaining":
+            budget.remaining = Integer.parseInt( words[ 1 ] );
+            break;
+          case "reset":
+            budget.resetAt = Long.parseLong( words[ 1 ] );
+            break;
+          case "member":
+            budget.members.put( words[ 1 ], Long.parseLong( words[ 2 ] ) );
+            break;
+          default:
+            break;
+        }
+      } catch ( ArrayIndexOutOfBoundsException | NumberFormatException e ) {
+        // A line we can't read is skipped, the next response of the API restores the budget.
+      }
+    }
+    return budget;
+  }
+
+  private static String format( Budget budget ) {
+    StringBuilder content = new StringBuilder()
+      .append( "limit " ).append( budget.limit ).append( '\n' )
+      .append( "remaining " ).append( budget.remaining ).append( '\n' )
+      .append( "reset " ).append( budget.resetAt ).append( '\n' );
+    for ( Map.Entry<String, Long> member : budget.members.entrySet() ) {
+      content.append( "member " ).append( member.getKey() ).append( ' ' ).append( member.getValue() ).append( '\n' );
+    }
+    return content.toString();
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.RateLimitStatus;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Token bucket holding the search budget of one credential.
+ * The bucket is refilled from the rate limit status the API returns with every response, and is
+ * shared by every step copy of the JVM using the same credential and quota directory. When a quota coordinator is
+ * set, calls are taken from the budget it shares with the other processes using the credential.
+ */
+public class TwitterRateLimiter {
+  private static final ConcurrentMap<String, TwitterRateLimiter> limiters = new ConcurrentHashMap<>();
+
+  // Window used when a rate limit error doesn't say when the budget comes back.
+  private static final long DEFAULT_WINDOW = TimeUnit.MINUTES.toMillis( 15 );
+  // Margin for the clock difference between us and the API.
+  private static final long CLOCK_MARGIN = TimeUnit.SECONDS.toMillis( 1 );
+  // Longest single wait, so that stopped steps are noticed quickly.
+  private static final long MAX_WAIT_SLICE = TimeUnit.SECONDS.toMillis( 1 );
+
+  private static final int UNKNOWN = -1;
+
+  private final String key;
+  private final TwitterQuotaCoordinator coordinator;
+  private int limit = UNKNOWN;
+  private int remaining = UNKNOWN;
+  private long resetAt;
+  // Calls taken from the shared budget and not made yet.
+  private int granted;
+
+  private TwitterRateLimiter( String key, TwitterQuotaCoordinator coordinator ) {
+    this.key = key;
+    this.coordinator = coordinator;
+  }
+
+  /**
+   * @param coordinator the coordinator sharing the budget with other processes, or null to keep it local.
+   * @return the limiter of the credential, shared by the step copies of the JVM using the same coordinator.
+   */
+  public static TwitterRateLimiter forCredential( String consumerKey, String accessToken,
+    TwitterQuotaCoordinator coordinator ) {
+    String key = consumerKey + ":" + accessToken;
+    // Steps sharing the budget through different directories, or not at all, can't take from the same bucket.
+    return limiters.computeIfAbsent( coordinator == null ? key : key + "@" + coordinator.getDirectory(),
+      k -> new TwitterRateLimiter( key, coordinator ) );
+  }
+
+  /**
+   * Take one call from the budget, waiting for the window to reset when it is exhausted.
+   *
+   * @param stopped tells whether the caller gave up waiting.
+   * @throws InterruptedException if the caller was stopped or interrupted while waiting.
+   */
+  public void acquire( BooleanSupplier stopped ) throws InterruptedException {
+    while ( !tryAcquire() ) {
+      if ( stopped.getAsBoolean() ) {
+        throw new InterruptedException();
+      }
+      synchronized ( this ) {
+        wait( Math.max( 1, Math.min( resetAt - System.currentTimeMillis(), MAX_WAIT_SLICE ) ) );
+      }
+    }
+  }
+
+  /**
+   * Take one call from the budget if it isn't exhausted, without waiting.
+   */
+  public boolean tryAcquire() {
+    synchronized ( this ) {
+      refill();
+      if ( coordinator == null ) {
+        if ( remaining == UNKNOWN ) {
+          return true;
+        }
+        if ( remaining > 0 ) {
+          remaining--;
+          return true;
+        }
+        return false;
+      }
+      if ( remaining == 0 ) {
+        return false;
+      }
+      if ( granted > 0 ) {
+        granted--;
+        return true;
+      }
+    }
+    // The lease file is locked, read and synced outside the monitor, so that slow storage doesn't hold the other
+    // step copies updating the budget meanwhile.
+    TwitterQuotaCoordinator.Lease lease = coordinator.take( key );
+    synchronized ( this ) {
+      if ( lease.getCalls() == 0 ) {
+        // The other processes took what is left, wait for the window to reset. While the reset time isn't known
+        // yet, ask again shortly.
+        remaining = 0;
+        resetAt = Math.max( lease.getResetAt(), System.currentTimeMillis() + CLOCK_MARGIN );
+        return false;
+      }
+      // Step copies short of calls at the same time each take a lease, the calls left over are kept for later.
+      granted += lease.getCalls() - 1;
+      return true;
+    }
+  }
+
+  /**
+   * @return the calls left in the current window, or {@link Integer#MAX_VALUE} while it is unknown.
+   */
+  public synchronized int getBudget() {
+    refill();
+    return remaining == UNKNOWN ? Integer.MAX_VALUE : remaining;
+  }
+
+  private void refill() {
+    if ( resetAt > 0 && System.currentTimeMillis() >= resetAt ) {
+      // New window, the full budget is back.
+      remaining = limit;
+      resetAt = 0;
+    }
+  }
+
+  /**
+   * Refresh the budget from the rate limit status of a response.
+   */
+  public void update( RateLimitStatus status ) {
+    if ( status == null ) {
+      return;
+    }
+    long reset = TimeUnit.SECONDS.toMillis( status.getResetTimeInSeconds() ) + CLOCK_MARGIN;
+    synchronized ( this ) {
+      limit = status.getLimit();
+      if ( reset > resetAt ) {
+        resetAt = reset;
+        remaining = status.getRemaining();
+      } else {
+        // Responses of calls made in parallel arrive out of order, keep the lowest budget of the window.
+        remaining = remaining == UNKNOWN ? status.getRemaining() : Math.min( remaining, status.getRemaining() );
+      }
+      notifyAll();
+    }
+    if ( coordinator != null ) {
+      coordinator.update( key, status.getLimit(), status.getRemaining(), reset );
+    }
+  }
+
+  /**
+   * Empty the budget after the API refused a call for exceeding the rate limit.
+   *
+   * @param status the rate limit status of the error, if any.
+   * @param retryAfter the seconds the API asked us to wait, or a negative value.
+   */
+  public void exhausted( RateLimitStatus status, int retryAfter ) {
+    long now = System.currentTimeMillis();
+    long reset;
+    synchronized ( this ) {
+      if ( status != null && status.getResetTimeInSeconds() > 0 ) {
+        resetAt = Math.max( resetAt, TimeUnit.SECONDS.toMillis( status.getResetTimeInSeconds() ) + CLOCK_MARGIN );
+        limit = status.getLimit();
+      } else if ( retryAfter > 0 ) {
+        resetAt = Math.max( resetAt, now + TimeUnit.SECONDS.toMillis( retryAfter ) );
+      } else {
+        resetAt = Math.max( resetAt, now + DEFAULT_WINDOW );
+      }
+      resetAt = Math.max( resetAt, now + CLOCK_MARGIN );
+      remaining = 0;
+      granted = 0;
+      reset = resetAt;
+    }
+    if ( coordinator != null ) {
+      coordinator.exhausted( key, reset );
+    }
+  }
+
+  /**
+   * @return the time at which an exhausted budget is refilled, or 0 if the budget isn't exhausted.
+   */
+  public synchronized long getResetAt() {
+    return remaining == 0 ? resetAt : 0;
+  }
+
+  public synchronized int getRemaining() {
+    return remaining;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.TwitterException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tells which failed search calls are worth making again, and how long to wait before each attempt.
+ * Network issues and server errors are retried, with a delay doubling at every attempt. The delay is
+ * randomized, so that the calls failed at the same time aren't all made again at the same time.
+ */
+public class TwitterRetryPolicy {
+  // Longest single wait, so that stopped steps are noticed quickly.
+  private static final long MAX_WAIT_SLICE = TimeUnit.SECONDS.toMillis( 1 );
+
+  private final int maxRetries;
+  private final long initialDelay;
+  private final long maxDelay;
+
+  /**
+   * @param maxRetries how many times a failed call is made again, 0 to never retry.
+   * @param initialDelay the milliseconds to wait before the first retry.
+   * @param maxDelay the longest wait before a retry, in milliseconds.
+   */
+  public TwitterRetryPolicy( int maxRetries, long initialDelay, long maxDelay ) {
+    this.maxRetries = maxRetries;
+    this.initialDelay = Math.max( 1, initialDelay );
+    this.maxDelay = Math.max( this.initialDelay, maxDelay );
+  }
+
+  /**
+   * @return true if the call failed for a network issue or a server error.
+   */
+  public static boolean isTransient( TwitterException e ) {
+    return e.isCausedByNetworkIssue() || e.getStatusCode() >= 500;
+  }
+
+  /**
+   * @param attempt the number of retries already made.
+   * @return true if the failed call should be made again.
+   */
+  public boolean shouldRetry( TwitterException e, int attempt ) {
+    return attempt < maxRetries && isTransient( e );
+  }
+
+  /**
+   * @param attempt the number of retries already made.
+   * @return the milliseconds to wait before the next retry, picked at random up to the backoff of the attempt.
+   */
+  public long delayOf( int attempt ) {
+    long backoff = attempt >= Long.numberOfLeadingZeros( initialDelay ) - 1
+      ? maxDelay : Math.min( maxDelay, initialDelay << attempt );
+    return 1 + ThreadLocalRandom.current().nextLong( backoff );
+  }
+
+  /**
+   * Wait the given milliseconds.
+   *
+   * @param stopped tells whether the caller gave up waiting.
+   * @throws InterruptedException if the caller was stopped or interrupted while waiting.
+   */
+  public static void sleep( long delay, BooleanSupplier stopped ) throws InterruptedException {
+    long end = System.currentTimeMillis() + delay;
+    for ( long left = delay; left > 0; left = end - System.currentTimeMillis() ) {
+      if ( stopped.getAsBoolean() ) {
+        throw new InterruptedException();
+      }
+      Thread.sleep( Math.min( left, MAX_WAIT_SLICE ) );
+    }
+  }
+}
@@ -18,8 +18,11 @@
  */
 package com.leonardo.coelho;
 
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -29,16 +32,31 @@ import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
+import com.leonardo.coelho.TwitterTweetSampler.Sampling;
+import twitter4j.GeoLocation;
 import twitter4j.Query;
 import twitter4j.Query.ResultType;
-import twitter4j.QueryResult;
-import twitter4j.Status;
-import twitter4j.TwitterException;
-import twitter4j.conf.ConfigurationBuilder;
-import twitter4j.Twitter;
-import twitter4j.TwitterFactory;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Describe your step plugin.
@@ -47,9 +65,17 @@ import java.util.Arrays;
 public class TwitterSearch extends BaseStep implements StepInterface {
   private static Class<?> PKG = TwitterSearchMeta.class; // for i18n purposes, needed by Translator2!!   $NON-NLS-1$
 
+  // Latitude, longitude and radius with its unit, such as 37.78,-122.39,1km.
+  private static final Pattern GEOCODE =
+    Pattern.compile( "\\s*(-?[0-9.]+)\\s*,\\s*(-?[0-9.]+)\\s*,\\s*([0-9.]+)\\s*(km|mi)\\s*" );
+  // How far back the search API reaches, where windows start when the query has no lower bound.
+  private static final long SEARCH_HISTORY = TimeUnit.DAYS.toMillis( 7 );
+
+  // Longest wait for a streamed tweet, so that stopped steps are noticed quickly.
+  private static final long STREAM_POLL_TIMEOUT = TimeUnit.SECONDS.toMillis( 1 );
+
   private TwitterSearchMeta meta;
   private TwitterSearchData data;
-  private Twitter twitter;
 
   public TwitterSearch( StepMeta stepMeta, StepDataInterface stepDataInterface, int copyNr, TransMeta transMeta,
     Trans trans ) {
@@ -69,25 +95,71 @@ public class TwitterSearch extends BaseStep implements StepInterface {
     data = (TwitterSearchData) stepDataInterface;
 
     if ( super.init( stepMetaInterface, stepDataInterface ) ) {
-      if ( Utils.isEmpty( meta.getSearchQueryField() ) ) {
+      if ( meta.isStreamModeField() ) {
+        if ( Utils.isEmpty( meta.getTrackField() ) && Utils.isEmpty( meta.getFollowField() )
+          && Utils.isEmpty( meta.getLocationsField() ) ) {
+          logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.StreamFilter" ) );
+          return false;
+        }
+      } else if ( Utils.isEmpty( meta.getSearchQueryField() ) ) {
         logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.SearchQuery" ) );
         return false;
       }
-      if ( Utils.isEmpty( meta.getConsumerKeyField() ) ) {
-        logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.ConsumerKey" ) );
+      if ( meta.getCredentialsField().isEmpty() ) {
+        logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.Credentials" ) );
         return false;
       }
-      if ( Utils.isEmpty( meta.getConsumerSecretField() ) ) {
-        logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.ConsumerSecret" ) );
-        return false;
+      for ( TwitterCredential credential : meta.getCredentialsField() ) {
+        if ( Utils.isEmpty( credential.getConsumerKeyField() ) ) {
+          logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.ConsumerKey" ) );
+          return false;
+        }
+        if ( Utils.isEmpty( credential.getConsumerSecretField() ) ) {
+          logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.ConsumerSecret" ) );
+          return false;
+        }
+        if ( Utils.isEmpty( credential.getAccessTokenKeyField() ) ) {
+          logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.AccessTokenKey" ) );
+          return false;
+        }
+        if ( Utils.isEmpty( credential.getAccessTokenSecretField() ) ) {
+          logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.AccessTokenSecret" ) );
+          return false;
+        }
       }
-      if ( Utils.isEmpty( meta.getAccessTokenKeyField() ) ) {
-        logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.AccessTokenKey" ) );
-        return false;
+      if ( !meta.isStreamModeField() && !Utils.isEmpty( meta.getUntilField() ) ) {
+        data.until = environmentSubstitute( meta.getUntilField() ).trim();
+        try {
+          data.untilTime = LocalDate.parse( data.until ).atStartOfDay( ZoneOffset.UTC ).toInstant().toEpochMilli();
+        } catch ( DateTimeParseException e ) {
+          // The API would refuse every search, and the windows are split up to this date.
+          logError( BaseMessages.getString( PKG, "TwitterSearch.Invalid.Until", data.until ) );
+          return false;
+        }
       }
-      if ( Utils.isEmpty( meta.getAccessTokenSecretField() ) ) {
-        logError( BaseMessages.getString( PKG, "TwitterSearch.Missing.AccessTokenSecret" ) );
-        return false;
+      data.settings = new TwitterClientRegistry.Settings( meta.isKeepAliveField(), meta.isGzipField(),
+        meta.getConnectTimeoutField(), meta.getReadTimeoutField(), meta.isDebugField() );
+      if ( !meta.isStreamModeField() ) {
+        // Get the clients now, so that the first row doesn't wait for them.
+        String quotaDirectory = environmentSubstitute( meta.getQuotaDirectoryField() );
+        data.credentials = new TwitterCredentialPool( meta.getCredentialsField(), meta.getCredentialDispatchField(),
+          baseUrlOf( meta.getBaseUrlField(), TwitterSearchApi.DEFAULT_BASE_URL ), data.settings,
+          Utils.isEmpty( quotaDirectory ) ? null : TwitterQuotaCoordinator.forDirectory( quotaDirectory ) );
+      }
+      data.metrics = new TwitterSearchMetrics( () -> data.client == null ? 0 : data.client.getRetries(),
+        () -> data.credentials == null ? -1 : data.credentials.getBudget() );
+      data.metricsLoggedAt = System.currentTimeMillis();
+      if ( meta.isJmxField() ) {
+        try {
+          data.metricsName = new ObjectName( "com.leonardo.coelho:type=TwitterSearch,transformation="
+            + ObjectName.quote( Const.NVL( getTransMeta().getName(), "" ) ) + ",step="
+            + ObjectName.quote( getStepname() ) + ",copy=" + getCopy() );
+          ManagementFactory.getPlatformMBeanServer().registerMBean( data.metrics, data.metricsName );
+        } catch ( JMException e ) {
+          // Metrics are still logged.
+          data.metricsName = null;
+          logError( BaseMessages.getString( PKG, "TwitterSearch.Metrics.JmxException", e.getMessage() ) );
+        }
       }
       return true;
     } else {
@@ -99,9 +171,41 @@ public class TwitterSearch extends BaseStep implements StepInterface {
     meta = (TwitterSearchMeta) smi;
     data = (TwitterSearchData) sdi;
 
+    if ( meta.isStreamModeField() ) {
+      return processStream();
+    }
+
     Object[] r = getRow(); // get row, set busy!
     if ( r == null ) {
-      // no more input to be expected...
+      // no more input to be expected, wait for the queries still in flight...
+      if ( data.pipeline != null ) {
+        submitBatch();
+        while ( !data.pipeline.isEmpty() ) {
+          if ( !emit( takeTask() ) ) {
+            return false;
+          }
+        }
+      }
+      if ( data.runSample != null ) {
+        putSampled( data.runSample );
+        Map<String, Long> deferred = data.deferredCheckpoints;
+        data.deferredCheckpoints = null;
+        for ( Map.Entry<String, Long> checkpoint : deferred.entrySet() ) {
+          try {
+            data.checkpoints.put( checkpoint.getKey(), checkpoint.getValue() );
+          } catch ( IOException e ) {
+            throw new KettleException( BaseMessages.getString( PKG, "TwitterSearch.Checkpoint.Exception",
+              meta.getCheckpointFileField(), e.getMessage() ), e );
+          }
+        }
+      }
+      if ( data.journal != null ) {
+        try {
+          data.journal.close();
+        } catch ( IOException e ) {
+          throw journalException( e );
+        }
+      }
       setOutputDone();
       return false;
     }
@@ -109,7 +213,7 @@ public class TwitterSearch extends BaseStep implements StepInterface {
     if ( first ) {
       first = false;
 
-      data.queryIdx = Arrays.binarySearch( getInputRowMeta().getFieldNames( ), meta.getSearchQueryField() );
+      data.queryIdx = getInputRowMeta().indexOfValue( meta.getSearchQueryField() );
       if ( data.queryIdx < 0 ) {
         logError( BaseMessages.getString( PKG, "TwitterSearch.Invalid.QueryField" ) );
         setErrors( 1 );
@@ -117,62 +221,877 @@ public class TwitterSearch extends BaseStep implements StepInterface {
         return false;
       }
 
-      ConfigurationBuilder cb = new ConfigurationBuilder();
-      cb.setDebugEnabled( true )
-        .setOAuthConsumerKey( meta.getConsumerKeyField() )
-        .setOAuthConsumerSecret( meta.getConsumerSecretField() )
-        .setOAuthAccessToken( meta.getAccessTokenKeyField() )
-        .setOAuthAccessTokenSecret( meta.getAccessTokenSecretField() );
-      TwitterFactory tf = new TwitterFactory( cb.build() );
-      twitter = tf.getInstance();
+      data.outputFields = meta.getOutputFields();
+      TwitterField[] searchFields = data.outputFields;
+      if ( meta.isCoalesceField() ) {
+        // Batched tweets are matched back to their rows by their text, even if it isn't an output field.
+        data.textIdx = Arrays.asList( searchFields ).indexOf( TwitterField.TWEET_BODY );
+        if ( data.textIdx < 0 ) {
+          searchFields = Arrays.copyOf( searchFields, searchFields.length + 1 );
+          data.textIdx = searchFields.length - 1;
+          searchFields[ data.textIdx ] = TwitterField.TWEET_BODY;
+        }
+      }
+      if ( meta.isRanked() ) {
+        // Tweets are ranked by a value of theirs, even if it isn't an output field.
+        data.rankIdx = Arrays.asList( searchFields ).indexOf( meta.getRankField() );
+        if ( data.rankIdx < 0 ) {
+          searchFields = Arrays.copyOf( searchFields, searchFields.length + 1 );
+          data.rankIdx = searchFields.length - 1;
+          searchFields[ data.rankIdx ] = meta.getRankField();
+        }
+      }
+      TwitterSearchCache cache = null;
+      if ( meta.getCacheSizeField() > 0 ) {
+        String cacheDirectory = Utils.isEmpty( meta.getCacheDirectoryField() )
+          ? null : environmentSubstitute( meta.getCacheDirectoryField() );
+        cache = new TwitterSearchCache( meta.getCacheSizeField(), meta.getCacheTtlField(), cacheDirectory,
+          searchFields, meta.hasEntitySteps(), getLogChannel() );
+      }
+      String baseUrl = baseUrlOf( meta.getBaseUrlField(), TwitterSearchApi.DEFAULT_BASE_URL );
+      data.client = new TwitterSearchClient( data.credentials,
+        data.metrics.timed( TwitterSearchApi.create( meta.getSearchApiField(), baseUrl, data.settings, searchFields,
+          meta.hasEntitySteps() ) ),
+        cache,
+        new TwitterRetryPolicy( meta.getMaxRetriesField(), meta.getRetryDelayField(), meta.getMaxRetryDelayField() ),
+        meta.getBreakerThresholdField() > 0 ? new TwitterCircuitBreaker( meta.getBreakerThresholdField(),
+          TimeUnit.SECONDS.toMillis( meta.getBreakerPauseField() ) ) : null,
+        this::isStopped, getLogChannel() );
 
       data.outputRowMeta = getInputRowMeta().clone();
       meta.getFields( data.outputRowMeta, getStepname(), null, null, this, repository, metaStore );
       data.startPoint = getInputRowMeta().size();
-      r = RowDataUtil.resizeArray( r, data.outputRowMeta.size() );
+      initEntities();
+      data.pipeline = new TwitterSearchPipeline( getStepname() + "." + getCopy(),
+        meta.getConcurrencyField(), meta.isPreserveOrderField() );
+      if ( !Utils.isEmpty( meta.getCheckpointFileField() ) ) {
+        data.checkpoints = TwitterCheckpointStore.forFile( environmentSubstitute( meta.getCheckpointFileField() ) );
+      }
+      if ( meta.isAggregated() ) {
+        data.aggregates = new IdentityHashMap<>();
+        data.outputNames = meta.getOutputFieldNames();
+      }
+      if ( meta.isRanked() ) {
+        data.topTweets = new IdentityHashMap<>();
+      }
+      initSampler();
+      if ( meta.isReservoirSampled() && meta.isSampleRunField() && !meta.isAggregated() ) {
+        data.runSample = data.sampler.newReservoir( meta.getSampleSizeField() );
+        if ( data.checkpoints != null ) {
+          data.deferredCheckpoints = new HashMap<>();
+        }
+      } else if ( meta.isReservoirSampled() ) {
+        // Collected tweets are sent in the row of their query, so they are sampled by query.
+        data.samples = new IdentityHashMap<>();
+      }
+      if ( !meta.isAggregated() && !meta.isRanked() && !meta.isReservoirSampled()
+        && !Utils.isEmpty( meta.getJournalFileField() ) ) {
+        // Only sent rows can be journaled, and collected, ranked or sampled tweets are sent once their query is done.
+        data.journal = TwitterPaginationJournal.forFile( environmentSubstitute( meta.getJournalFileField() ) );
+        data.rowNrs = new IdentityHashMap<>();
+      }
+      data.seenIds = TwitterIdSet.create( meta.getDedupField(), meta.getDedupExpectedField() );
+      if ( meta.getMaxAgeField() > 0 ) {
+        data.cutoff = new Date( System.currentTimeMillis() - TimeUnit.MINUTES.toMillis( meta.getMaxAgeField() ) );
+        // Let the API skip older tweets. Rounded down to the minute, so that cached pages can still be used.
+        long minute = data.cutoff.getTime() - data.cutoff.getTime() % TimeUnit.MINUTES.toMillis( 1 );
+        data.cutoffId = TwitterQueryWindows.idOf( minute );
+      }
+
+      // Filters the API can apply, so that pages aren't spent on tweets we would drop.
+      StringBuilder operators = new StringBuilder();
+      if ( meta.isOnlyVerifiedUsersField() ) {
+        operators.append( " filter:verified" );
+      }
+      if ( meta.isSensitiveField() ) {
+        operators.append( " filter:safe" );
+      }
+      if ( meta.isExcludeRetweetsField() ) {
+        operators.append( " -filter:retweets" );
+      }
+      if ( meta.isExcludeRepliesField() ) {
+        operators.append( " -filter:replies" );
+      }
+      data.operators = operators.toString();
+      if ( !Utils.isEmpty( meta.getGeocodeField() ) ) {
+        Matcher geocode = GEOCODE.matcher( environmentSubstitute( meta.getGeocodeField() ) );
+        if ( !geocode.matches() ) {
+          logError( BaseMessages.getString( PKG, "TwitterSearch.Invalid.Geocode", meta.getGeocodeField() ) );
+          setErrors( 1 );
+          stopAll();
+          return false;
+        }
+        data.geoLocation = new GeoLocation( Double.parseDouble( geocode.group( 1 ) ),
+          Double.parseDouble( geocode.group( 2 ) ) );
+        data.geoRadius = Double.parseDouble( geocode.group( 3 ) );
+        data.geoUnit = Query.Unit.valueOf( geocode.group( 4 ) );
+      }
+    }
+
+    String text = Const.NVL( (String) r[data.queryIdx], "" );
+    Query query = newQuery( text );
+    if ( data.journal != null ) {
+      // Rows with the same query are told apart in the journal by their position in the input.
+      data.rowNrs.put( r, getLinesRead() );
+    }
+    long sinceId = data.cutoffId;
+    if ( data.checkpoints != null ) {
+      try {
+        sinceId = Math.max( sinceId, data.checkpoints.get( TwitterCheckpointStore.keyOf( query ) ) );
+      } catch ( IOException e ) {
+        throw new KettleException( BaseMessages.getString( PKG, "TwitterSearch.Checkpoint.Exception",
+          meta.getCheckpointFileField(), e.getMessage() ), e );
+      }
+    }
+    if ( sinceId > 0 ) {
+      query.setSinceId( sinceId );
+    }
+    TwitterQueryWindows windows = null;
+    if ( meta.getWindowsField() > 1 ) {
+      long until = data.untilTime > 0 ? data.untilTime : System.currentTimeMillis();
+      windows = TwitterQueryWindows.split( sinceId > 0 ? sinceId
+        : TwitterQueryWindows.idOf( until - SEARCH_HISTORY ), until, meta.getWindowsField() );
+    }
+    if ( windows != null ) {
+      if ( meta.isPreserveOrderField() ) {
+        submitBatch();
+      }
+      for ( int i = 0; i < windows.size(); i++ ) {
+        Query window = newQuery( text );
+        TwitterPaginationJournal.Cursor cursor = null;
+        if ( data.journal != null ) {
+          // The windows of a resumed query are those of the run that started it, as they depend on the time.
+          String key = journalKeyOf( r, window, windows, i );
+          cursor = getCursor( key );
+          if ( cursor == null ) {
+            cursor = new TwitterPaginationJournal.Cursor( windows.getSinceId( i ), windows.getMaxId( i ), 0, 0, 0 );
+            putCursor( key, cursor );
+          } else if ( cursor.isDone() ) {
+            if ( windows.complete( cursor.getHighestId() ) ) {
+              complete( r, window, windows, windows.getHighestId() );
+            }
+            continue;
+          }
+          windows.setEmitted( Math.max( windows.getEmitted(), cursor.getEmitted() ) );
+        }
+        if ( cursor == null ) {
+          window.setSinceId( windows.getSinceId( i ) );
+          if ( windows.getMaxId( i ) > 0 ) {
+            window.setMaxId( windows.getMaxId( i ) );
+          }
+        }
+        // A row may be split in more windows than there are slots, so make room for each of them.
+        while ( data.pipeline.isFull() ) {
+          if ( !emit( takeTask() ) ) {
+            return false;
+          }
+        }
+        TwitterSearchTask task = new TwitterSearchTask( data.client, r, windows, i, window );
+        data.pipeline.submit( cursor == null ? task : task.resume( cursor ) );
+      }
+    } else if ( meta.isCoalesceField() && TwitterQueryBatch.isCoalescable( text ) ) {
+      if ( data.batch != null && !data.batch.fits( text ) ) {
+        submitBatch();
+      }
+      if ( data.batch == null ) {
+        data.batch = new TwitterQueryBatch( meta.getMaxQueryLengthField(), data.operators );
+      }
+      data.batch.add( r, text, query );
+    } else {
+      if ( meta.isPreserveOrderField() ) {
+        // The rows batched so far come first.
+        submitBatch();
+      }
+      TwitterSearchTask task = new TwitterSearchTask( data.client, r, query );
+      TwitterPaginationJournal.Cursor cursor =
+        data.journal == null ? null : getCursor( journalKeyOf( r, query, null, 0 ) );
+      data.pipeline.submit( cursor == null ? task : task.resume( cursor ) );
+    }
+
+    // Emit whatever has already completed, and block only while every slot is taken.
+    TwitterSearchTask task;
+    while ( ( task = pollTask() ) != null ) {
+      if ( !emit( task ) ) {
+        return false;
+      }
+    }
+    while ( data.pipeline.isFull() ) {
+      if ( !emit( takeTask() ) ) {
+        return false;
+      }
+    }
+
+    if ( checkFeedback( getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "TwitterSearch.Log.LineNumber" ) + getLinesRead() );
+      }
     }
 
-    Query query = new Query( (String) r[data.queryIdx] );
+    return true;
+  }
+
+  /**
+   * Search the rows batched so far, if any.
+   */
+  private void submitBatch() {
+    TwitterQueryBatch batch = data.batch;
+    if ( batch == null ) {
+      return;
+    }
+    data.batch = null;
+    if ( batch.size() == 1 ) {
+      data.pipeline.submit( new TwitterSearchTask( data.client, batch.getRow( 0 ), batch.getQuery( 0 ) ) );
+    } else {
+      Query query = newQuery( batch.getCombinedTerms() );
+      if ( batch.getSinceId() > 0 ) {
+        query.setSinceId( batch.getSinceId() );
+      }
+      data.pipeline.submit( new TwitterSearchTask( data.client, batch, query ) );
+    }
+  }
+
+  /**
+   * @return the query searching the text, with the settings and filters of the step.
+   */
+  private Query newQuery( String text ) {
+    Query query = new Query( text + data.operators );
     query.setResultType( meta.getResultTypeField() );
     query.setLang( meta.getLangCodeField() );
-    QueryResult result;
+    if ( meta.getPageSizeField() > 0 ) {
+      query.setCount( meta.getPageSizeField() );
+    }
+    if ( data.until != null ) {
+      query.setUntil( data.until );
+    }
+    if ( data.geoLocation != null ) {
+      query.setGeoCode( data.geoLocation, data.geoRadius, data.geoUnit );
+    }
+    return query;
+  }
+
+  private TwitterSearchTask takeTask() throws KettleException {
     try {
-      result = twitter.search( query );
-    } catch ( TwitterException e ) {
-      logError( BaseMessages.getString( PKG, "TwitterSearch.Search.Exception", e.getMessage() ) );
+      return data.pipeline.take();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( e.getCause() );
+    }
+  }
+
+  private TwitterSearchTask pollTask() throws KettleException {
+    try {
+      return data.pipeline.poll();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( e.getCause() );
+    }
+  }
+
+  /**
+   * Send the tweets of a completed page downstream, and queue the following page if more are wanted.
+   *
+   * @return false if the search failed and the transformation has been stopped.
+   */
+  private boolean emit( TwitterSearchTask task ) throws KettleException {
+    if ( isStopped() ) {
+      return false;
+    }
+    logMetrics();
+    if ( task.getException() != null ) {
+      logError( BaseMessages.getString( PKG, "TwitterSearch.Search.Exception", task.getException().getMessage() ) );
       setErrors( 1 );
       stopAll();
       return false;
     }
-    for ( Status status : result.getTweets() ) {
-      if ( ( !meta.isSensitiveField() || !status.isPossiblySensitive() )
-        && ( !meta.isOnlyVerifiedUsersField() || status.getUser().isVerified() ) ) {
-        int idx = data.startPoint;
-        if ( !Utils.isEmpty( meta.getCreationDateField() ) ) {
-          r[ idx++ ] = status.getCreatedAt();
-        }
-        if ( !Utils.isEmpty( meta.getAuthorField() ) ) {
-          r[ idx++ ] =  status.getUser().getName();
+    if ( task.getResult() == null ) {
+      // Interrupted while waiting for the rate limit.
+      return false;
+    }
+    if ( task.getBatch() != null ) {
+      return emitBatch( task );
+    }
+    Object[] r = task.getRow();
+    TwitterSearchPage result = task.getResult();
+    TwitterQueryWindows windows = task.getWindows();
+    // The windows of a query share its max tweets.
+    long emitted = windows == null ? task.getEmitted() : windows.getEmitted();
+    long maxTweets = meta.getMaxTweetsField();
+    long lowestId = Long.MAX_VALUE;
+    long highestId = task.getHighestId();
+    boolean done = false;
+    received( result.getTweets().size() );
+    for ( TwitterSearchPage.Tweet tweet : result.getTweets() ) {
+      lowestId = Math.min( lowestId, tweet.getId() );
+      highestId = Math.max( highestId, tweet.getId() );
+      if ( maxTweets > 0 && emitted >= maxTweets ) {
+        done = true;
+        break;
+      }
+      if ( data.cutoff != null && tweet.getCreatedAt() < data.cutoff.getTime() ) {
+        data.metrics.recordDropped();
+        done = true;
+        continue;
+      }
+      // The sensitive and verified filters are applied by the API.
+      if ( ( data.seenIds == null || data.seenIds.add( tweet.getId() ) ) && sampled( tweet ) ) {
+        if ( data.topTweets != null ) {
+          rank( r, tweet );
+        } else if ( data.samples != null || data.runSample != null ) {
+          sample( r, tweet );
+        } else {
+          send( r, tweet );
+          putEntities( tweet );
+          data.metrics.recordEmitted();
         }
-        if ( !Utils.isEmpty( meta.getAuthorScreenNameField() ) ) {
-          r[ idx++ ] =  status.getUser().getScreenName();
+        emitted++;
+      } else {
+        data.metrics.recordDropped();
+      }
+    }
+    if ( windows != null ) {
+      windows.setEmitted( emitted );
+    }
+
+    int maxPages = meta.getMaxPagesField();
+    Query query = task.getQuery();
+    if ( !done && result.hasNext() && lowestId != Long.MAX_VALUE
+      && ( maxPages <= 0 || task.getPage() < maxPages ) ) {
+      if ( data.journal != null ) {
+        // Recorded once the tweets of the page were sent, a crash before sends them again on the next run.
+        putCursor( journalKeyOf( r, query, windows, task.getWindow() ), new TwitterPaginationJournal.Cursor(
+          query.getSinceId(), lowestId - 1, task.getPage(), emitted, highestId ) );
+      }
+      data.pipeline.submitFirst( task.nextPage( lowestId - 1, emitted, highestId ) );
+      return true;
+    }
+    if ( windows != null ) {
+      if ( data.journal != null ) {
+        putCursor( journalKeyOf( r, query, windows, task.getWindow() ), new TwitterPaginationJournal.Cursor(
+          query.getSinceId(), 0, -1, emitted, highestId ) );
+      }
+      if ( !windows.complete( highestId ) ) {
+        return true;
+      }
+      highestId = windows.getHighestId();
+    }
+    if ( data.topTweets != null ) {
+      putTopTweets( r );
+    }
+    if ( data.samples != null ) {
+      putSample( r );
+    }
+    if ( data.aggregates != null ) {
+      putAggregate( r );
+    }
+    complete( r, query, windows, highestId );
+    return true;
+  }
+
+  /**
+   * Send a tweet found by the query of an input row, or collect it if the tweets are sent in one row per query.
+   */
+  private void send( Object[] r, TwitterSearchPage.Tweet tweet ) throws KettleException {
+    if ( data.aggregates != null ) {
+      aggregateOf( r ).add( tweet );
+    } else {
+      // Rows are queued downstream, so every tweet needs its own.
+      Object[] outputRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      System.arraycopy( r, 0, outputRow, 0, data.startPoint );
+      System.arraycopy( tweet.getValues(), 0, outputRow, data.startPoint, data.outputFields.length );
+      putRow( data.outputRowMeta, outputRow );
+    }
+  }
+
+  /**
+   * Keep a tweet found by the query of an input row if it ranks among its top tweets so far.
+   */
+  private void rank( Object[] r, TwitterSearchPage.Tweet tweet ) {
+    TwitterTopTweets topTweets = data.topTweets.computeIfAbsent( r,
+      row -> new TwitterTopTweets( meta.getTopTweetsField(), data.rankIdx ) );
+    if ( topTweets.add( tweet ) != null ) {
+      data.metrics.recordDropped();
+    }
+  }
+
+  /**
+   * Send the top tweets found by the query of an input row, the highest ranked first, once every page of it was done.
+   */
+  private void putTopTweets( Object[] r ) throws KettleException {
+    TwitterTopTweets topTweets = data.topTweets.remove( r );
+    if ( topTweets == null ) {
+      // No tweet found.
+      return;
+    }
+    for ( TwitterSearchPage.Tweet tweet : topTweets.getTweets() ) {
+      send( r, tweet );
+      putEntities( tweet );
+      data.metrics.recordEmitted();
+    }
+  }
+
+  private void initSampler() {
+    if ( meta.getSampleField() == Sampling.NONE ) {
+      return;
+    }
+    // Without a seed, each run samples other tweets.
+    String seed = environmentSubstitute( meta.getSampleSeedField() );
+    data.sampler = new TwitterTweetSampler(
+      Utils.isEmpty( seed ) ? new Random().nextLong() : Const.toLong( seed, 0 ) );
+  }
+
+  /**
+   * @return true if the tweet is in the Bernoulli sample, if the tweets are sampled this way.
+   */
+  private boolean sampled( TwitterSearchPage.Tweet tweet ) {
+    return meta.getSampleField() != Sampling.BERNOULLI
+      || data.sampler.accept( tweet.getId(), meta.getSampleRateField() );
+  }
+
+  /**
+   * Keep a tweet found by the query of an input row if it falls in the reservoir of the query, or of the run.
+   */
+  private void sample( Object[] r, TwitterSearchPage.Tweet tweet ) {
+    TwitterTweetSampler.Reservoir reservoir = data.runSample != null ? data.runSample
+      : data.samples.computeIfAbsent( r, row -> data.sampler.newReservoir( meta.getSampleSizeField() ) );
+    if ( reservoir.add( r, tweet ) ) {
+      data.metrics.recordDropped();
+    }
+  }
+
+  /**
+   * Send the sample of the tweets found by the query of an input row, once every page of it was done.
+   */
+  private void putSample( Object[] r ) throws KettleException {
+    TwitterTweetSampler.Reservoir reservoir = data.samples.remove( r );
+    if ( reservoir != null ) {
+      putSampled( reservoir );
+    }
+  }
+
+  private void putSampled( TwitterTweetSampler.Reservoir reservoir ) throws KettleException {
+    for ( TwitterTweetSampler.Sampled sampled : reservoir.getSampled() ) {
+      send( sampled.getRow(), sampled.getTweet() );
+      putEntities( sampled.getTweet() );
+      data.metrics.recordEmitted();
+    }
+  }
+
+  private TwitterTweetAggregate aggregateOf( Object[] r ) {
+    return data.aggregates.computeIfAbsent( r, row -> new TwitterTweetAggregate( data.outputNames ) );
+  }
+
+  /**
+   * Send the row collecting the tweets found by the query of an input row, once every page of it was done.
+   */
+  private void putAggregate( Object[] r ) throws KettleException {
+    TwitterTweetAggregate aggregate = data.aggregates.remove( r );
+    if ( aggregate == null ) {
+      // No tweet found.
+      aggregate = new TwitterTweetAggregate( data.outputNames );
+    }
+    Object[] outputRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+    System.arraycopy( r, 0, outputRow, 0, data.startPoint );
+    outputRow[ data.startPoint ] = aggregate.getCount();
+    outputRow[ data.startPoint + 1 ] = aggregate.getFirst();
+    outputRow[ data.startPoint + 2 ] = aggregate.getLast();
+    outputRow[ data.startPoint + 3 ] = aggregate.getTweets();
+    putRow( data.outputRowMeta, outputRow );
+  }
+
+  /**
+   * Checkpoint a query once every page of it, or of all its windows, was done, and drop it from the journal.
+   */
+  private void complete( Object[] r, Query query, TwitterQueryWindows windows, long highestId )
+    throws KettleException {
+    // Only checkpoint once the query is complete, a crash before would otherwise leave a gap.
+    checkpoint( query, highestId );
+    if ( data.journal != null ) {
+      try {
+        for ( int i = 0; i < ( windows == null ? 1 : windows.size() ); i++ ) {
+          data.journal.remove( journalKeyOf( r, query, windows, i ) );
         }
-        if ( !Utils.isEmpty( meta.getAuthorLocationField() ) ) {
-          r[ idx++ ] = status.getUser().getLocation();
+        data.rowNrs.remove( r );
+      } catch ( IOException e ) {
+        throw journalException( e );
+      }
+    }
+  }
+
+  /**
+   * @return the key of the query of an input row in the journal, or of one of its windows.
+   */
+  private String journalKeyOf( Object[] r, Query query, TwitterQueryWindows windows, int window ) {
+    // Step copies share the journal file.
+    String key = getCopy() + ":" + data.rowNrs.get( r ) + ":" + TwitterCheckpointStore.keyOf( query );
+    return windows == null ? key : key + "#" + window + "/" + windows.size();
+  }
+
+  private TwitterPaginationJournal.Cursor getCursor( String key ) throws KettleException {
+    try {
+      return data.journal.get( key );
+    } catch ( IOException e ) {
+      throw journalException( e );
+    }
+  }
+
+  private void putCursor( String key, TwitterPaginationJournal.Cursor cursor ) throws KettleException {
+    try {
+      data.journal.put( key, cursor );
+    } catch ( IOException e ) {
+      throw journalException( e );
+    }
+  }
+
+  private KettleException journalException( IOException e ) {
+    return new KettleException( BaseMessages.getString( PKG, "TwitterSearch.Journal.Exception",
+      meta.getJournalFileField(), e.getMessage() ), e );
+  }
+
+  /**
+   * Send the tweets of a completed page of a batch downstream, each with the input rows whose query found it.
+   */
+  private boolean emitBatch( TwitterSearchTask task ) throws KettleException {
+    TwitterQueryBatch batch = task.getBatch();
+    TwitterSearchPage result = task.getResult();
+    long maxTweets = meta.getMaxTweetsField();
+    long lowestId = Long.MAX_VALUE;
+    long highestId = task.getHighestId();
+    boolean done = false;
+    boolean[] matched = new boolean[ batch.size() ];
+    if ( !containsTerms( batch, result ) ) {
+      // The API also finds terms outside of the text, such as in expanded URLs, quoted tweets or user names, so the
+      // rows whose query found a tweet of the page can't be told. They are searched on their own from this page on.
+      for ( int i = batch.size() - 1; i >= 0; i-- ) {
+        data.pipeline.submitFirst( task.split( i ) );
+      }
+      return true;
+    }
+    received( result.getTweets().size() );
+    for ( TwitterSearchPage.Tweet tweet : result.getTweets() ) {
+      lowestId = Math.min( lowestId, tweet.getId() );
+      highestId = Math.max( highestId, tweet.getId() );
+      if ( data.cutoff != null && tweet.getCreatedAt() < data.cutoff.getTime() ) {
+        data.metrics.recordDropped();
+        done = true;
+        continue;
+      }
+      String lowerText = lowerTextOf( tweet );
+      boolean any = false;
+      for ( int i = 0; i < matched.length; i++ ) {
+        matched[ i ] = ( maxTweets <= 0 || batch.getEmitted( i ) < maxTweets )
+          && batch.matches( i, tweet.getId(), lowerText );
+        any |= matched[ i ];
+      }
+      if ( !any || ( data.seenIds != null && !data.seenIds.add( tweet.getId() ) ) || !sampled( tweet ) ) {
+        data.metrics.recordDropped();
+        continue;
+      }
+      boolean collected = data.topTweets != null || data.samples != null || data.runSample != null;
+      if ( !collected ) {
+        data.metrics.recordEmitted();
+        // Entities are sent once per tweet, whatever the number of rows whose query found it.
+        putEntities( tweet );
+      }
+      for ( int i = 0; i < matched.length; i++ ) {
+        if ( matched[ i ] && data.topTweets != null ) {
+          rank( batch.getRow( i ), tweet );
+          batch.addEmitted( i );
+        } else if ( matched[ i ] && collected ) {
+          sample( batch.getRow( i ), tweet );
+          batch.addEmitted( i );
+        } else if ( matched[ i ] ) {
+          send( batch.getRow( i ), tweet );
+          batch.addEmitted( i );
         }
-        if ( !Utils.isEmpty( meta.getTweetBodyField() ) ) {
-          r[ idx++ ] = status.getText();
+      }
+    }
+    if ( maxTweets > 0 ) {
+      boolean full = true;
+      for ( int i = 0; i < batch.size() && full; i++ ) {
+        full = batch.getEmitted( i ) >= maxTweets;
+      }
+      done |= full;
+    }
+
+    int maxPages = meta.getMaxPagesField();
+    if ( !done && result.hasNext() && lowestId != Long.MAX_VALUE
+      && ( maxPages <= 0 || task.getPage() < maxPages ) ) {
+      data.pipeline.submitFirst( task.nextPage( lowestId - 1, 0, highestId ) );
+      return true;
+    }
+    for ( int i = 0; i < batch.size(); i++ ) {
+      if ( data.topTweets != null ) {
+        putTopTweets( batch.getRow( i ) );
+      }
+      if ( data.samples != null ) {
+        putSample( batch.getRow( i ) );
+      }
+      if ( data.aggregates != null ) {
+        putAggregate( batch.getRow( i ) );
+      }
+    }
+    for ( int i = 0; i < batch.size(); i++ ) {
+      checkpoint( batch.getQuery( i ), highestId );
+    }
+    return true;
+  }
+
+  /**
+   * Save the highest status ID found by a complete query, or hold it back until the sample of the run is sent.
+   */
+  private void checkpoint( Query query, long highestId ) throws KettleException {
+    if ( data.checkpoints == null || highestId <= 0 ) {
+      return;
+    }
+    String key = TwitterCheckpointStore.keyOf( query );
+    if ( data.deferredCheckpoints != null ) {
+      // The tweets of the query are only sent with the sample, a failure before would lose them for good.
+      data.deferredCheckpoints.merge( key, highestId, Math::max );
+      return;
+    }
+    try {
+      data.checkpoints.put( key, highestId );
+    } catch ( IOException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "TwitterSearch.Checkpoint.Exception",
+        meta.getCheckpointFileField(), e.getMessage() ), e );
+    }
+  }
+
+  /**
+   * @return true if the text of every tweet of the page, not older than the max age, holds the term of a row of
+   * the batch.
+   */
+  private boolean containsTerms( TwitterQueryBatch batch, TwitterSearchPage result ) {
+    for ( TwitterSearchPage.Tweet tweet : result.getTweets() ) {
+      if ( data.cutoff != null && tweet.getCreatedAt() < data.cutoff.getTime() ) {
+        // Dropped anyway.
+        continue;
+      }
+      String lowerText = lowerTextOf( tweet );
+      boolean found = false;
+      for ( int i = 0; i < batch.size() && !found; i++ ) {
+        found = batch.contains( i, lowerText );
+      }
+      if ( !found ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String lowerTextOf( TwitterSearchPage.Tweet tweet ) {
+    Object text = tweet.getValues()[ data.textIdx ];
+    return text == null ? "" : text.toString().toLowerCase( Locale.ROOT );
+  }
+
+  /**
+   * Find the row sets of the steps the entities are sent to, and take them out of the row sets sent the tweets.
+   */
+  private void initEntities() throws KettleException {
+    if ( !meta.hasEntitySteps() ) {
+      return;
+    }
+    data.entityRowMeta = new RowMeta();
+    meta.getEntityFields( data.entityRowMeta, getStepname() );
+    data.entityRowSets = new RowSet[ TwitterEntity.Type.values().length ];
+    List<RowSet> outputRowSets = new ArrayList<>( getOutputRowSets() );
+    for ( TwitterEntity.Type type : TwitterEntity.Type.values() ) {
+      String name = meta.getEntityStepName( type );
+      if ( Utils.isEmpty( name ) ) {
+        continue;
+      }
+      RowSet rowSet = findOutputRowSet( getStepname(), getCopy(), name, 0 );
+      if ( rowSet == null ) {
+        throw new KettleException( BaseMessages.getString( PKG, "TwitterSearch.Entity.NoHop", name ) );
+      }
+      data.entityRowSets[ type.ordinal() ] = rowSet;
+      outputRowSets.remove( rowSet );
+    }
+    setOutputRowSets( outputRowSets );
+  }
+
+  /**
+   * Send a row for each hashtag, mention and URL of the tweet to the step configured for its type, if any.
+   */
+  private void putEntities( TwitterSearchPage.Tweet tweet ) throws KettleException {
+    if ( data.entityRowSets == null || tweet.getEntities() == null ) {
+      return;
+    }
+    for ( TwitterEntity entity : tweet.getEntities() ) {
+      RowSet rowSet = data.entityRowSets[ entity.getType().ordinal() ];
+      if ( rowSet == null ) {
+        continue;
+      }
+      Object[] entityRow = RowDataUtil.allocateRowData( data.entityRowMeta.size() );
+      entityRow[ 0 ] = tweet.getId();
+      entityRow[ 1 ] = entity.getType().name();
+      entityRow[ 2 ] = entity.getValue();
+      entityRow[ 3 ] = (long) entity.getStart();
+      entityRow[ 4 ] = (long) entity.getEnd();
+      putRowTo( data.entityRowMeta, entityRow, rowSet );
+    }
+  }
+
+  @Override
+  public void setOutputDone() {
+    // The row sets of the entities were taken out of the output row sets, so they are done here.
+    if ( data != null && data.entityRowSets != null ) {
+      for ( RowSet rowSet : data.entityRowSets ) {
+        if ( rowSet != null ) {
+          rowSet.setDone();
         }
-        putRow( data.outputRowMeta, r );
       }
     }
+    super.setOutputDone();
+  }
 
-    if ( checkFeedback( getLinesRead() ) ) {
-      if ( log.isBasic() ) {
-        logBasic( BaseMessages.getString( PKG, "TwitterSearch.Log.LineNumber" ) + getLinesRead() );
+  /**
+   * @return true if the streamed tweet passes the filters of the step, and wasn't emitted yet.
+   * The filter stream can't apply them itself.
+   */
+  private boolean accept( TwitterSearchPage.Tweet tweet ) {
+    return ( !meta.isSensitiveField() || !tweet.isPossiblySensitive() )
+      && ( !meta.isOnlyVerifiedUsersField() || tweet.isAuthorVerified() )
+      && ( data.seenIds == null || data.seenIds.add( tweet.getId() ) )
+      && sampled( tweet );
+  }
+
+  /**
+   * Emit the tweets of the filter stream, one per call, until the step is stopped.
+   */
+  private boolean processStream() throws KettleException {
+    if ( first ) {
+      first = false;
+
+      data.outputFields = meta.getOutputFields();
+      data.outputRowMeta = new RowMeta();
+      meta.getFields( data.outputRowMeta, getStepname(), null, null, this, repository, metaStore );
+      initEntities();
+      data.seenIds = TwitterIdSet.create( meta.getDedupField(), meta.getDedupExpectedField() );
+      initSampler();
+      String spillDirectory = Utils.isEmpty( meta.getSpillDirectoryField() )
+        ? null : environmentSubstitute( meta.getSpillDirectoryField() );
+      data.streamQueue = new TwitterStreamQueue( meta.getStreamQueueSizeField(), meta.getOverflowField(),
+        spillDirectory );
+      // A stream connection is made with a single credential.
+      String baseUrl = baseUrlOf( meta.getStreamBaseUrlField(), TwitterFilterStream.DEFAULT_BASE_URL );
+      data.stream = new TwitterFilterStream( baseUrl, data.settings, meta.getCredentialsField().get( 0 ),
+        filterOf( meta.getTrackField() ), filterOf( meta.getFollowField() ), filterOf( meta.getLocationsField() ),
+        data.outputFields, meta.hasEntitySteps(), data.streamQueue, getLogChannel() );
+      data.stream.start( getStepname() + "." + getCopy() );
+    }
+
+    logMetrics();
+    TwitterSearchPage.Tweet tweet;
+    try {
+      tweet = data.streamQueue.poll( STREAM_POLL_TIMEOUT );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    } catch ( IOException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "TwitterSearch.Stream.SpillException",
+        meta.getSpillDirectoryField(), e.getMessage() ), e );
+    }
+    if ( tweet == null ) {
+      if ( data.stream.getFailure() != null ) {
+        logError( data.stream.getFailure() );
+        setErrors( 1 );
+        stopAll();
+        return false;
       }
+      return !isStopped();
     }
 
+    received( 1 );
+    if ( accept( tweet ) ) {
+      Object[] outputRow = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      Object[] values = tweet.getValues();
+      System.arraycopy( values, 0, outputRow, 0, values.length );
+      putRow( data.outputRowMeta, outputRow );
+      putEntities( tweet );
+      data.metrics.recordEmitted();
+      data.streamed++;
+      if ( meta.getMaxTweetsField() > 0 && data.streamed >= meta.getMaxTweetsField() ) {
+        setOutputDone();
+        return false;
+      }
+    } else {
+      data.metrics.recordDropped();
+    }
     return true;
   }
+
+  /**
+   * Count tweets read from the API, which also shows them as input lines in the step metrics.
+   */
+  private void received( int tweets ) {
+    data.metrics.recordReceived( tweets );
+    setLinesInput( getLinesInput() + tweets );
+  }
+
+  /**
+   * Log the metrics of the step, if the interval has elapsed since they were last logged.
+   */
+  private void logMetrics() {
+    long now = System.currentTimeMillis();
+    if ( meta.getMetricsIntervalField() <= 0 || !log.isBasic()
+      || now < data.metricsLoggedAt + TimeUnit.SECONDS.toMillis( meta.getMetricsIntervalField() ) ) {
+      return;
+    }
+    data.metricsLoggedAt = now;
+    TwitterSearchMetrics metrics = data.metrics;
+    logBasic( BaseMessages.getString( PKG, "TwitterSearch.Log.Metrics", metrics.getCalls(),
+      metrics.getLatencyP50Millis(), metrics.getLatencyP95Millis(), metrics.getLatencyP99Millis(),
+      metrics.getTweetsPerSecond(), metrics.getDropRatio(), metrics.getRetries(), metrics.getRemainingBudget() ) );
+  }
+
+  /**
+   * @return the base URL, or the default one if it is empty, ending with a slash.
+   */
+  private String baseUrlOf( String baseUrl, String defaultBaseUrl ) {
+    String url = Utils.isEmpty( baseUrl ) ? defaultBaseUrl : environmentSubstitute( baseUrl );
+    return url.endsWith( "/" ) ? url : url + "/";
+  }
+
+  private String filterOf( String filter ) {
+    return Utils.isEmpty( filter ) ? null : environmentSubstitute( filter ).trim();
+  }
+
+  public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
+    data = (TwitterSearchData) sdi;
+    if ( data.stream != null ) {
+      data.stream.close();
+      data.stream = null;
+    }
+    if ( data.streamQueue != null ) {
+      if ( data.streamQueue.getDropped() > 0 && log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "TwitterSearch.Stream.Dropped", data.streamQueue.getDropped() ) );
+      }
+      data.streamQueue.close();
+      data.streamQueue = null;
+    }
+    if ( data.client != null ) {
+      if ( ( data.client.getRetries() > 0 || data.client.getBreakerOpened() > 0 ) && log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "TwitterSearch.Retry.Count", data.client.getRetries(),
+          data.client.getBreakerOpened() ) );
+      }
+    }
+    if ( data.metricsName != null ) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean( data.metricsName );
+      } catch ( JMException e ) {
+        // Already gone.
+      }
+      data.metricsName = null;
+    }
+    if ( data.pipeline != null ) {
+      data.pipeline.shutdown();
+      data.pipeline = null;
+    }
+    super.dispose( smi, sdi );
+  }
 }
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.Query;
+import twitter4j.TwitterException;
+
+/**
+ * Makes one search call with a leased credential, and reads the response into a page.
+ */
+public interface TwitterSearchApi {
+
+  enum Type {
+    // Map each response to twitter4j objects.
+    TWITTER4J,
+    // Parse each response as it is read, keeping only the values of the output fields.
+    STREAMING
+  }
+
+  String DEFAULT_BASE_URL = "https://api.twitter.com/1.1/";
+
+  /**
+   * @param baseUrl the base URL of the API, ending with a slash.
+   * @param fields the output fields the pages must hold values for.
+   * @param entities whether the pages must hold the hashtags, mentions and URLs of the tweets.
+   */
+  static TwitterSearchApi create( Type type, String baseUrl, TwitterClientRegistry.Settings settings,
+    TwitterField[] fields, boolean entities ) {
+    switch ( type ) {
+      case STREAMING:
+        return new TwitterStreamingSearchApi( baseUrl, settings, fields, entities );
+      default:
+        return new TwitterMappedSearchApi( fields, entities );
+    }
+  }
+
+  /**
+   * Search with the credential of the lease, and update its rate limit budget from the response.
+   */
+  TwitterSearchPage search( TwitterCredentialPool.Lease lease, Query query ) throws TwitterException;
+}
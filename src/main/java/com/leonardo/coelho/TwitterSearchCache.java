@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.i18n.BaseMessages;
+import twitter4j.Query;
+import twitter4j.TwitterException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the result pages of recent searches, so that repeated queries cost no API call.
+ * Pages are kept in memory with a bounded size and a time to live, and optionally in a directory
+ * so that they survive across runs, where expired pages are deleted. Identical searches made at the same time share a single call.
+ */
+public class TwitterSearchCache {
+  private static Class<?> PKG = TwitterSearchMeta.class; // for i18n purposes, needed by Translator2!!   $NON-NLS-1$
+
+  /**
+   * Makes the search call on a cache miss.
+   */
+  public interface Loader {
+    TwitterSearchPage load() throws TwitterException, InterruptedException;
+  }
+
+  private final Cache<String, TwitterSearchPage> memory;
+  private final String fields;
+  private final Path directory;
+  private final long ttl;
+  private final LogChannelInterface log;
+
+  /**
+   * @param size the number of pages kept in memory.
+   * @param ttl the seconds a page stays valid.
+   * @param directory the directory keeping pages across runs, or null to keep them in memory only.
+   * @param fields the output fields the pages hold values for.
+   * @param entities whether the pages hold the hashtags, mentions and URLs of the tweets.
+   */
+  public TwitterSearchCache( int size, int ttl, String directory, TwitterField[] fields, boolean entities,
+    LogChannelInterface log ) {
+    this.memory = CacheBuilder.newBuilder()
+      .maximumSize( size )
+      .expireAfterWrite( ttl, TimeUnit.SECONDS )
+      .build();
+    this.ttl = TimeUnit.SECONDS.toMillis( ttl );
+    this.directory = directory == null ? null : Paths.get( directory );
+    this.fields = Arrays.toString( fields ) + ( entities ? "+entities" : "" );
+    this.log = log;
+    purge();
+  }
+
+  /**
+   * Delete the pages of the directory that expired, along with the temporary files left by failed writes.
+   */
+  private void purge() {
+    if ( directory == null || !Files.isDirectory( directory ) ) {
+      return;
+    }
+    long expiredAt = System.currentTimeMillis() - ttl;
+    try ( DirectoryStream<Path> files = Files.newDirectoryStream( directory ) ) {
+      for ( Path file : files ) {
+        try {
+          if ( Files.isRegularFile( file ) && Files.getLastModifiedTime( file ).toMillis() < expiredAt ) {
+            Files.deleteIfExists( file );
+          }
+        } catch ( IOException e ) {
+          // Another run may be purging the same file.
+        }
+      }
+    } catch ( IOException e ) {
+      log.logError( BaseMessages.getString( PKG, "TwitterSearch.Cache.Exception", directory, e.getMessage() ) );
+    }
+  }
+
+  public TwitterSearchPage get( Query query, Loader loader ) throws TwitterException, InterruptedException {
+    // The query is mutated between pages, so the key is taken now.
+    // Pages only hold the values of the output fields, a run with other fields can't use them.
+    String key = fields + query.toString();
+    try {
+      return memory.get( key, () -> {
+        TwitterSearchPage result = read( key );
+        if ( result == null ) {
+          result = loader.load();
+          write( key, result );
+        }
+        return result;
+      } );
+    } catch ( ExecutionException | UncheckedExecutionException | ExecutionError e ) {
+      Throwable cause = e.getCause();
+      if ( cause instanceof TwitterException ) {
+        throw (TwitterException) cause;
+      }
+      if ( cause instanceof InterruptedException ) {
+        throw (InterruptedException) cause;
+      }
+      if ( cause instanceof RuntimeException ) {
+        throw (RuntimeException) cause;
+      }
+      if ( cause instanceof Error ) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException( cause );
+    }
+  }
+
+  private Path fileOf( String key ) {
+    return directory.resolve( Hashing.sha1().hashString( key, StandardCharsets.UTF_8 ).toString() );
+  }
+
+  private TwitterSearchPage read( String key ) {
+    if ( directory == null ) {
+      return null;
+    }
+    Path file = fileOf( key );
+    try {
+      if ( !Files.exists( file ) ) {
+        return null;
+      }
+      if ( Files.getLastModifiedTime( file ).toMillis() + ttl < System.currentTimeMillis() ) {
+        Files.deleteIfExists( file );
+        return null;
+      }
+      try ( InputStream in = Files.newInputStream( file ); ObjectInputStream objects = new ObjectInputStream( in ) ) {
+        // The key is stored with the page in case two keys share a file name.
+        return key.equals( objects.readUTF() ) ? (TwitterSearchPage) objects.readObject() : null;
+      }
+    } catch ( IOException | ClassNotFoundException | ClassCastException e ) {
+      // A page we can't read is just a miss.
+      return null;
+    }
+  }
+
+  private void write( String key, TwitterSearchPage result ) {
+    if ( directory == null ) {
+      return;
+    }
+    try {
+      Files.createDirectories( directory );
+      Path file = fileOf( key );
+      Path tmp = Files.createTempFile( directory, file.getFileName().toString(), ".tmp" );
+      try ( OutputStream out = Files.newOutputStream( tmp );
+            ObjectOutputStream objects = new ObjectOutputStream( out ) ) {
+        objects.writeUTF( key );
+        objects.writeObject( result );
+      }
+      Files.move( tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    } catch ( IOException e ) {
+      log.logError( BaseMessages.getString( PKG, "TwitterSearch.Cache.Exception", directory, e.getMessage() ) );
+    }
+  }
+}
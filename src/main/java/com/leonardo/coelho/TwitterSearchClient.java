@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.i18n.BaseMessages;
+import twitter4j.Query;
+import twitter4j.TwitterException;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs search calls within the rate limits of the credential pool.
+ * A call refused for exceeding the rate limit is made again once a credential has budget left, and a call failed
+ * for a transient error is retried according to the retry policy. Pages found in the cache, if any, cost no call.
+ */
+public class TwitterSearchClient {
+  private static Class<?> PKG = TwitterSearchMeta.class; // for i18n purposes, needed by Translator2!!   $NON-NLS-1$
+
+  private final TwitterCredentialPool credentials;
+  private final TwitterSearchApi api;
+  private final TwitterSearchCache cache;
+  private final TwitterRetryPolicy retry;
+  private final TwitterCircuitBreaker breaker;
+  private final BooleanSupplier stopped;
+  private final LogChannelInterface log;
+  private final AtomicLong retries = new AtomicLong();
+
+  /**
+   * @param cache the cache of result pages, or null to always call the API.
+   * @param breaker the circuit breaker pausing the calls while the API fails, or null to never pause them.
+   */
+  public TwitterSearchClient( TwitterCredentialPool credentials, TwitterSearchApi api, TwitterSearchCache cache,
+    TwitterRetryPolicy retry, TwitterCircuitBreaker breaker, BooleanSupplier stopped, LogChannelInterface log ) {
+    this.credentials = credentials;
+    this.api = api;
+    this.cache = cache;
+    this.retry = retry;
+    this.breaker = breaker;
+    this.stopped = stopped;
+    this.log = log;
+  }
+
+  /**
+   * @throws InterruptedException if the step was stopped while waiting for the rate limit.
+   */
+  public TwitterSearchPage search( Query query ) throws TwitterException, InterruptedException {
+    if ( cache == null ) {
+      return fetch( query );
+    }
+    return cache.get( query, () -> fetch( query ) );
+  }
+
+  /**
+   * @return how many failed calls were made again.
+   */
+  public long getRetries() {
+    return retries.get();
+  }
+
+  /**
+   * @return how many times the circuit breaker paused the calls.
+   */
+  public long getBreakerOpened() {
+    return breaker == null ? 0 : breaker.getOpened();
+  }
+
+  private TwitterSearchPage fetch( Query query ) throws TwitterException, InterruptedException {
+    int attempt = 0;
+    while ( true ) {
+      if ( breaker != null ) {
+        breaker.acquire( stopped );
+      }
+      TwitterCredentialPool.Lease lease = credentials.acquire( stopped );
+      TwitterRateLimiter limiter = lease.getLimiter();
+      try {
+        TwitterSearchPage page = api.search( lease, query );
+        if ( breaker != null ) {
+          breaker.success();
+        }
+        return page;
+      } catch ( TwitterException e ) {
+        if ( breaker != null ) {
+          if ( TwitterRetryPolicy.isTransient( e ) ) {
+            long opened = breaker.getOpened();
+            breaker.failure();
+            if ( breaker.getOpened() > opened ) {
+              log.logError( BaseMessages.getString( PKG, "TwitterSearch.Breaker.Open" ) );
+            }
+          } else {
+            breaker.success();
+          }
+        }
+        if ( retry.shouldRetry( e, attempt ) ) {
+          limiter.update( e.getRateLimitStatus() );
+          long delay = retry.delayOf( attempt++ );
+          retries.incrementAndGet();
+          if ( log.isBasic() ) {
+            log.logBasic( BaseMessages.getString( PKG, "TwitterSearch.Retry.Waiting", e.getMessage(), delay,
+              attempt ) );
+          }
+          TwitterRetryPolicy.sleep( delay, stopped );
+          continue;
+        }
+        if ( !e.exceededRateLimitation() ) {
+          limiter.update( e.getRateLimitStatus() );
+          throw e;
+        }
+        limiter.exhausted( e.getRateLimitStatus(), e.getRetryAfter() );
+        if ( log.isBasic() ) {
+          log.logBasic( BaseMessages.getString( PKG, "TwitterSearch.RateLimit.Waiting",
+            new Date( limiter.getResetAt() ) ) );
+        }
+      }
+    }
+  }
+}
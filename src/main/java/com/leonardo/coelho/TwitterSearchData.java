@@ -18,15 +18,70 @@
  */
 package com.leonardo.coelho;
 
+import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
+import twitter4j.GeoLocation;
+import twitter4j.Query;
+
+import javax.management.ObjectName;
+import java.util.Date;
+import java.util.Map;
 
 
 public class TwitterSearchData extends BaseStepData implements StepDataInterface {
   public int queryIdx;
   RowMetaInterface outputRowMeta;
   public int startPoint;
+  TwitterSearchPipeline pipeline;
+  TwitterClientRegistry.Settings settings;
+  TwitterCredentialPool credentials;
+  TwitterSearchClient client;
+  TwitterSearchMetrics metrics;
+  // Name of the metrics in JMX, if they were published.
+  ObjectName metricsName;
+  long metricsLoggedAt;
+  TwitterCheckpointStore checkpoints;
+  TwitterPaginationJournal journal;
+  // Position in the input of the rows in progress, if they are journaled.
+  Map<Object[], Long> rowNrs;
+  TwitterIdSet seenIds;
+  TwitterField[] outputFields;
+  // Tweets collected for each input row in progress, if they are sent in one row per query.
+  Map<Object[], TwitterTweetAggregate> aggregates;
+  String[] outputNames;
+  // Top tweets kept for each input row in progress, if only the highest ranked ones are sent.
+  Map<Object[], TwitterTopTweets> topTweets;
+  // Index of the rank field in the values of the pages.
+  int rankIdx = -1;
+  TwitterTweetSampler sampler;
+  // Reservoirs kept for each input row in progress, if a sample of each query is sent.
+  Map<Object[], TwitterTweetSampler.Reservoir> samples;
+  // Reservoir kept for the whole run, if a sample of the run is sent.
+  TwitterTweetSampler.Reservoir runSample;
+  // Checkpoints of the complete queries by key, held back until the sample of the run is sent.
+  Map<String, Long> deferredCheckpoints;
+  // Row sets of the steps the entities are sent to, by entity type, null for the types sent nowhere.
+  RowSet[] entityRowSets;
+  RowMetaInterface entityRowMeta;
+  TwitterQueryBatch batch;
+  // Index of the tweet text in the values of the pages, to match batched tweets to their rows.
+  int textIdx = -1;
+  Date cutoff;
+  // Lowest status ID of a tweet posted after the cutoff.
+  long cutoffId;
+  // Search operators appended to every query.
+  String operators;
+  String until;
+  // Time at which the until date starts, or 0 if there is none.
+  long untilTime;
+  GeoLocation geoLocation;
+  double geoRadius;
+  Query.Unit geoUnit;
+  TwitterStreamQueue streamQueue;
+  TwitterFilterStream stream;
+  long streamed;
 
   /**
    * 
@@ -30,15 +30,25 @@ import org.eclipse.swt.widgets.*;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.Props;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStepMeta;
 import org.pentaho.di.trans.step.StepDialogInterface;
 import org.pentaho.di.ui.core.FormDataBuilder;
+import org.pentaho.di.ui.core.widget.ColumnInfo;
+import org.pentaho.di.ui.core.widget.TableView;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
+import com.leonardo.coelho.TwitterCredentialPool.Dispatch;
+import com.leonardo.coelho.TwitterIdSet.Dedup;
+import com.leonardo.coelho.TwitterSearchApi.Type;
+import com.leonardo.coelho.TwitterStreamQueue.Overflow;
+import com.leonardo.coelho.TwitterTweetSampler.Sampling;
 import twitter4j.Query;
 import twitter4j.Query.ResultType;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInterface {
 
@@ -50,8 +60,8 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
   private TwitterSearchMeta meta;
 
   private CTabFolder wTabFolder;
-  private CTabItem wQueryTab, wAuthTab, wOutputTab;
-  private Composite wQueryComp, wAuthComp, wOutputComp;
+  private CTabItem wQueryTab, wStreamTab, wAuthTab, wOutputTab;
+  private Composite wQueryComp, wStreamComp, wAuthComp, wOutputComp;
 
   private ScrolledComposite scrolledComposite;
   private Composite contentComposite;
@@ -80,21 +90,213 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
   private Label wOnlyVerifiedUsersLabel;
   private Button wOnlyVerifiedUsersField;
 
-  // Twitter API - Consumer Key.
-  private Label wConsumerKeyLabel;
-  private Text wConsumerKeyField;
+  // Exclude Retweets.
+  private Label wExcludeRetweetsLabel;
+  private Button wExcludeRetweetsField;
 
-  // Twitter API - Consumer Secret.
-  private Label wConsumerSecretLabel;
-  private Text wConsumerSecretField;
+  // Exclude Replies.
+  private Label wExcludeRepliesLabel;
+  private Button wExcludeRepliesField;
 
-  // Twitter API - Access Token Key.
-  private Label wAccessTokenKeyLabel;
-  private Text wAccessTokenKeyField;
+  // Until.
+  private Label wUntilLabel;
+  private Text wUntilField;
 
-  // Twitter API - Access Token Secret.
-  private Label wAccessTokenSecretLabel;
-  private Text wAccessTokenSecretField;
+  // Geocode.
+  private Label wGeocodeLabel;
+  private Text wGeocodeField;
+
+  // Windows.
+  private Label wWindowsLabel;
+  private Text wWindowsField;
+
+  // Concurrent Queries.
+  private Label wConcurrencyLabel;
+  private Text wConcurrencyField;
+
+  // Preserve Input Order.
+  private Label wPreserveOrderLabel;
+  private Button wPreserveOrderField;
+
+  // Page Size.
+  private Label wPageSizeLabel;
+  private Text wPageSizeField;
+
+  // Max Pages.
+  private Label wMaxPagesLabel;
+  private Text wMaxPagesField;
+
+  // Max Tweets per Query.
+  private Label wMaxTweetsLabel;
+  private Text wMaxTweetsField;
+
+  // Top Tweets.
+  private Label wTopTweetsLabel;
+  private Text wTopTweetsField;
+
+  // Rank Field.
+  private Label wRankLabel;
+  private CCombo wRankField;
+
+  // Sampling.
+  private Label wSampleLabel;
+  private CCombo wSampleField;
+
+  // Sample Size.
+  private Label wSampleSizeLabel;
+  private Text wSampleSizeField;
+
+  // Sample Rate.
+  private Label wSampleRateLabel;
+  private Text wSampleRateField;
+
+  // Sample Whole Run.
+  private Label wSampleRunLabel;
+  private Button wSampleRunField;
+
+  // Sample Seed.
+  private Label wSampleSeedLabel;
+  private Text wSampleSeedField;
+
+  // Max Tweet Age.
+  private Label wMaxAgeLabel;
+  private Text wMaxAgeField;
+
+  // Checkpoint File.
+  private Label wCheckpointFileLabel;
+  private Text wCheckpointFileField;
+
+  // Journal File.
+  private Label wJournalFileLabel;
+  private Text wJournalFileField;
+
+  // Cache Size.
+  private Label wCacheSizeLabel;
+  private Text wCacheSizeField;
+
+  // Cache Time to Live.
+  private Label wCacheTtlLabel;
+  private Text wCacheTtlField;
+
+  // Cache Directory.
+  private Label wCacheDirectoryLabel;
+  private Text wCacheDirectoryField;
+
+  // Duplicate Tweets.
+  private Label wDedupLabel;
+  private CCombo wDedupField;
+
+  // Expected Tweets.
+  private Label wDedupExpectedLabel;
+  private Text wDedupExpectedField;
+
+  // Coalesce.
+  private Label wCoalesceLabel;
+  private Button wCoalesceField;
+
+  // Max Query Length.
+  private Label wMaxQueryLengthLabel;
+  private Text wMaxQueryLengthField;
+
+  // Stream - Mode.
+  private Label wStreamModeLabel;
+  private Button wStreamModeField;
+
+  // Stream - Track.
+  private Label wTrackLabel;
+  private Text wTrackField;
+
+  // Stream - Follow.
+  private Label wFollowLabel;
+  private Text wFollowField;
+
+  // Stream - Locations.
+  private Label wLocationsLabel;
+  private Text wLocationsField;
+
+  // Stream - Base URL.
+  private Label wStreamBaseUrlLabel;
+  private Text wStreamBaseUrlField;
+
+  // Stream - Queue Size.
+  private Label wStreamQueueSizeLabel;
+  private Text wStreamQueueSizeField;
+
+  // Stream - Overflow.
+  private Label wOverflowLabel;
+  private CCombo wOverflowField;
+
+  // Stream - Spill Directory.
+  private Label wSpillDirectoryLabel;
+  private Text wSpillDirectoryField;
+
+  // Twitter API - Credential Dispatch.
+  private Label wCredentialDispatchLabel;
+  private CCombo wCredentialDispatchField;
+
+  // Twitter API - Search API.
+  private Label wSearchApiLabel;
+  private CCombo wSearchApiField;
+
+  // Twitter API - Base URL.
+  private Label wBaseUrlLabel;
+  private Text wBaseUrlField;
+
+  // Connection - Keep alive.
+  private Label wKeepAliveLabel;
+  private Button wKeepAliveField;
+
+  // Connection - Gzip.
+  private Label wGzipLabel;
+  private Button wGzipField;
+
+  // Connection - Connect timeout.
+  private Label wConnectTimeoutLabel;
+  private Text wConnectTimeoutField;
+
+  // Connection - Read timeout.
+  private Label wReadTimeoutLabel;
+  private Text wReadTimeoutField;
+
+  // Connection - Debug.
+  private Label wDebugLabel;
+  private Button wDebugField;
+
+  // Retries - Max retries.
+  private Label wMaxRetriesLabel;
+  private Text wMaxRetriesField;
+
+  // Retries - Initial delay.
+  private Label wRetryDelayLabel;
+  private Text wRetryDelayField;
+
+  // Retries - Max delay.
+  private Label wMaxRetryDelayLabel;
+  private Text wMaxRetryDelayField;
+
+  // Circuit breaker - Failure threshold.
+  private Label wBreakerThresholdLabel;
+  private Text wBreakerThresholdField;
+
+  // Circuit breaker - Pause.
+  private Label wBreakerPauseLabel;
+  private Text wBreakerPauseField;
+
+  // Quota - Shared directory.
+  private Label wQuotaDirectoryLabel;
+  private Text wQuotaDirectoryField;
+
+  // Metrics - Log interval.
+  private Label wMetricsIntervalLabel;
+  private Text wMetricsIntervalField;
+
+  // Metrics - JMX.
+  private Label wJmxLabel;
+  private Button wJmxField;
+
+  // Twitter API - Credentials.
+  private Label wCredentialsLabel;
+  private TableView wCredentialsField;
 
   // Tweet Date.
   private Label wDateLabel;
@@ -116,6 +318,42 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
   private Label wTweetLabel;
   private Text wTweetField;
 
+  // Aggregate.
+  private Label wAggregateLabel;
+  private Button wAggregateField;
+
+  // Tweet Count.
+  private Label wTweetCountLabel;
+  private Text wTweetCountField;
+
+  // First Tweet Date.
+  private Label wFirstTweetDateLabel;
+  private Text wFirstTweetDateField;
+
+  // Last Tweet Date.
+  private Label wLastTweetDateLabel;
+  private Text wLastTweetDateField;
+
+  // Tweets.
+  private Label wTweetsLabel;
+  private Text wTweetsField;
+
+  // Hashtag Step.
+  private Label wHashtagStepLabel;
+  private CCombo wHashtagStepField;
+
+  // Mention Step.
+  private Label wMentionStepLabel;
+  private CCombo wMentionStepField;
+
+  // URL Step.
+  private Label wUrlStepLabel;
+  private CCombo wUrlStepField;
+
+  // Additional Fields.
+  private Label wAdditionalFieldsLabel;
+  private TableView wAdditionalFieldsField;
+
   // Footer Buttons
   private Button wCancel;
   private Button wOK;
@@ -308,9 +546,689 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
       .result();
     wOnlyVerifiedUsersField.setLayoutData( fdTransformation14 );
 
+    // Exclude Retweets label/field
+    wExcludeRetweetsLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wExcludeRetweetsLabel );
+    wExcludeRetweetsLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.ExcludeRetweets.Label" ) );
+    FormData fdlTransformation39 = new FormDataBuilder().left()
+      .top( wOnlyVerifiedUsersField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wExcludeRetweetsLabel.setLayoutData( fdlTransformation39 );
+
+    wExcludeRetweetsField = new Button( wQueryComp, SWT.CHECK );
+    props.setLook( wExcludeRetweetsField );
+    wExcludeRetweetsField.addSelectionListener( lsSelMod );
+    FormData fdTransformation39 = new FormDataBuilder().left( middle, 0 )
+      .top( wOnlyVerifiedUsersField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wExcludeRetweetsField.setLayoutData( fdTransformation39 );
+
+    // Exclude Replies label/field
+    wExcludeRepliesLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wExcludeRepliesLabel );
+    wExcludeRepliesLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.ExcludeReplies.Label" ) );
+    FormData fdlTransformation40 = new FormDataBuilder().left()
+      .top( wExcludeRetweetsField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wExcludeRepliesLabel.setLayoutData( fdlTransformation40 );
+
+    wExcludeRepliesField = new Button( wQueryComp, SWT.CHECK );
+    props.setLook( wExcludeRepliesField );
+    wExcludeRepliesField.addSelectionListener( lsSelMod );
+    FormData fdTransformation40 = new FormDataBuilder().left( middle, 0 )
+      .top( wExcludeRetweetsField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wExcludeRepliesField.setLayoutData( fdTransformation40 );
+
+    // Until label/field
+    wUntilLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wUntilLabel );
+    wUntilLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Until.Label" ) );
+    FormData fdlTransformation41 = new FormDataBuilder().left()
+      .top( wExcludeRepliesField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wUntilLabel.setLayoutData( fdlTransformation41 );
+
+    wUntilField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wUntilField );
+    wUntilField.addModifyListener( lsMod );
+    FormData fdTransformation41 = new FormDataBuilder().left( middle, 0 )
+      .top( wExcludeRepliesField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wUntilField.setLayoutData( fdTransformation41 );
+
+    // Geocode label/field
+    wGeocodeLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wGeocodeLabel );
+    wGeocodeLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Geocode.Label" ) );
+    FormData fdlTransformation42 = new FormDataBuilder().left()
+      .top( wUntilField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wGeocodeLabel.setLayoutData( fdlTransformation42 );
+
+    wGeocodeField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wGeocodeField );
+    wGeocodeField.addModifyListener( lsMod );
+    FormData fdTransformation42 = new FormDataBuilder().left( middle, 0 )
+      .top( wUntilField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wGeocodeField.setLayoutData( fdTransformation42 );
+
+    // Windows label/field
+    wWindowsLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wWindowsLabel );
+    wWindowsLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Windows.Label" ) );
+    FormData fdlTransformation56 = new FormDataBuilder().left()
+      .top( wGeocodeField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wWindowsLabel.setLayoutData( fdlTransformation56 );
+
+    wWindowsField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wWindowsField );
+    wWindowsField.addModifyListener( lsMod );
+    FormData fdTransformation56 = new FormDataBuilder().left( middle, 0 )
+      .top( wGeocodeField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wWindowsField.setLayoutData( fdTransformation56 );
+
+    // Concurrent Queries label/field
+    wConcurrencyLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wConcurrencyLabel );
+    wConcurrencyLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Concurrency.Label" ) );
+    FormData fdlTransformation15 = new FormDataBuilder().left()
+      .top( wWindowsField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wConcurrencyLabel.setLayoutData( fdlTransformation15 );
+
+    wConcurrencyField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wConcurrencyField );
+    wConcurrencyField.addModifyListener( lsMod );
+    FormData fdTransformation15 = new FormDataBuilder().left( middle, 0 )
+      .top( wWindowsField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wConcurrencyField.setLayoutData( fdTransformation15 );
+
+    // Preserve Input Order label/field
+    wPreserveOrderLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wPreserveOrderLabel );
+    wPreserveOrderLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.PreserveOrder.Label" ) );
+    FormData fdlTransformation16 = new FormDataBuilder().left()
+      .top( wConcurrencyField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wPreserveOrderLabel.setLayoutData( fdlTransformation16 );
+
+    wPreserveOrderField = new Button( wQueryComp, SWT.CHECK );
+    props.setLook( wPreserveOrderField );
+    wPreserveOrderField.addSelectionListener( lsSelMod );
+    FormData fdTransformation16 = new FormDataBuilder().left( middle, 0 )
+      .top( wConcurrencyField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wPreserveOrderField.setLayoutData( fdTransformation16 );
+
+    // Page Size label/field
+    wPageSizeLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wPageSizeLabel );
+    wPageSizeLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.PageSize.Label" ) );
+    FormData fdlTransformation17 = new FormDataBuilder().left()
+      .top( wPreserveOrderField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wPageSizeLabel.setLayoutData( fdlTransformation17 );
+
+    wPageSizeField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wPageSizeField );
+    wPageSizeField.addModifyListener( lsMod );
+    FormData fdTransformation17 = new FormDataBuilder().left( middle, 0 )
+      .top( wPreserveOrderField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wPageSizeField.setLayoutData( fdTransformation17 );
+
+    // Max Pages label/field
+    wMaxPagesLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wMaxPagesLabel );
+    wMaxPagesLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.MaxPages.Label" ) );
+    FormData fdlTransformation18 = new FormDataBuilder().left()
+      .top( wPageSizeField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wMaxPagesLabel.setLayoutData( fdlTransformation18 );
+
+    wMaxPagesField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wMaxPagesField );
+    wMaxPagesField.addModifyListener( lsMod );
+    FormData fdTransformation18 = new FormDataBuilder().left( middle, 0 )
+      .top( wPageSizeField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wMaxPagesField.setLayoutData( fdTransformation18 );
+
+    // Max Tweets per Query label/field
+    wMaxTweetsLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wMaxTweetsLabel );
+    wMaxTweetsLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.MaxTweets.Label" ) );
+    FormData fdlTransformation19 = new FormDataBuilder().left()
+      .top( wMaxPagesField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wMaxTweetsLabel.setLayoutData( fdlTransformation19 );
+
+    wMaxTweetsField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wMaxTweetsField );
+    wMaxTweetsField.addModifyListener( lsMod );
+    FormData fdTransformation19 = new FormDataBuilder().left( middle, 0 )
+      .top( wMaxPagesField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wMaxTweetsField.setLayoutData( fdTransformation19 );
+
+    // Top Tweets label/field
+    wTopTweetsLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wTopTweetsLabel );
+    wTopTweetsLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.TopTweets.Label" ) );
+    FormData fdlTransformation66 = new FormDataBuilder().left()
+      .top( wMaxTweetsField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wTopTweetsLabel.setLayoutData( fdlTransformation66 );
+
+    wTopTweetsField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wTopTweetsField );
+    wTopTweetsField.addModifyListener( lsMod );
+    FormData fdTransformation66 = new FormDataBuilder().left( middle, 0 )
+      .top( wMaxTweetsField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wTopTweetsField.setLayoutData( fdTransformation66 );
+
+    // Rank Field label/field
+    wRankLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wRankLabel );
+    wRankLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.RankField.Label" ) );
+    FormData fdlTransformation67 = new FormDataBuilder().left()
+      .top( wTopTweetsField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wRankLabel.setLayoutData( fdlTransformation67 );
+
+    wRankField = new CCombo( wQueryComp, SWT.BORDER );
+    props.setLook( wRankField );
+    wRankField.addModifyListener( lsMod );
+    FormData fdTransformation67 = new FormDataBuilder().left( middle, 0 )
+      .top( wTopTweetsField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wRankField.setLayoutData( fdTransformation67 );
+
+    // Sampling label/field
+    wSampleLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wSampleLabel );
+    wSampleLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Sample.Label" ) );
+    FormData fdlTransformation68 = new FormDataBuilder().left()
+      .top( wRankField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wSampleLabel.setLayoutData( fdlTransformation68 );
+
+    wSampleField = new CCombo( wQueryComp, SWT.BORDER );
+    props.setLook( wSampleField );
+    wSampleField.addModifyListener( lsMod );
+    FormData fdTransformation68 = new FormDataBuilder().left( middle, 0 )
+      .top( wRankField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wSampleField.setLayoutData( fdTransformation68 );
+
+    // Sample Size label/field
+    wSampleSizeLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wSampleSizeLabel );
+    wSampleSizeLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.SampleSize.Label" ) );
+    FormData fdlTransformation69 = new FormDataBuilder().left()
+      .top( wSampleField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wSampleSizeLabel.setLayoutData( fdlTransformation69 );
+
+    wSampleSizeField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wSampleSizeField );
+    wSampleSizeField.addModifyListener( lsMod );
+    FormData fdTransformation69 = new FormDataBuilder().left( middle, 0 )
+      .top( wSampleField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wSampleSizeField.setLayoutData( fdTransformation69 );
+
+    // Sample Rate label/field
+    wSampleRateLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wSampleRateLabel );
+    wSampleRateLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.SampleRate.Label" ) );
+    FormData fdlTransformation70 = new FormDataBuilder().left()
+      .top( wSampleSizeField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wSampleRateLabel.setLayoutData( fdlTransformation70 );
+
+    wSampleRateField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wSampleRateField );
+    wSampleRateField.addModifyListener( lsMod );
+    FormData fdTransformation70 = new FormDataBuilder().left( middle, 0 )
+      .top( wSampleSizeField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wSampleRateField.setLayoutData( fdTransformation70 );
+
+    // Sample Whole Run label/field
+    wSampleRunLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wSampleRunLabel );
+    wSampleRunLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.SampleRun.Label" ) );
+    FormData fdlTransformation71 = new FormDataBuilder().left()
+      .top( wSampleRateField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wSampleRunLabel.setLayoutData( fdlTransformation71 );
+
+    wSampleRunField = new Button( wQueryComp, SWT.CHECK );
+    props.setLook( wSampleRunField );
+    wSampleRunField.addSelectionListener( lsSelMod );
+    FormData fdTransformation71 = new FormDataBuilder().left( middle, 0 )
+      .top( wSampleRateField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wSampleRunField.setLayoutData( fdTransformation71 );
+
+    // Sample Seed label/field
+    wSampleSeedLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wSampleSeedLabel );
+    wSampleSeedLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.SampleSeed.Label" ) );
+    FormData fdlTransformation72 = new FormDataBuilder().left()
+      .top( wSampleRunField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wSampleSeedLabel.setLayoutData( fdlTransformation72 );
+
+    wSampleSeedField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wSampleSeedField );
+    wSampleSeedField.addModifyListener( lsMod );
+    FormData fdTransformation72 = new FormDataBuilder().left( middle, 0 )
+      .top( wSampleRunField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wSampleSeedField.setLayoutData( fdTransformation72 );
+
+    // Max Tweet Age label/field
+    wMaxAgeLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wMaxAgeLabel );
+    wMaxAgeLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.MaxAge.Label" ) );
+    FormData fdlTransformation20 = new FormDataBuilder().left()
+      .top( wSampleSeedField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wMaxAgeLabel.setLayoutData( fdlTransformation20 );
+
+    wMaxAgeField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wMaxAgeField );
+    wMaxAgeField.addModifyListener( lsMod );
+    FormData fdTransformation20 = new FormDataBuilder().left( middle, 0 )
+      .top( wSampleSeedField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wMaxAgeField.setLayoutData( fdTransformation20 );
+
+    // Checkpoint File label/field
+    wCheckpointFileLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wCheckpointFileLabel );
+    wCheckpointFileLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.CheckpointFile.Label" ) );
+    FormData fdlTransformation21 = new FormDataBuilder().left()
+      .top( wMaxAgeField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wCheckpointFileLabel.setLayoutData( fdlTransformation21 );
+
+    wCheckpointFileField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wCheckpointFileField );
+    wCheckpointFileField.addModifyListener( lsMod );
+    FormData fdTransformation21 = new FormDataBuilder().left( middle, 0 )
+      .top( wMaxAgeField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wCheckpointFileField.setLayoutData( fdTransformation21 );
+
+    // Journal File label/field
+    wJournalFileLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wJournalFileLabel );
+    wJournalFileLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.JournalFile.Label" ) );
+    FormData fdlTransformation57 = new FormDataBuilder().left()
+      .top( wCheckpointFileField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wJournalFileLabel.setLayoutData( fdlTransformation57 );
+
+    wJournalFileField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wJournalFileField );
+    wJournalFileField.addModifyListener( lsMod );
+    FormData fdTransformation57 = new FormDataBuilder().left( middle, 0 )
+      .top( wCheckpointFileField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wJournalFileField.setLayoutData( fdTransformation57 );
+
+    // Cache Size label/field
+    wCacheSizeLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wCacheSizeLabel );
+    wCacheSizeLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.CacheSize.Label" ) );
+    FormData fdlTransformation22 = new FormDataBuilder().left()
+      .top( wJournalFileField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wCacheSizeLabel.setLayoutData( fdlTransformation22 );
+
+    wCacheSizeField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wCacheSizeField );
+    wCacheSizeField.addModifyListener( lsMod );
+    FormData fdTransformation22 = new FormDataBuilder().left( middle, 0 )
+      .top( wJournalFileField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wCacheSizeField.setLayoutData( fdTransformation22 );
+
+    // Cache Time to Live label/field
+    wCacheTtlLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wCacheTtlLabel );
+    wCacheTtlLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.CacheTtl.Label" ) );
+    FormData fdlTransformation23 = new FormDataBuilder().left()
+      .top( wCacheSizeField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wCacheTtlLabel.setLayoutData( fdlTransformation23 );
+
+    wCacheTtlField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wCacheTtlField );
+    wCacheTtlField.addModifyListener( lsMod );
+    FormData fdTransformation23 = new FormDataBuilder().left( middle, 0 )
+      .top( wCacheSizeField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wCacheTtlField.setLayoutData( fdTransformation23 );
+
+    // Cache Directory label/field
+    wCacheDirectoryLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wCacheDirectoryLabel );
+    wCacheDirectoryLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.CacheDirectory.Label" ) );
+    FormData fdlTransformation24 = new FormDataBuilder().left()
+      .top( wCacheTtlField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wCacheDirectoryLabel.setLayoutData( fdlTransformation24 );
+
+    wCacheDirectoryField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wCacheDirectoryField );
+    wCacheDirectoryField.addModifyListener( lsMod );
+    FormData fdTransformation24 = new FormDataBuilder().left( middle, 0 )
+      .top( wCacheTtlField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wCacheDirectoryField.setLayoutData( fdTransformation24 );
+
+    // Duplicate Tweets label/field
+    wDedupLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wDedupLabel );
+    wDedupLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Dedup.Label" ) );
+    FormData fdlTransformation25 = new FormDataBuilder().left()
+      .top( wCacheDirectoryField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wDedupLabel.setLayoutData( fdlTransformation25 );
+
+    wDedupField = new CCombo( wQueryComp, SWT.BORDER );
+    props.setLook( wDedupField );
+    wDedupField.addModifyListener( lsMod );
+    FormData fdTransformation25 = new FormDataBuilder().left( middle, 0 )
+      .top( wCacheDirectoryField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wDedupField.setLayoutData( fdTransformation25 );
+
+    // Expected Tweets label/field
+    wDedupExpectedLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wDedupExpectedLabel );
+    wDedupExpectedLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.DedupExpected.Label" ) );
+    FormData fdlTransformation26 = new FormDataBuilder().left()
+      .top( wDedupField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wDedupExpectedLabel.setLayoutData( fdlTransformation26 );
+
+    wDedupExpectedField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wDedupExpectedField );
+    wDedupExpectedField.addModifyListener( lsMod );
+    FormData fdTransformation26 = new FormDataBuilder().left( middle, 0 )
+      .top( wDedupField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wDedupExpectedField.setLayoutData( fdTransformation26 );
+
+    // Coalesce label/field
+    wCoalesceLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wCoalesceLabel );
+    wCoalesceLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Coalesce.Label" ) );
+    FormData fdlTransformation37 = new FormDataBuilder().left()
+      .top( wDedupExpectedField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wCoalesceLabel.setLayoutData( fdlTransformation37 );
+
+    wCoalesceField = new Button( wQueryComp, SWT.CHECK );
+    props.setLook( wCoalesceField );
+    wCoalesceField.addSelectionListener( lsSelMod );
+    wCoalesceField.setToolTipText( BaseMessages.getString( PKG, "TwitterSearchDialog.Coalesce.Tooltip" ) );
+    FormData fdTransformation37 = new FormDataBuilder().left( middle, 0 )
+      .top( wDedupExpectedField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wCoalesceField.setLayoutData( fdTransformation37 );
+
+    // Max Query Length label/field
+    wMaxQueryLengthLabel = new Label( wQueryComp, SWT.RIGHT );
+    props.setLook( wMaxQueryLengthLabel );
+    wMaxQueryLengthLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.MaxQueryLength.Label" ) );
+    FormData fdlTransformation38 = new FormDataBuilder().left()
+      .top( wCoalesceField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wMaxQueryLengthLabel.setLayoutData( fdlTransformation38 );
+
+    wMaxQueryLengthField = new Text( wQueryComp, SWT.BORDER );
+    props.setLook( wMaxQueryLengthField );
+    wMaxQueryLengthField.addModifyListener( lsMod );
+    FormData fdTransformation38 = new FormDataBuilder().left( middle, 0 )
+      .top( wCoalesceField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wMaxQueryLengthField.setLayoutData( fdTransformation38 );
+
     wQueryComp.layout();
     wQueryTab.setControl( wQueryComp );
 
+    // Start of Stream Tab.
+    wStreamTab = new CTabItem( wTabFolder, SWT.NONE );
+    wStreamTab.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Stream.Label" ) );
+    wStreamComp = new Composite( wTabFolder, SWT.NONE );
+    props.setLook( wStreamComp );
+
+    tabLayout = new FormLayout();
+    tabLayout.marginWidth = ELEMENT_SPACING;
+    tabLayout.marginHeight = ELEMENT_SPACING;
+    wStreamComp.setLayout( tabLayout );
+
+    // Stream Mode label/field
+    wStreamModeLabel = new Label( wStreamComp, SWT.RIGHT );
+    props.setLook( wStreamModeLabel );
+    wStreamModeLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.StreamMode.Label" ) );
+    FormData fdlTransformation29 = new FormDataBuilder().left()
+      .top( wStreamComp, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wStreamModeLabel.setLayoutData( fdlTransformation29 );
+
+    wStreamModeField = new Button( wStreamComp, SWT.CHECK );
+    props.setLook( wStreamModeField );
+    wStreamModeField.addSelectionListener( lsSelMod );
+    FormData fdTransformation29 = new FormDataBuilder().left( middle, 0 )
+      .top( wStreamComp, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wStreamModeField.setLayoutData( fdTransformation29 );
+
+    // Stream - Track label/field
+    wTrackLabel = new Label( wStreamComp, SWT.RIGHT );
+    props.setLook( wTrackLabel );
+    wTrackLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Track.Label" ) );
+    FormData fdlTransformation30 = new FormDataBuilder().left()
+      .top( wStreamModeField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wTrackLabel.setLayoutData( fdlTransformation30 );
+
+    wTrackField = new Text( wStreamComp, SWT.BORDER );
+    props.setLook( wTrackField );
+    wTrackField.addModifyListener( lsMod );
+    FormData fdTransformation30 = new FormDataBuilder().left( middle, 0 )
+      .top( wStreamModeField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wTrackField.setLayoutData( fdTransformation30 );
+
+    // Stream - Follow label/field
+    wFollowLabel = new Label( wStreamComp, SWT.RIGHT );
+    props.setLook( wFollowLabel );
+    wFollowLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Follow.Label" ) );
+    FormData fdlTransformation31 = new FormDataBuilder().left()
+      .top( wTrackField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wFollowLabel.setLayoutData( fdlTransformation31 );
+
+    wFollowField = new Text( wStreamComp, SWT.BORDER );
+    props.setLook( wFollowField );
+    wFollowField.addModifyListener( lsMod );
+    FormData fdTransformation31 = new FormDataBuilder().left( middle, 0 )
+      .top( wTrackField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wFollowField.setLayoutData( fdTransformation31 );
+
+    // Stream - Locations label/field
+    wLocationsLabel = new Label( wStreamComp, SWT.RIGHT );
+    props.setLook( wLocationsLabel );
+    wLocationsLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Locations.Label" ) );
+    FormData fdlTransformation32 = new FormDataBuilder().left()
+      .top( wFollowField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wLocationsLabel.setLayoutData( fdlTransformation32 );
+
+    wLocationsField = new Text( wStreamComp, SWT.BORDER );
+    props.setLook( wLocationsField );
+    wLocationsField.addModifyListener( lsMod );
+    FormData fdTransformation32 = new FormDataBuilder().left( middle, 0 )
+      .top( wFollowField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wLocationsField.setLayoutData( fdTransformation32 );
+
+    // Stream - Base URL label/field
+    wStreamBaseUrlLabel = new Label( wStreamComp, SWT.RIGHT );
+    props.setLook( wStreamBaseUrlLabel );
+    wStreamBaseUrlLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.StreamBaseUrl.Label" ) );
+    FormData fdlTransformation33 = new FormDataBuilder().left()
+      .top( wLocationsField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wStreamBaseUrlLabel.setLayoutData( fdlTransformation33 );
+
+    wStreamBaseUrlField = new Text( wStreamComp, SWT.BORDER );
+    props.setLook( wStreamBaseUrlField );
+    wStreamBaseUrlField.addModifyListener( lsMod );
+    FormData fdTransformation33 = new FormDataBuilder().left( middle, 0 )
+      .top( wLocationsField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wStreamBaseUrlField.setLayoutData( fdTransformation33 );
+
+    // Stream - Queue Size label/field
+    wStreamQueueSizeLabel = new Label( wStreamComp, SWT.RIGHT );
+    props.setLook( wStreamQueueSizeLabel );
+    wStreamQueueSizeLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.StreamQueueSize.Label" ) );
+    FormData fdlTransformation34 = new FormDataBuilder().left()
+      .top( wStreamBaseUrlField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wStreamQueueSizeLabel.setLayoutData( fdlTransformation34 );
+
+    wStreamQueueSizeField = new Text( wStreamComp, SWT.BORDER );
+    props.setLook( wStreamQueueSizeField );
+    wStreamQueueSizeField.addModifyListener( lsMod );
+    FormData fdTransformation34 = new FormDataBuilder().left( middle, 0 )
+      .top( wStreamBaseUrlField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wStreamQueueSizeField.setLayoutData( fdTransformation34 );
+
+    // Stream - Overflow label/field
+    wOverflowLabel = new Label( wStreamComp, SWT.RIGHT );
+    props.setLook( wOverflowLabel );
+    wOverflowLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Overflow.Label" ) );
+    FormData fdlTransformation35 = new FormDataBuilder().left()
+      .top( wStreamQueueSizeField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wOverflowLabel.setLayoutData( fdlTransformation35 );
+
+    wOverflowField = new CCombo( wStreamComp, SWT.BORDER );
+    props.setLook( wOverflowField );
+    wOverflowField.addModifyListener( lsMod );
+    FormData fdTransformation35 = new FormDataBuilder().left( middle, 0 )
+      .top( wStreamQueueSizeField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wOverflowField.setLayoutData( fdTransformation35 );
+
+    // Stream - Spill Directory label/field
+    wSpillDirectoryLabel = new Label( wStreamComp, SWT.RIGHT );
+    props.setLook( wSpillDirectoryLabel );
+    wSpillDirectoryLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.SpillDirectory.Label" ) );
+    FormData fdlTransformation36 = new FormDataBuilder().left()
+      .top( wOverflowField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wSpillDirectoryLabel.setLayoutData( fdlTransformation36 );
+
+    wSpillDirectoryField = new Text( wStreamComp, SWT.BORDER );
+    props.setLook( wSpillDirectoryField );
+    wSpillDirectoryField.addModifyListener( lsMod );
+    FormData fdTransformation36 = new FormDataBuilder().left( middle, 0 )
+      .top( wOverflowField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wSpillDirectoryField.setLayoutData( fdTransformation36 );
+
+    wStreamComp.layout();
+    wStreamTab.setControl( wStreamComp );
+
     // Start of Authentication Tab.
     wAuthTab = new CTabItem( wTabFolder, SWT.NONE );
     wAuthTab.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Authentication.Label" ) );
@@ -322,81 +1240,336 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
     tabLayout.marginHeight = ELEMENT_SPACING;
     wAuthComp.setLayout( tabLayout );
 
-    // Consumer Key label/field
-    wConsumerKeyLabel = new Label( wAuthComp, SWT.RIGHT );
-    props.setLook( wConsumerKeyLabel );
-    wConsumerKeyLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.ConsumerKey.Label" ) );
+    // Credential Dispatch label/field
+    wCredentialDispatchLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wCredentialDispatchLabel );
+    wCredentialDispatchLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.CredentialDispatch.Label" ) );
     FormData fdlTransformation = new FormDataBuilder().left()
       .top()
       .right( middle, -ELEMENT_SPACING )
       .result();
-    wConsumerKeyLabel.setLayoutData( fdlTransformation );
+    wCredentialDispatchLabel.setLayoutData( fdlTransformation );
 
-    wConsumerKeyField = new Text( wAuthComp, SWT.BORDER );
-    props.setLook( wConsumerKeyField );
-    wConsumerKeyField.addModifyListener( lsMod );
+    wCredentialDispatchField = new CCombo( wAuthComp, SWT.BORDER );
+    props.setLook( wCredentialDispatchField );
+    wCredentialDispatchField.addModifyListener( lsMod );
     FormData fdTransformation = new FormDataBuilder().left( middle, 0 )
       .top()
       .right( 100, 0 )
       .result();
-    wConsumerKeyField.setLayoutData( fdTransformation );
+    wCredentialDispatchField.setLayoutData( fdTransformation );
+
+    // Twitter API - Search API label/field
+    wSearchApiLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wSearchApiLabel );
+    wSearchApiLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.SearchApi.Label" ) );
+    FormData fdlTransformation27 = new FormDataBuilder().left()
+      .top( wCredentialDispatchField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wSearchApiLabel.setLayoutData( fdlTransformation27 );
+
+    wSearchApiField = new CCombo( wAuthComp, SWT.BORDER );
+    props.setLook( wSearchApiField );
+    wSearchApiField.addModifyListener( lsMod );
+    FormData fdTransformation27 = new FormDataBuilder().left( middle, 0 )
+      .top( wCredentialDispatchField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wSearchApiField.setLayoutData( fdTransformation27 );
+
+    // Twitter API - Base URL label/field
+    wBaseUrlLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wBaseUrlLabel );
+    wBaseUrlLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.BaseUrl.Label" ) );
+    FormData fdlTransformation28 = new FormDataBuilder().left()
+      .top( wSearchApiField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wBaseUrlLabel.setLayoutData( fdlTransformation28 );
 
-    // Consumer Secret label/field
-    wConsumerSecretLabel = new Label( wAuthComp, SWT.RIGHT );
-    props.setLook( wConsumerSecretLabel );
-    wConsumerSecretLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.ConsumerSecret.Label" ) );
-    FormData fdlTransformation2 = new FormDataBuilder().left()
-      .top( wConsumerKeyField, ELEMENT_SPACING )
+    wBaseUrlField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wBaseUrlField );
+    wBaseUrlField.addModifyListener( lsMod );
+    FormData fdTransformation28 = new FormDataBuilder().left( middle, 0 )
+      .top( wSearchApiField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wBaseUrlField.setLayoutData( fdTransformation28 );
+
+    // Connection - Keep alive label/field
+    wKeepAliveLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wKeepAliveLabel );
+    wKeepAliveLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.KeepAlive.Label" ) );
+    FormData fdlTransformation48 = new FormDataBuilder().left()
+      .top( wBaseUrlField, ELEMENT_SPACING )
       .right( middle, -ELEMENT_SPACING )
       .result();
-    wConsumerSecretLabel.setLayoutData( fdlTransformation2 );
+    wKeepAliveLabel.setLayoutData( fdlTransformation48 );
 
-    wConsumerSecretField = new Text( wAuthComp, SWT.BORDER );
-    props.setLook( wConsumerSecretField );
-    wConsumerSecretField.addModifyListener( lsMod );
-    FormData fdTransformation2 = new FormDataBuilder().left( middle, 0 )
-      .top( wConsumerKeyField, ELEMENT_SPACING )
+    wKeepAliveField = new Button( wAuthComp, SWT.CHECK );
+    props.setLook( wKeepAliveField );
+    wKeepAliveField.addSelectionListener( lsSelMod );
+    FormData fdTransformation48 = new FormDataBuilder().left( middle, 0 )
+      .top( wBaseUrlField, ELEMENT_SPACING )
       .right( 100, 0 )
       .result();
-    wConsumerSecretField.setLayoutData( fdTransformation2 );
+    wKeepAliveField.setLayoutData( fdTransformation48 );
+
+    // Connection - Gzip label/field
+    wGzipLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wGzipLabel );
+    wGzipLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Gzip.Label" ) );
+    FormData fdlTransformation49 = new FormDataBuilder().left()
+      .top( wKeepAliveField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wGzipLabel.setLayoutData( fdlTransformation49 );
 
-    // Access Token Key label/field
-    wAccessTokenKeyLabel = new Label( wAuthComp, SWT.RIGHT );
-    props.setLook( wAccessTokenKeyLabel );
-    wAccessTokenKeyLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.AccessTokenKey.Label" ) );
-    FormData fdlTransformation3 = new FormDataBuilder().left()
-      .top( wConsumerSecretField, ELEMENT_SPACING )
+    wGzipField = new Button( wAuthComp, SWT.CHECK );
+    props.setLook( wGzipField );
+    wGzipField.addSelectionListener( lsSelMod );
+    FormData fdTransformation49 = new FormDataBuilder().left( middle, 0 )
+      .top( wKeepAliveField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wGzipField.setLayoutData( fdTransformation49 );
+
+    // Connection - Connect timeout label/field
+    wConnectTimeoutLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wConnectTimeoutLabel );
+    wConnectTimeoutLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.ConnectTimeout.Label" ) );
+    FormData fdlTransformation50 = new FormDataBuilder().left()
+      .top( wGzipField, ELEMENT_SPACING )
       .right( middle, -ELEMENT_SPACING )
       .result();
-    wAccessTokenKeyLabel.setLayoutData( fdlTransformation3 );
+    wConnectTimeoutLabel.setLayoutData( fdlTransformation50 );
 
-    wAccessTokenKeyField = new Text( wAuthComp, SWT.BORDER );
-    props.setLook( wAccessTokenKeyField );
-    wAccessTokenKeyField.addModifyListener( lsMod );
-    FormData fdTransformation3 = new FormDataBuilder().left( middle, 0 )
-      .top( wConsumerSecretField, ELEMENT_SPACING )
+    wConnectTimeoutField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wConnectTimeoutField );
+    wConnectTimeoutField.addModifyListener( lsMod );
+    FormData fdTransformation50 = new FormDataBuilder().left( middle, 0 )
+      .top( wGzipField, ELEMENT_SPACING )
       .right( 100, 0 )
       .result();
-    wAccessTokenKeyField.setLayoutData( fdTransformation3 );
+    wConnectTimeoutField.setLayoutData( fdTransformation50 );
+
+    // Connection - Read timeout label/field
+    wReadTimeoutLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wReadTimeoutLabel );
+    wReadTimeoutLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.ReadTimeout.Label" ) );
+    FormData fdlTransformation51 = new FormDataBuilder().left()
+      .top( wConnectTimeoutField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wReadTimeoutLabel.setLayoutData( fdlTransformation51 );
 
-    // Access Token Secret label/field
-    wAccessTokenSecretLabel = new Label( wAuthComp, SWT.RIGHT );
-    props.setLook( wAccessTokenSecretLabel );
-    wAccessTokenSecretLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.AccessTokenSecret.Label" ) );
-    FormData fdlTransformation4 = new FormDataBuilder().left()
-      .top( wAccessTokenKeyField, ELEMENT_SPACING )
+    wReadTimeoutField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wReadTimeoutField );
+    wReadTimeoutField.addModifyListener( lsMod );
+    FormData fdTransformation51 = new FormDataBuilder().left( middle, 0 )
+      .top( wConnectTimeoutField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wReadTimeoutField.setLayoutData( fdTransformation51 );
+
+    // Connection - Debug label/field
+    wDebugLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wDebugLabel );
+    wDebugLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Debug.Label" ) );
+    FormData fdlTransformation52 = new FormDataBuilder().left()
+      .top( wReadTimeoutField, ELEMENT_SPACING )
       .right( middle, -ELEMENT_SPACING )
       .result();
-    wAccessTokenSecretLabel.setLayoutData( fdlTransformation4 );
+    wDebugLabel.setLayoutData( fdlTransformation52 );
 
-    wAccessTokenSecretField = new Text( wAuthComp, SWT.BORDER );
-    props.setLook( wAccessTokenSecretField );
-    wAccessTokenSecretField.addModifyListener( lsMod );
-    FormData fdTransformation4 = new FormDataBuilder().left( middle, 0 )
-      .top( wAccessTokenKeyField, ELEMENT_SPACING )
+    wDebugField = new Button( wAuthComp, SWT.CHECK );
+    props.setLook( wDebugField );
+    wDebugField.addSelectionListener( lsSelMod );
+    FormData fdTransformation52 = new FormDataBuilder().left( middle, 0 )
+      .top( wReadTimeoutField, ELEMENT_SPACING )
       .right( 100, 0 )
       .result();
-    wAccessTokenSecretField.setLayoutData( fdTransformation4 );
+    wDebugField.setLayoutData( fdTransformation52 );
+
+    // Retries - Max retries label/field
+    wMaxRetriesLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wMaxRetriesLabel );
+    wMaxRetriesLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.MaxRetries.Label" ) );
+    FormData fdlTransformation43 = new FormDataBuilder().left()
+      .top( wDebugField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wMaxRetriesLabel.setLayoutData( fdlTransformation43 );
+
+    wMaxRetriesField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wMaxRetriesField );
+    wMaxRetriesField.addModifyListener( lsMod );
+    FormData fdTransformation43 = new FormDataBuilder().left( middle, 0 )
+      .top( wDebugField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wMaxRetriesField.setLayoutData( fdTransformation43 );
+
+    // Retries - Initial delay label/field
+    wRetryDelayLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wRetryDelayLabel );
+    wRetryDelayLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.RetryDelay.Label" ) );
+    FormData fdlTransformation44 = new FormDataBuilder().left()
+      .top( wMaxRetriesField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wRetryDelayLabel.setLayoutData( fdlTransformation44 );
+
+    wRetryDelayField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wRetryDelayField );
+    wRetryDelayField.addModifyListener( lsMod );
+    FormData fdTransformation44 = new FormDataBuilder().left( middle, 0 )
+      .top( wMaxRetriesField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wRetryDelayField.setLayoutData( fdTransformation44 );
+
+    // Retries - Max delay label/field
+    wMaxRetryDelayLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wMaxRetryDelayLabel );
+    wMaxRetryDelayLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.MaxRetryDelay.Label" ) );
+    FormData fdlTransformation45 = new FormDataBuilder().left()
+      .top( wRetryDelayField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wMaxRetryDelayLabel.setLayoutData( fdlTransformation45 );
+
+    wMaxRetryDelayField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wMaxRetryDelayField );
+    wMaxRetryDelayField.addModifyListener( lsMod );
+    FormData fdTransformation45 = new FormDataBuilder().left( middle, 0 )
+      .top( wRetryDelayField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wMaxRetryDelayField.setLayoutData( fdTransformation45 );
+
+    // Circuit breaker - Failure threshold label/field
+    wBreakerThresholdLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wBreakerThresholdLabel );
+    wBreakerThresholdLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.BreakerThreshold.Label" ) );
+    FormData fdlTransformation46 = new FormDataBuilder().left()
+      .top( wMaxRetryDelayField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wBreakerThresholdLabel.setLayoutData( fdlTransformation46 );
+
+    wBreakerThresholdField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wBreakerThresholdField );
+    wBreakerThresholdField.addModifyListener( lsMod );
+    FormData fdTransformation46 = new FormDataBuilder().left( middle, 0 )
+      .top( wMaxRetryDelayField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wBreakerThresholdField.setLayoutData( fdTransformation46 );
+
+    // Circuit breaker - Pause label/field
+    wBreakerPauseLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wBreakerPauseLabel );
+    wBreakerPauseLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.BreakerPause.Label" ) );
+    FormData fdlTransformation47 = new FormDataBuilder().left()
+      .top( wBreakerThresholdField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wBreakerPauseLabel.setLayoutData( fdlTransformation47 );
+
+    wBreakerPauseField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wBreakerPauseField );
+    wBreakerPauseField.addModifyListener( lsMod );
+    FormData fdTransformation47 = new FormDataBuilder().left( middle, 0 )
+      .top( wBreakerThresholdField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wBreakerPauseField.setLayoutData( fdTransformation47 );
+
+    // Quota - Shared directory label/field
+    wQuotaDirectoryLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wQuotaDirectoryLabel );
+    wQuotaDirectoryLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.QuotaDirectory.Label" ) );
+    FormData fdlTransformation55 = new FormDataBuilder().left()
+      .top( wBreakerPauseField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wQuotaDirectoryLabel.setLayoutData( fdlTransformation55 );
+
+    wQuotaDirectoryField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wQuotaDirectoryField );
+    wQuotaDirectoryField.addModifyListener( lsMod );
+    FormData fdTransformation55 = new FormDataBuilder().left( middle, 0 )
+      .top( wBreakerPauseField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wQuotaDirectoryField.setLayoutData( fdTransformation55 );
+
+    // Metrics - Log interval label/field
+    wMetricsIntervalLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wMetricsIntervalLabel );
+    wMetricsIntervalLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.MetricsInterval.Label" ) );
+    FormData fdlTransformation53 = new FormDataBuilder().left()
+      .top( wQuotaDirectoryField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wMetricsIntervalLabel.setLayoutData( fdlTransformation53 );
+
+    wMetricsIntervalField = new Text( wAuthComp, SWT.BORDER );
+    props.setLook( wMetricsIntervalField );
+    wMetricsIntervalField.addModifyListener( lsMod );
+    FormData fdTransformation53 = new FormDataBuilder().left( middle, 0 )
+      .top( wQuotaDirectoryField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wMetricsIntervalField.setLayoutData( fdTransformation53 );
+
+    // Metrics - JMX label/field
+    wJmxLabel = new Label( wAuthComp, SWT.RIGHT );
+    props.setLook( wJmxLabel );
+    wJmxLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Jmx.Label" ) );
+    FormData fdlTransformation54 = new FormDataBuilder().left()
+      .top( wMetricsIntervalField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wJmxLabel.setLayoutData( fdlTransformation54 );
+
+    wJmxField = new Button( wAuthComp, SWT.CHECK );
+    props.setLook( wJmxField );
+    wJmxField.addSelectionListener( lsSelMod );
+    FormData fdTransformation54 = new FormDataBuilder().left( middle, 0 )
+      .top( wMetricsIntervalField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wJmxField.setLayoutData( fdTransformation54 );
+
+    // Credentials label/table
+    wCredentialsLabel = new Label( wAuthComp, SWT.NONE );
+    props.setLook( wCredentialsLabel );
+    wCredentialsLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Credentials.Label" ) );
+    FormData fdlTransformation2 = new FormDataBuilder().left()
+      .top( wJmxField, ELEMENT_SPACING )
+      .result();
+    wCredentialsLabel.setLayoutData( fdlTransformation2 );
+
+    ColumnInfo[] credentialColumns = new ColumnInfo[] {
+      new ColumnInfo( BaseMessages.getString( PKG, "TwitterSearchDialog.ConsumerKey.Label" ),
+        ColumnInfo.COLUMN_TYPE_TEXT, false ),
+      new ColumnInfo( BaseMessages.getString( PKG, "TwitterSearchDialog.ConsumerSecret.Label" ),
+        ColumnInfo.COLUMN_TYPE_TEXT, false ),
+      new ColumnInfo( BaseMessages.getString( PKG, "TwitterSearchDialog.AccessTokenKey.Label" ),
+        ColumnInfo.COLUMN_TYPE_TEXT, false ),
+      new ColumnInfo( BaseMessages.getString( PKG, "TwitterSearchDialog.AccessTokenSecret.Label" ),
+        ColumnInfo.COLUMN_TYPE_TEXT, false ) };
+    wCredentialsField = new TableView( transMeta, wAuthComp, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI,
+      credentialColumns, meta.getCredentialsField().size(), lsMod, props );
+    FormData fdTransformation2 = new FormDataBuilder().left()
+      .top( wCredentialsLabel, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .bottom( 100, 0 )
+      .result();
+    wCredentialsField.setLayoutData( fdTransformation2 );
 
     wAuthComp.layout();
     wAuthTab.setControl( wAuthComp );
@@ -507,6 +1680,182 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
       .result();
     wTweetField.setLayoutData( fdTransformation13 );
 
+    // Aggregate label/field
+    wAggregateLabel = new Label( wOutputComp, SWT.RIGHT );
+    props.setLook( wAggregateLabel );
+    wAggregateLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Aggregate.Label" ) );
+    FormData fdlTransformation58 = new FormDataBuilder().left()
+      .top( wTweetField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wAggregateLabel.setLayoutData( fdlTransformation58 );
+
+    wAggregateField = new Button( wOutputComp, SWT.CHECK );
+    props.setLook( wAggregateField );
+    wAggregateField.addSelectionListener( lsSelMod );
+    FormData fdTransformation58 = new FormDataBuilder().left( middle, 0 )
+      .top( wTweetField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wAggregateField.setLayoutData( fdTransformation58 );
+
+    // Tweet Count label/field
+    wTweetCountLabel = new Label( wOutputComp, SWT.RIGHT );
+    props.setLook( wTweetCountLabel );
+    wTweetCountLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.TweetCount.Label" ) );
+    FormData fdlTransformation59 = new FormDataBuilder().left()
+      .top( wAggregateField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wTweetCountLabel.setLayoutData( fdlTransformation59 );
+
+    wTweetCountField = new Text( wOutputComp, SWT.BORDER );
+    props.setLook( wTweetCountField );
+    wTweetCountField.addModifyListener( lsMod );
+    FormData fdTransformation59 = new FormDataBuilder().left( middle, 0 )
+      .top( wAggregateField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wTweetCountField.setLayoutData( fdTransformation59 );
+
+    // First Tweet Date label/field
+    wFirstTweetDateLabel = new Label( wOutputComp, SWT.RIGHT );
+    props.setLook( wFirstTweetDateLabel );
+    wFirstTweetDateLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.FirstTweetDate.Label" ) );
+    FormData fdlTransformation60 = new FormDataBuilder().left()
+      .top( wTweetCountField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wFirstTweetDateLabel.setLayoutData( fdlTransformation60 );
+
+    wFirstTweetDateField = new Text( wOutputComp, SWT.BORDER );
+    props.setLook( wFirstTweetDateField );
+    wFirstTweetDateField.addModifyListener( lsMod );
+    FormData fdTransformation60 = new FormDataBuilder().left( middle, 0 )
+      .top( wTweetCountField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wFirstTweetDateField.setLayoutData( fdTransformation60 );
+
+    // Last Tweet Date label/field
+    wLastTweetDateLabel = new Label( wOutputComp, SWT.RIGHT );
+    props.setLook( wLastTweetDateLabel );
+    wLastTweetDateLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.LastTweetDate.Label" ) );
+    FormData fdlTransformation61 = new FormDataBuilder().left()
+      .top( wFirstTweetDateField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wLastTweetDateLabel.setLayoutData( fdlTransformation61 );
+
+    wLastTweetDateField = new Text( wOutputComp, SWT.BORDER );
+    props.setLook( wLastTweetDateField );
+    wLastTweetDateField.addModifyListener( lsMod );
+    FormData fdTransformation61 = new FormDataBuilder().left( middle, 0 )
+      .top( wFirstTweetDateField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wLastTweetDateField.setLayoutData( fdTransformation61 );
+
+    // Tweets label/field
+    wTweetsLabel = new Label( wOutputComp, SWT.RIGHT );
+    props.setLook( wTweetsLabel );
+    wTweetsLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.Tweets.Label" ) );
+    FormData fdlTransformation62 = new FormDataBuilder().left()
+      .top( wLastTweetDateField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wTweetsLabel.setLayoutData( fdlTransformation62 );
+
+    wTweetsField = new Text( wOutputComp, SWT.BORDER );
+    props.setLook( wTweetsField );
+    wTweetsField.addModifyListener( lsMod );
+    FormData fdTransformation62 = new FormDataBuilder().left( middle, 0 )
+      .top( wLastTweetDateField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wTweetsField.setLayoutData( fdTransformation62 );
+
+    // Hashtag Step label/field
+    wHashtagStepLabel = new Label( wOutputComp, SWT.RIGHT );
+    props.setLook( wHashtagStepLabel );
+    wHashtagStepLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.HashtagStep.Label" ) );
+    FormData fdlTransformation63 = new FormDataBuilder().left()
+      .top( wTweetsField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wHashtagStepLabel.setLayoutData( fdlTransformation63 );
+
+    wHashtagStepField = new CCombo( wOutputComp, SWT.BORDER );
+    props.setLook( wHashtagStepField );
+    wHashtagStepField.addModifyListener( lsMod );
+    FormData fdTransformation63 = new FormDataBuilder().left( middle, 0 )
+      .top( wTweetsField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wHashtagStepField.setLayoutData( fdTransformation63 );
+
+    // Mention Step label/field
+    wMentionStepLabel = new Label( wOutputComp, SWT.RIGHT );
+    props.setLook( wMentionStepLabel );
+    wMentionStepLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.MentionStep.Label" ) );
+    FormData fdlTransformation64 = new FormDataBuilder().left()
+      .top( wHashtagStepField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wMentionStepLabel.setLayoutData( fdlTransformation64 );
+
+    wMentionStepField = new CCombo( wOutputComp, SWT.BORDER );
+    props.setLook( wMentionStepField );
+    wMentionStepField.addModifyListener( lsMod );
+    FormData fdTransformation64 = new FormDataBuilder().left( middle, 0 )
+      .top( wHashtagStepField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wMentionStepField.setLayoutData( fdTransformation64 );
+
+    // URL Step label/field
+    wUrlStepLabel = new Label( wOutputComp, SWT.RIGHT );
+    props.setLook( wUrlStepLabel );
+    wUrlStepLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.UrlStep.Label" ) );
+    FormData fdlTransformation65 = new FormDataBuilder().left()
+      .top( wMentionStepField, ELEMENT_SPACING )
+      .right( middle, -ELEMENT_SPACING )
+      .result();
+    wUrlStepLabel.setLayoutData( fdlTransformation65 );
+
+    wUrlStepField = new CCombo( wOutputComp, SWT.BORDER );
+    props.setLook( wUrlStepField );
+    wUrlStepField.addModifyListener( lsMod );
+    FormData fdTransformation65 = new FormDataBuilder().left( middle, 0 )
+      .top( wMentionStepField, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .result();
+    wUrlStepField.setLayoutData( fdTransformation65 );
+
+    // Additional Fields label/table
+    wAdditionalFieldsLabel = new Label( wOutputComp, SWT.NONE );
+    props.setLook( wAdditionalFieldsLabel );
+    wAdditionalFieldsLabel.setText( BaseMessages.getString( PKG, "TwitterSearchDialog.AdditionalFields.Label" ) );
+    FormData fdlAdditionalFields = new FormDataBuilder().left()
+      .top( wUrlStepField, ELEMENT_SPACING )
+      .result();
+    wAdditionalFieldsLabel.setLayoutData( fdlAdditionalFields );
+
+    String[] attributes = Arrays.stream( TwitterField.values() ).map( Enum::name ).toArray( String[]::new );
+    ColumnInfo[] fieldColumns = new ColumnInfo[] {
+      new ColumnInfo( BaseMessages.getString( PKG, "TwitterSearchDialog.FieldName.Label" ),
+        ColumnInfo.COLUMN_TYPE_TEXT, false ),
+      new ColumnInfo( BaseMessages.getString( PKG, "TwitterSearchDialog.FieldAttribute.Label" ),
+        ColumnInfo.COLUMN_TYPE_CCOMBO, attributes, true ) };
+    wAdditionalFieldsField = new TableView( transMeta, wOutputComp, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI,
+      fieldColumns, meta.getAdditionalFieldsField().size(), lsMod, props );
+    FormData fdAdditionalFields = new FormDataBuilder().left()
+      .top( wAdditionalFieldsLabel, ELEMENT_SPACING )
+      .right( 100, 0 )
+      .bottom( 100, 0 )
+      .result();
+    wAdditionalFieldsField.setLayoutData( fdAdditionalFields );
+
     wOutputComp.layout();
     wOutputTab.setControl( wOutputComp );
 
@@ -629,27 +1978,153 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
 
     wSensitiveField.setSelection( meta.isSensitiveField() );
     wOnlyVerifiedUsersField.setSelection( meta.isOnlyVerifiedUsersField() );
+    wExcludeRetweetsField.setSelection( meta.isExcludeRetweetsField() );
+    wExcludeRepliesField.setSelection( meta.isExcludeRepliesField() );
+    String untilField = meta.getUntilField();
+    if ( untilField != null ) {
+      wUntilField.setText( untilField );
+    }
+    String geocodeField = meta.getGeocodeField();
+    if ( geocodeField != null ) {
+      wGeocodeField.setText( geocodeField );
+    }
+    wWindowsField.setText( String.valueOf( meta.getWindowsField() ) );
+    wConcurrencyField.setText( String.valueOf( meta.getConcurrencyField() ) );
+    wPreserveOrderField.setSelection( meta.isPreserveOrderField() );
+    wPageSizeField.setText( String.valueOf( meta.getPageSizeField() ) );
+    wMaxPagesField.setText( String.valueOf( meta.getMaxPagesField() ) );
+    wMaxTweetsField.setText( String.valueOf( meta.getMaxTweetsField() ) );
+    wTopTweetsField.setText( String.valueOf( meta.getTopTweetsField() ) );
+
+    Arrays.stream( TwitterField.values() )
+      .forEach( field -> wRankField.add( field.name() ) );
+
+    TwitterField rankField = meta.getRankField();
+    if ( rankField != null ) {
+      wRankField.setText( rankField.name() );
+    }
+
+    Arrays.stream( Sampling.values() )
+      .forEach( sampling -> wSampleField.add( sampling.name() ) );
+
+    Sampling sampleField = meta.getSampleField();
+    if ( sampleField != null ) {
+      wSampleField.setText( sampleField.name() );
+    }
+    wSampleSizeField.setText( String.valueOf( meta.getSampleSizeField() ) );
+    wSampleRateField.setText( String.valueOf( meta.getSampleRateField() ) );
+    wSampleRunField.setSelection( meta.isSampleRunField() );
+    wSampleSeedField.setText( Const.NVL( meta.getSampleSeedField(), "" ) );
+    wMaxAgeField.setText( String.valueOf( meta.getMaxAgeField() ) );
+
+    String checkpointFileField = meta.getCheckpointFileField();
+    if ( checkpointFileField != null ) {
+      wCheckpointFileField.setText( checkpointFileField );
+    }
+    String journalFileField = meta.getJournalFileField();
+    if ( journalFileField != null ) {
+      wJournalFileField.setText( journalFileField );
+    }
+
+    wCacheSizeField.setText( String.valueOf( meta.getCacheSizeField() ) );
+    wCacheTtlField.setText( String.valueOf( meta.getCacheTtlField() ) );
 
-    String consumerKeyField = meta.getConsumerKeyField();
-    if ( consumerKeyField != null ) {
-      wConsumerKeyField.setText( consumerKeyField );
+    String cacheDirectoryField = meta.getCacheDirectoryField();
+    if ( cacheDirectoryField != null ) {
+      wCacheDirectoryField.setText( cacheDirectoryField );
     }
 
-    String consumerSecretField = meta.getConsumerSecretField();
-    if ( consumerSecretField != null ) {
-      wConsumerSecretField.setText( consumerSecretField );
+    Arrays.stream( Dedup.values() )
+      .forEach( dedup -> wDedupField.add( dedup.name() ) );
+
+    Dedup dedupField = meta.getDedupField();
+    if ( dedupField != null ) {
+      wDedupField.setText( dedupField.name() );
+    }
+    wDedupExpectedField.setText( String.valueOf( meta.getDedupExpectedField() ) );
+    wCoalesceField.setSelection( meta.isCoalesceField() );
+    wMaxQueryLengthField.setText( String.valueOf( meta.getMaxQueryLengthField() ) );
+
+    wStreamModeField.setSelection( meta.isStreamModeField() );
+    String trackField = meta.getTrackField();
+    if ( trackField != null ) {
+      wTrackField.setText( trackField );
+    }
+    String followField = meta.getFollowField();
+    if ( followField != null ) {
+      wFollowField.setText( followField );
     }
+    String locationsField = meta.getLocationsField();
+    if ( locationsField != null ) {
+      wLocationsField.setText( locationsField );
+    }
+    String streamBaseUrlField = meta.getStreamBaseUrlField();
+    if ( streamBaseUrlField != null ) {
+      wStreamBaseUrlField.setText( streamBaseUrlField );
+    }
+    wStreamQueueSizeField.setText( String.valueOf( meta.getStreamQueueSizeField() ) );
+
+    Arrays.stream( Overflow.values() )
+      .forEach( overflow -> wOverflowField.add( overflow.name() ) );
 
-    String accessTokenKeyField = meta.getAccessTokenKeyField();
-    if ( accessTokenKeyField != null ) {
-      wAccessTokenKeyField.setText( accessTokenKeyField );
+    Overflow overflowField = meta.getOverflowField();
+    if ( overflowField != null ) {
+      wOverflowField.setText( overflowField.name() );
     }
+    String spillDirectoryField = meta.getSpillDirectoryField();
+    if ( spillDirectoryField != null ) {
+      wSpillDirectoryField.setText( spillDirectoryField );
+    }
+
+    Arrays.stream( Dispatch.values() )
+      .forEach( dispatch -> wCredentialDispatchField.add( dispatch.name() ) );
 
-    String accessTokenSecretField = meta.getAccessTokenSecretField();
-    if ( accessTokenSecretField != null ) {
-      wAccessTokenSecretField.setText( accessTokenSecretField );
+    Dispatch credentialDispatchField = meta.getCredentialDispatchField();
+    if ( credentialDispatchField != null ) {
+      wCredentialDispatchField.setText( credentialDispatchField.name() );
     }
 
+    Arrays.stream( Type.values() )
+      .forEach( type -> wSearchApiField.add( type.name() ) );
+
+    Type searchApiField = meta.getSearchApiField();
+    if ( searchApiField != null ) {
+      wSearchApiField.setText( searchApiField.name() );
+    }
+
+    String baseUrlField = meta.getBaseUrlField();
+    if ( baseUrlField != null ) {
+      wBaseUrlField.setText( baseUrlField );
+    }
+    wKeepAliveField.setSelection( meta.isKeepAliveField() );
+    wGzipField.setSelection( meta.isGzipField() );
+    wConnectTimeoutField.setText( String.valueOf( meta.getConnectTimeoutField() ) );
+    wReadTimeoutField.setText( String.valueOf( meta.getReadTimeoutField() ) );
+    wDebugField.setSelection( meta.isDebugField() );
+    wMaxRetriesField.setText( String.valueOf( meta.getMaxRetriesField() ) );
+    wRetryDelayField.setText( String.valueOf( meta.getRetryDelayField() ) );
+    wMaxRetryDelayField.setText( String.valueOf( meta.getMaxRetryDelayField() ) );
+    wBreakerThresholdField.setText( String.valueOf( meta.getBreakerThresholdField() ) );
+    wBreakerPauseField.setText( String.valueOf( meta.getBreakerPauseField() ) );
+    String quotaDirectoryField = meta.getQuotaDirectoryField();
+    if ( quotaDirectoryField != null ) {
+      wQuotaDirectoryField.setText( quotaDirectoryField );
+    }
+    wMetricsIntervalField.setText( String.valueOf( meta.getMetricsIntervalField() ) );
+    wJmxField.setSelection( meta.isJmxField() );
+
+    List<TwitterCredential> credentials = meta.getCredentialsField();
+    for ( int i = 0; i < credentials.size(); i++ ) {
+      TwitterCredential credential = credentials.get( i );
+      TableItem item = wCredentialsField.table.getItem( i );
+      item.setText( 1, Const.NVL( credential.getConsumerKeyField(), "" ) );
+      item.setText( 2, Const.NVL( credential.getConsumerSecretField(), "" ) );
+      item.setText( 3, Const.NVL( credential.getAccessTokenKeyField(), "" ) );
+      item.setText( 4, Const.NVL( credential.getAccessTokenSecretField(), "" ) );
+    }
+    wCredentialsField.setRowNums();
+    wCredentialsField.optWidth( true );
+
     String dateField = meta.getCreationDateField();
     if ( dateField != null ) {
       wDateField.setText( dateField );
@@ -674,6 +2149,30 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
     if ( tweetBodyField != null ) {
       wTweetField.setText( tweetBodyField );
     }
+    wAggregateField.setSelection( meta.isAggregateField() );
+    wTweetCountField.setText( Const.NVL( meta.getTweetCountField(), "" ) );
+    wFirstTweetDateField.setText( Const.NVL( meta.getFirstTweetDateField(), "" ) );
+    wLastTweetDateField.setText( Const.NVL( meta.getLastTweetDateField(), "" ) );
+    wTweetsField.setText( Const.NVL( meta.getTweetsField(), "" ) );
+
+    // Entities can be sent to any step the step has a hop to.
+    String[] nextSteps = transMeta.getNextStepNames( transMeta.findStep( stepname ) );
+    for ( CCombo entityStep : new CCombo[] { wHashtagStepField, wMentionStepField, wUrlStepField } ) {
+      entityStep.setItems( nextSteps );
+    }
+    wHashtagStepField.setText( Const.NVL( meta.getEntityStepName( TwitterEntity.Type.HASHTAG ), "" ) );
+    wMentionStepField.setText( Const.NVL( meta.getEntityStepName( TwitterEntity.Type.MENTION ), "" ) );
+    wUrlStepField.setText( Const.NVL( meta.getEntityStepName( TwitterEntity.Type.URL ), "" ) );
+
+    List<TwitterOutputField> additionalFields = meta.getAdditionalFieldsField();
+    for ( int i = 0; i < additionalFields.size(); i++ ) {
+      TwitterOutputField field = additionalFields.get( i );
+      TableItem item = wAdditionalFieldsField.table.getItem( i );
+      item.setText( 1, Const.NVL( field.getNameField(), "" ) );
+      item.setText( 2, field.getAttributeField().name() );
+    }
+    wAdditionalFieldsField.setRowNums();
+    wAdditionalFieldsField.optWidth( true );
   }
 
   /**
@@ -685,15 +2184,85 @@ public class TwitterSearchDialog extends BaseStepDialog implements StepDialogInt
     meta.setLangField( wLangField.getText() );
     meta.setSensitiveField( wSensitiveField.getSelection() );
     meta.setOnlyVerifiedUsersField( wOnlyVerifiedUsersField.getSelection() );
-    meta.setConsumerKeyField( wConsumerKeyField.getText() );
-    meta.setConsumerSecretField( wConsumerSecretField.getText() );
-    meta.setAccessTokenKeyField( wAccessTokenKeyField.getText() );
-    meta.setAccessTokenSecretField( wAccessTokenSecretField.getText() );
+    meta.setExcludeRetweetsField( wExcludeRetweetsField.getSelection() );
+    meta.setExcludeRepliesField( wExcludeRepliesField.getSelection() );
+    meta.setUntilField( wUntilField.getText() );
+    meta.setGeocodeField( wGeocodeField.getText() );
+    meta.setWindowsField( Const.toInt( wWindowsField.getText(), 1 ) );
+    meta.setConcurrencyField( Math.max( 1, Const.toInt( wConcurrencyField.getText(), 1 ) ) );
+    meta.setPreserveOrderField( wPreserveOrderField.getSelection() );
+    meta.setPageSizeField( Const.toInt( wPageSizeField.getText(), 100 ) );
+    meta.setMaxPagesField( Const.toInt( wMaxPagesField.getText(), 0 ) );
+    meta.setMaxTweetsField( Const.toInt( wMaxTweetsField.getText(), 0 ) );
+    meta.setTopTweetsField( Const.toInt( wTopTweetsField.getText(), 0 ) );
+    meta.setRankField( wRankField.getText() );
+    meta.setSampleField( wSampleField.getText() );
+    meta.setSampleSizeField( Const.toInt( wSampleSizeField.getText(), 0 ) );
+    meta.setSampleRateField( Const.toDouble( wSampleRateField.getText(), 0 ) );
+    meta.setSampleRunField( wSampleRunField.getSelection() );
+    meta.setSampleSeedField( wSampleSeedField.getText() );
+    meta.setMaxAgeField( Const.toInt( wMaxAgeField.getText(), 0 ) );
+    meta.setCheckpointFileField( wCheckpointFileField.getText() );
+    meta.setJournalFileField( wJournalFileField.getText() );
+    meta.setCacheSizeField( Const.toInt( wCacheSizeField.getText(), 0 ) );
+    meta.setCacheTtlField( Const.toInt( wCacheTtlField.getText(), 300 ) );
+    meta.setCacheDirectoryField( wCacheDirectoryField.getText() );
+    meta.setDedupField( wDedupField.getText() );
+    meta.setDedupExpectedField( Const.toInt( wDedupExpectedField.getText(), 1000000 ) );
+    meta.setCoalesceField( wCoalesceField.getSelection() );
+    meta.setMaxQueryLengthField( Const.toInt( wMaxQueryLengthField.getText(), 500 ) );
+    meta.setStreamModeField( wStreamModeField.getSelection() );
+    meta.setTrackField( wTrackField.getText() );
+    meta.setFollowField( wFollowField.getText() );
+    meta.setLocationsField( wLocationsField.getText() );
+    meta.setStreamBaseUrlField( wStreamBaseUrlField.getText() );
+    meta.setStreamQueueSizeField( Const.toInt( wStreamQueueSizeField.getText(), 10000 ) );
+    meta.setOverflowField( wOverflowField.getText() );
+    meta.setSpillDirectoryField( wSpillDirectoryField.getText() );
+    meta.setCredentialDispatchField( wCredentialDispatchField.getText() );
+    meta.setSearchApiField( wSearchApiField.getText() );
+    meta.setBaseUrlField( wBaseUrlField.getText() );
+    meta.setKeepAliveField( wKeepAliveField.getSelection() );
+    meta.setGzipField( wGzipField.getSelection() );
+    meta.setConnectTimeoutField( Const.toInt( wConnectTimeoutField.getText(), 20000 ) );
+    meta.setReadTimeoutField( Const.toInt( wReadTimeoutField.getText(), 120000 ) );
+    meta.setDebugField( wDebugField.getSelection() );
+    meta.setMaxRetriesField( Const.toInt( wMaxRetriesField.getText(), 3 ) );
+    meta.setRetryDelayField( Const.toInt( wRetryDelayField.getText(), 1000 ) );
+    meta.setMaxRetryDelayField( Const.toInt( wMaxRetryDelayField.getText(), 60000 ) );
+    meta.setBreakerThresholdField( Const.toInt( wBreakerThresholdField.getText(), 50 ) );
+    meta.setBreakerPauseField( Const.toInt( wBreakerPauseField.getText(), 30 ) );
+    meta.setQuotaDirectoryField( wQuotaDirectoryField.getText() );
+    meta.setMetricsIntervalField( Const.toInt( wMetricsIntervalField.getText(), 60 ) );
+    meta.setJmxField( wJmxField.getSelection() );
+    List<TwitterCredential> credentials = new ArrayList<>();
+    for ( int i = 0; i < wCredentialsField.nrNonEmpty(); i++ ) {
+      TableItem item = wCredentialsField.getNonEmpty( i );
+      credentials.add( new TwitterCredential( item.getText( 1 ), item.getText( 2 ), item.getText( 3 ),
+        item.getText( 4 ) ) );
+    }
+    meta.setCredentialsField( credentials );
     meta.setCreationDateField( wDateField.getText() );
     meta.setAuthorField( wAuthorField.getText() );
     meta.setAuthorScreenNameField( wAuthorScreenNameField.getText() );
     meta.setAuthorLocationField( wLocationField.getText() );
     meta.setTweetBodyField( wTweetField.getText() );
+    meta.setAggregateField( wAggregateField.getSelection() );
+    meta.setTweetCountField( wTweetCountField.getText() );
+    meta.setFirstTweetDateField( wFirstTweetDateField.getText() );
+    meta.setLastTweetDateField( wLastTweetDateField.getText() );
+    meta.setTweetsField( wTweetsField.getText() );
+    meta.setEntityStep( TwitterEntity.Type.HASHTAG, transMeta.findStep( wHashtagStepField.getText() ) );
+    meta.setEntityStep( TwitterEntity.Type.MENTION, transMeta.findStep( wMentionStepField.getText() ) );
+    meta.setEntityStep( TwitterEntity.Type.URL, transMeta.findStep( wUrlStepField.getText() ) );
+    List<TwitterOutputField> additionalFields = new ArrayList<>();
+    for ( int i = 0; i < wAdditionalFieldsField.nrNonEmpty(); i++ ) {
+      TableItem item = wAdditionalFieldsField.getNonEmpty( i );
+      if ( !Utils.isEmpty( item.getText( 1 ) ) && !Utils.isEmpty( item.getText( 2 ) ) ) {
+        additionalFields.add( new TwitterOutputField( item.getText( 1 ), TwitterField.valueOf( item.getText( 2 ) ) ) );
+      }
+    }
+    meta.setAdditionalFieldsField( additionalFields );
   }
 
   private void cancel() {
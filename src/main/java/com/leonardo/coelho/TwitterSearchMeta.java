@@ -19,6 +19,7 @@
 package com.leonardo.coelho;
 
 import org.pentaho.di.core.annotations.Step;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.CheckResult;
 import org.pentaho.di.core.CheckResultInterface;
 import org.pentaho.di.core.database.DatabaseMeta;
@@ -28,6 +29,7 @@ import org.pentaho.di.core.exception.KettleXMLException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.variables.VariableSpace;
@@ -38,17 +40,30 @@ import org.pentaho.di.repository.Repository;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStepMeta;
+import org.pentaho.di.trans.step.StepIOMeta;
+import org.pentaho.di.trans.step.StepIOMetaInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.errorhandling.Stream;
+import org.pentaho.di.trans.step.errorhandling.StreamIcon;
+import org.pentaho.di.trans.step.errorhandling.StreamInterface;
+import org.pentaho.di.trans.step.errorhandling.StreamInterface.StreamType;
 import org.pentaho.metastore.api.IMetaStore;
 import org.w3c.dom.Node;
+import com.leonardo.coelho.TwitterCredentialPool.Dispatch;
+import com.leonardo.coelho.TwitterIdSet.Dedup;
+import com.leonardo.coelho.TwitterSearchApi.Type;
+import com.leonardo.coelho.TwitterStreamQueue.Overflow;
+import com.leonardo.coelho.TwitterTweetSampler.Sampling;
 import twitter4j.Query.ResultType;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 
@@ -122,15 +137,69 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
   private String langCodeField;
   private boolean sensitiveField;
   private boolean onlyVerifiedUsersField;
-  private String consumerKeyField;
-  private String consumerSecretField;
-  private String accessTokenKeyField;
-  private String accessTokenSecretField;
+  private boolean excludeRetweetsField;
+  private boolean excludeRepliesField;
+  private String untilField;
+  private String geocodeField;
+  private int windowsField;
+  private int concurrencyField;
+  private boolean preserveOrderField;
+  private int pageSizeField;
+  private int maxPagesField;
+  private int maxTweetsField;
+  private int topTweetsField;
+  private TwitterField rankField;
+  private Sampling sampleField;
+  private int sampleSizeField;
+  private double sampleRateField;
+  private boolean sampleRunField;
+  private String sampleSeedField;
+  private int maxAgeField;
+  private String checkpointFileField;
+  private String journalFileField;
+  private int cacheSizeField;
+  private int cacheTtlField;
+  private String cacheDirectoryField;
+  private Dedup dedupField;
+  private int dedupExpectedField;
+  private boolean coalesceField;
+  private int maxQueryLengthField;
+  private boolean streamModeField;
+  private String trackField;
+  private String followField;
+  private String locationsField;
+  private String streamBaseUrlField;
+  private int streamQueueSizeField;
+  private Overflow overflowField;
+  private String spillDirectoryField;
+  private List<TwitterCredential> credentialsField = new ArrayList<>();
+  private Dispatch credentialDispatchField;
+  private Type searchApiField;
+  private String baseUrlField;
+  private boolean keepAliveField;
+  private boolean gzipField;
+  private int connectTimeoutField;
+  private int readTimeoutField;
+  private boolean debugField;
+  private int maxRetriesField;
+  private int retryDelayField;
+  private int maxRetryDelayField;
+  private int breakerThresholdField;
+  private int breakerPauseField;
+  private String quotaDirectoryField;
+  private int metricsIntervalField;
+  private boolean jmxField;
+  private boolean aggregateField;
+  private String tweetCountField;
+  private String firstTweetDateField;
+  private String lastTweetDateField;
+  private String tweetsField;
   private String creationDateField;
   private String authorField;
   private String authorScreenNameField;
   private String authorLocationField;
   private String tweetBodyField;
+  private List<TwitterOutputField> additionalFieldsField = new ArrayList<>();
 
   public TwitterSearchMeta() {
     super(); // allocate BaseStepMeta
@@ -141,7 +210,15 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
   }
 
   public Object clone() {
-    Object retval = super.clone();
+    TwitterSearchMeta retval = (TwitterSearchMeta) super.clone();
+    retval.credentialsField = new ArrayList<>();
+    for ( TwitterCredential credential : credentialsField ) {
+      retval.credentialsField.add( credential.clone() );
+    }
+    retval.additionalFieldsField = new ArrayList<>();
+    for ( TwitterOutputField field : additionalFieldsField ) {
+      retval.additionalFieldsField.add( field.clone() );
+    }
     return retval;
   }
 
@@ -152,19 +229,141 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
     langCodeField = XMLHandler.getTagValue( stepnode, "langCodeField" );
     sensitiveField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "sensitiveField" ) );
     onlyVerifiedUsersField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "onlyVerifiedUsersField" ) );
-    consumerKeyField = XMLHandler.getTagValue( stepnode, "consumerKeyField" );
-    consumerSecretField = XMLHandler.getTagValue( stepnode, "consumerSecretField" );
-    accessTokenKeyField = XMLHandler.getTagValue( stepnode, "accessTokenKeyField" );
-    accessTokenSecretField = XMLHandler.getTagValue( stepnode, "accessTokenSecretField" );
+    excludeRetweetsField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "excludeRetweetsField" ) );
+    excludeRepliesField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "excludeRepliesField" ) );
+    untilField = XMLHandler.getTagValue( stepnode, "untilField" );
+    geocodeField = XMLHandler.getTagValue( stepnode, "geocodeField" );
+    windowsField = Const.toInt( XMLHandler.getTagValue( stepnode, "windowsField" ), 1 );
+    concurrencyField = Const.toInt( XMLHandler.getTagValue( stepnode, "concurrencyField" ), 1 );
+    preserveOrderField = !"N".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "preserveOrderField" ) );
+    pageSizeField = Const.toInt( XMLHandler.getTagValue( stepnode, "pageSizeField" ), 100 );
+    maxPagesField = Const.toInt( XMLHandler.getTagValue( stepnode, "maxPagesField" ), 0 );
+    maxTweetsField = Const.toInt( XMLHandler.getTagValue( stepnode, "maxTweetsField" ), 0 );
+    topTweetsField = Const.toInt( XMLHandler.getTagValue( stepnode, "topTweetsField" ), 0 );
+    rankField = TwitterField.valueOf(
+      Const.NVL( XMLHandler.getTagValue( stepnode, "rankField" ), TwitterField.RETWEET_COUNT.name() ) );
+    sampleField = Sampling.valueOf(
+      Const.NVL( XMLHandler.getTagValue( stepnode, "sampleField" ), Sampling.NONE.name() ) );
+    sampleSizeField = Const.toInt( XMLHandler.getTagValue( stepnode, "sampleSizeField" ), 100 );
+    sampleRateField = Const.toDouble( XMLHandler.getTagValue( stepnode, "sampleRateField" ), 0.01 );
+    sampleRunField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "sampleRunField" ) );
+    sampleSeedField = XMLHandler.getTagValue( stepnode, "sampleSeedField" );
+    maxAgeField = Const.toInt( XMLHandler.getTagValue( stepnode, "maxAgeField" ), 0 );
+    checkpointFileField = XMLHandler.getTagValue( stepnode, "checkpointFileField" );
+    journalFileField = XMLHandler.getTagValue( stepnode, "journalFileField" );
+    cacheSizeField = Const.toInt( XMLHandler.getTagValue( stepnode, "cacheSizeField" ), 0 );
+    cacheTtlField = Const.toInt( XMLHandler.getTagValue( stepnode, "cacheTtlField" ), 300 );
+    cacheDirectoryField = XMLHandler.getTagValue( stepnode, "cacheDirectoryField" );
+    dedupField = Dedup.valueOf( Const.NVL( XMLHandler.getTagValue( stepnode, "dedupField" ), Dedup.NONE.name() ) );
+    dedupExpectedField = Const.toInt( XMLHandler.getTagValue( stepnode, "dedupExpectedField" ), 1000000 );
+    coalesceField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "coalesceField" ) );
+    maxQueryLengthField = Const.toInt( XMLHandler.getTagValue( stepnode, "maxQueryLengthField" ), 500 );
+    streamModeField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "streamModeField" ) );
+    trackField = XMLHandler.getTagValue( stepnode, "trackField" );
+    followField = XMLHandler.getTagValue( stepnode, "followField" );
+    locationsField = XMLHandler.getTagValue( stepnode, "locationsField" );
+    streamBaseUrlField = XMLHandler.getTagValue( stepnode, "streamBaseUrlField" );
+    streamQueueSizeField = Const.toInt( XMLHandler.getTagValue( stepnode, "streamQueueSizeField" ), 10000 );
+    overflowField = Overflow.valueOf(
+      Const.NVL( XMLHandler.getTagValue( stepnode, "overflowField" ), Overflow.BLOCK.name() ) );
+    spillDirectoryField = XMLHandler.getTagValue( stepnode, "spillDirectoryField" );
+    credentialsField = new ArrayList<>();
+    Node credentialsNode = XMLHandler.getSubNode( stepnode, "credentials" );
+    if ( credentialsNode != null ) {
+      int nrCredentials = XMLHandler.countNodes( credentialsNode, "credential" );
+      for ( int i = 0; i < nrCredentials; i++ ) {
+        credentialsField.add( readCredential( XMLHandler.getSubNodeByNr( credentialsNode, "credential", i ) ) );
+      }
+    } else if ( XMLHandler.getTagValue( stepnode, "consumerKeyField" ) != null ) {
+      // Steps saved before credential pools held a single credential.
+      credentialsField.add( readCredential( stepnode ) );
+    }
+    credentialDispatchField = Dispatch.valueOf(
+      Const.NVL( XMLHandler.getTagValue( stepnode, "credentialDispatchField" ), Dispatch.LEAST_LOADED.name() ) );
+    searchApiField = Type.valueOf(
+      Const.NVL( XMLHandler.getTagValue( stepnode, "searchApiField" ), Type.TWITTER4J.name() ) );
+    baseUrlField = XMLHandler.getTagValue( stepnode, "baseUrlField" );
+    keepAliveField = !"N".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "keepAliveField" ) );
+    gzipField = !"N".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "gzipField" ) );
+    connectTimeoutField = Const.toInt( XMLHandler.getTagValue( stepnode, "connectTimeoutField" ), 20000 );
+    readTimeoutField = Const.toInt( XMLHandler.getTagValue( stepnode, "readTimeoutField" ), 120000 );
+    debugField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "debugField" ) );
+    maxRetriesField = Const.toInt( XMLHandler.getTagValue( stepnode, "maxRetriesField" ), 3 );
+    retryDelayField = Const.toInt( XMLHandler.getTagValue( stepnode, "retryDelayField" ), 1000 );
+    maxRetryDelayField = Const.toInt( XMLHandler.getTagValue( stepnode, "maxRetryDelayField" ), 60000 );
+    breakerThresholdField = Const.toInt( XMLHandler.getTagValue( stepnode, "breakerThresholdField" ), 50 );
+    breakerPauseField = Const.toInt( XMLHandler.getTagValue( stepnode, "breakerPauseField" ), 30 );
+    quotaDirectoryField = XMLHandler.getTagValue( stepnode, "quotaDirectoryField" );
+    metricsIntervalField = Const.toInt( XMLHandler.getTagValue( stepnode, "metricsIntervalField" ), 60 );
+    jmxField = !"N".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "jmxField" ) );
+    aggregateField = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "aggregateField" ) );
+    tweetCountField = Const.NVL( XMLHandler.getTagValue( stepnode, "tweetCountField" ), "tweet_count" );
+    firstTweetDateField = Const.NVL( XMLHandler.getTagValue( stepnode, "firstTweetDateField" ), "first_tweet_date" );
+    lastTweetDateField = Const.NVL( XMLHandler.getTagValue( stepnode, "lastTweetDateField" ), "last_tweet_date" );
+    tweetsField = Const.NVL( XMLHandler.getTagValue( stepnode, "tweetsField" ), "tweets" );
     creationDateField = XMLHandler.getTagValue( stepnode, "creationDateField" );
     authorField = XMLHandler.getTagValue( stepnode, "authorField" );
     authorScreenNameField = XMLHandler.getTagValue( stepnode, "authorScreenNameField" );
     authorLocationField = XMLHandler.getTagValue( stepnode, "authorLocationField" );
     tweetBodyField = XMLHandler.getTagValue( stepnode, "tweetBodyField" );
+    additionalFieldsField = new ArrayList<>();
+    Node fieldsNode = XMLHandler.getSubNode( stepnode, "additionalFields" );
+    int nrFields = XMLHandler.countNodes( fieldsNode, "field" );
+    for ( int i = 0; i < nrFields; i++ ) {
+      Node fieldNode = XMLHandler.getSubNodeByNr( fieldsNode, "field", i );
+      additionalFieldsField.add( new TwitterOutputField( XMLHandler.getTagValue( fieldNode, "nameField" ),
+        TwitterField.valueOf( XMLHandler.getTagValue( fieldNode, "attributeField" ) ) ) );
+    }
+    List<StreamInterface> targetStreams = getStepIOMeta().getTargetStreams();
+    for ( TwitterEntity.Type type : TwitterEntity.Type.values() ) {
+      targetStreams.get( type.ordinal() ).setSubject( XMLHandler.getTagValue( stepnode, targetTagOf( type ) ) );
+    }
+  }
+
+  private TwitterCredential readCredential( Node node ) {
+    return new TwitterCredential(
+      XMLHandler.getTagValue( node, "consumerKeyField" ),
+      XMLHandler.getTagValue( node, "consumerSecretField" ),
+      XMLHandler.getTagValue( node, "accessTokenKeyField" ),
+      XMLHandler.getTagValue( node, "accessTokenSecretField" ) );
   }
 
   public void setDefault() {
+    credentialsField = new ArrayList<>();
+    credentialDispatchField = Dispatch.LEAST_LOADED;
+    searchApiField = Type.TWITTER4J;
+    concurrencyField = 1;
+    preserveOrderField = true;
     tweetBodyField = "tweet";
+    additionalFieldsField = new ArrayList<>();
+    pageSizeField = 100;
+    cacheSizeField = 0;
+    cacheTtlField = 300;
+    dedupField = Dedup.NONE;
+    rankField = TwitterField.RETWEET_COUNT;
+    sampleField = Sampling.NONE;
+    sampleSizeField = 100;
+    sampleRateField = 0.01;
+    dedupExpectedField = 1000000;
+    streamQueueSizeField = 10000;
+    overflowField = Overflow.BLOCK;
+    maxQueryLengthField = 500;
+    maxRetriesField = 3;
+    retryDelayField = 1000;
+    maxRetryDelayField = 60000;
+    breakerThresholdField = 50;
+    breakerPauseField = 30;
+    keepAliveField = true;
+    gzipField = true;
+    connectTimeoutField = 20000;
+    readTimeoutField = 120000;
+    metricsIntervalField = 60;
+    jmxField = true;
+    windowsField = 1;
+    tweetCountField = "tweet_count";
+    firstTweetDateField = "first_tweet_date";
+    lastTweetDateField = "last_tweet_date";
+    tweetsField = "tweets";
   }
 
   public void readRep( Repository rep, IMetaStore metaStore, ObjectId id_step, List<DatabaseMeta> databases ) throws KettleException {
@@ -175,15 +374,93 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
       langCodeField = rep.getStepAttributeString( id_step, "langCodeField" );
       sensitiveField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "sensitiveField" ) );
       onlyVerifiedUsersField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "onlyVerifiedUsersField" ) );
-      consumerKeyField = rep.getStepAttributeString( id_step, "consumerKeyField" );
-      consumerSecretField = rep.getStepAttributeString( id_step, "consumerSecretField" );
-      accessTokenKeyField = rep.getStepAttributeString( id_step, "accessTokenKeyField" );
-      accessTokenSecretField = rep.getStepAttributeString( id_step, "accessTokenSecretField" );
+      excludeRetweetsField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "excludeRetweetsField" ) );
+      excludeRepliesField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "excludeRepliesField" ) );
+      untilField = rep.getStepAttributeString( id_step, "untilField" );
+      geocodeField = rep.getStepAttributeString( id_step, "geocodeField" );
+      windowsField = getStepAttributeInteger( rep, id_step, "windowsField", 1 );
+      concurrencyField = Math.max( 1, (int) rep.getStepAttributeInteger( id_step, "concurrencyField" ) );
+      preserveOrderField = !"N".equalsIgnoreCase( rep.getStepAttributeString( id_step, "preserveOrderField" ) );
+      pageSizeField = getStepAttributeInteger( rep, id_step, "pageSizeField", 100 );
+      maxPagesField = getStepAttributeInteger( rep, id_step, "maxPagesField", 0 );
+      maxTweetsField = getStepAttributeInteger( rep, id_step, "maxTweetsField", 0 );
+      topTweetsField = getStepAttributeInteger( rep, id_step, "topTweetsField", 0 );
+      rankField = TwitterField.valueOf(
+        Const.NVL( rep.getStepAttributeString( id_step, "rankField" ), TwitterField.RETWEET_COUNT.name() ) );
+      sampleField = Sampling.valueOf(
+        Const.NVL( rep.getStepAttributeString( id_step, "sampleField" ), Sampling.NONE.name() ) );
+      sampleSizeField = getStepAttributeInteger( rep, id_step, "sampleSizeField", 100 );
+      sampleRateField = Const.toDouble( rep.getStepAttributeString( id_step, "sampleRateField" ), 0.01 );
+      sampleRunField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "sampleRunField" ) );
+      sampleSeedField = rep.getStepAttributeString( id_step, "sampleSeedField" );
+      maxAgeField = getStepAttributeInteger( rep, id_step, "maxAgeField", 0 );
+      checkpointFileField = rep.getStepAttributeString( id_step, "checkpointFileField" );
+      journalFileField = rep.getStepAttributeString( id_step, "journalFileField" );
+      cacheSizeField = getStepAttributeInteger( rep, id_step, "cacheSizeField", 0 );
+      cacheTtlField = getStepAttributeInteger( rep, id_step, "cacheTtlField", 300 );
+      cacheDirectoryField = rep.getStepAttributeString( id_step, "cacheDirectoryField" );
+      dedupField = Dedup.valueOf( Const.NVL( rep.getStepAttributeString( id_step, "dedupField" ), Dedup.NONE.name() ) );
+      dedupExpectedField = getStepAttributeInteger( rep, id_step, "dedupExpectedField", 1000000 );
+      coalesceField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "coalesceField" ) );
+      maxQueryLengthField = getStepAttributeInteger( rep, id_step, "maxQueryLengthField", 500 );
+      streamModeField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "streamModeField" ) );
+      trackField = rep.getStepAttributeString( id_step, "trackField" );
+      followField = rep.getStepAttributeString( id_step, "followField" );
+      locationsField = rep.getStepAttributeString( id_step, "locationsField" );
+      streamBaseUrlField = rep.getStepAttributeString( id_step, "streamBaseUrlField" );
+      streamQueueSizeField = getStepAttributeInteger( rep, id_step, "streamQueueSizeField", 10000 );
+      overflowField = Overflow.valueOf( Const.NVL(
+        rep.getStepAttributeString( id_step, "overflowField" ), Overflow.BLOCK.name() ) );
+      spillDirectoryField = rep.getStepAttributeString( id_step, "spillDirectoryField" );
+      credentialsField = new ArrayList<>();
+      int nrCredentials = rep.countNrStepAttributes( id_step, "consumerKeyField" );
+      for ( int i = 0; i < nrCredentials; i++ ) {
+        credentialsField.add( new TwitterCredential(
+          rep.getStepAttributeString( id_step, i, "consumerKeyField" ),
+          rep.getStepAttributeString( id_step, i, "consumerSecretField" ),
+          rep.getStepAttributeString( id_step, i, "accessTokenKeyField" ),
+          rep.getStepAttributeString( id_step, i, "accessTokenSecretField" ) ) );
+      }
+      credentialDispatchField = Dispatch.valueOf( Const.NVL(
+        rep.getStepAttributeString( id_step, "credentialDispatchField" ), Dispatch.LEAST_LOADED.name() ) );
+      searchApiField = Type.valueOf( Const.NVL(
+        rep.getStepAttributeString( id_step, "searchApiField" ), Type.TWITTER4J.name() ) );
+      baseUrlField = rep.getStepAttributeString( id_step, "baseUrlField" );
+      keepAliveField = !"N".equalsIgnoreCase( rep.getStepAttributeString( id_step, "keepAliveField" ) );
+      gzipField = !"N".equalsIgnoreCase( rep.getStepAttributeString( id_step, "gzipField" ) );
+      connectTimeoutField = getStepAttributeInteger( rep, id_step, "connectTimeoutField", 20000 );
+      readTimeoutField = getStepAttributeInteger( rep, id_step, "readTimeoutField", 120000 );
+      debugField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "debugField" ) );
+      maxRetriesField = getStepAttributeInteger( rep, id_step, "maxRetriesField", 3 );
+      retryDelayField = getStepAttributeInteger( rep, id_step, "retryDelayField", 1000 );
+      maxRetryDelayField = getStepAttributeInteger( rep, id_step, "maxRetryDelayField", 60000 );
+      breakerThresholdField = getStepAttributeInteger( rep, id_step, "breakerThresholdField", 50 );
+      breakerPauseField = getStepAttributeInteger( rep, id_step, "breakerPauseField", 30 );
+      quotaDirectoryField = rep.getStepAttributeString( id_step, "quotaDirectoryField" );
+      metricsIntervalField = getStepAttributeInteger( rep, id_step, "metricsIntervalField", 60 );
+      jmxField = !"N".equalsIgnoreCase( rep.getStepAttributeString( id_step, "jmxField" ) );
+      aggregateField = "Y".equalsIgnoreCase( rep.getStepAttributeString( id_step, "aggregateField" ) );
+      tweetCountField = Const.NVL( rep.getStepAttributeString( id_step, "tweetCountField" ), "tweet_count" );
+      firstTweetDateField =
+        Const.NVL( rep.getStepAttributeString( id_step, "firstTweetDateField" ), "first_tweet_date" );
+      lastTweetDateField = Const.NVL( rep.getStepAttributeString( id_step, "lastTweetDateField" ), "last_tweet_date" );
+      tweetsField = Const.NVL( rep.getStepAttributeString( id_step, "tweetsField" ), "tweets" );
       creationDateField = rep.getStepAttributeString( id_step, "creationDateField" );
       authorField = rep.getStepAttributeString( id_step, "authorField" );
       authorScreenNameField = rep.getStepAttributeString( id_step, "authorScreenNameField" );
       authorLocationField = rep.getStepAttributeString( id_step, "authorLocationField" );
       tweetBodyField = rep.getStepAttributeString( id_step, "tweetBodyField" );
+      additionalFieldsField = new ArrayList<>();
+      int nrFields = rep.countNrStepAttributes( id_step, "additionalFieldName" );
+      for ( int i = 0; i < nrFields; i++ ) {
+        additionalFieldsField.add( new TwitterOutputField(
+          rep.getStepAttributeString( id_step, i, "additionalFieldName" ),
+          TwitterField.valueOf( rep.getStepAttributeString( id_step, i, "additionalFieldAttribute" ) ) ) );
+      }
+      List<StreamInterface> targetStreams = getStepIOMeta().getTargetStreams();
+      for ( TwitterEntity.Type type : TwitterEntity.Type.values() ) {
+        targetStreams.get( type.ordinal() ).setSubject( rep.getStepAttributeString( id_step, targetTagOf( type ) ) );
+      }
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
         PKG, "TwitterSearchMeta.Exception.UnexpectedErrorInReadingStepInfoFromRepository", id_step ), e );
@@ -199,15 +476,89 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
     retval.append( "    " + XMLHandler.addTagValue( "langCodeField", langCodeField ) );
     retval.append( "    " + XMLHandler.addTagValue( "sensitiveField", sensitiveField ) );
     retval.append( "    " + XMLHandler.addTagValue( "onlyVerifiedUsersField", onlyVerifiedUsersField ) );
-    retval.append( "    " + XMLHandler.addTagValue( "consumerKeyField", consumerKeyField ) );
-    retval.append( "    " + XMLHandler.addTagValue( "consumerSecretField", consumerSecretField ) );
-    retval.append( "    " + XMLHandler.addTagValue( "accessTokenKeyField", accessTokenKeyField ) );
-    retval.append( "    " + XMLHandler.addTagValue( "accessTokenSecretField", accessTokenSecretField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "excludeRetweetsField", excludeRetweetsField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "excludeRepliesField", excludeRepliesField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "untilField", untilField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "geocodeField", geocodeField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "windowsField", windowsField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "concurrencyField", concurrencyField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "preserveOrderField", preserveOrderField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "pageSizeField", pageSizeField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "maxPagesField", maxPagesField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "maxTweetsField", maxTweetsField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "topTweetsField", topTweetsField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "rankField", rankField.name() ) );
+    retval.append( "    " + XMLHandler.addTagValue( "sampleField", sampleField.name() ) );
+    retval.append( "    " + XMLHandler.addTagValue( "sampleSizeField", sampleSizeField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "sampleRateField", String.valueOf( sampleRateField ) ) );
+    retval.append( "    " + XMLHandler.addTagValue( "sampleRunField", sampleRunField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "sampleSeedField", sampleSeedField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "maxAgeField", maxAgeField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "checkpointFileField", checkpointFileField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "journalFileField", journalFileField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "cacheSizeField", cacheSizeField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "cacheTtlField", cacheTtlField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "cacheDirectoryField", cacheDirectoryField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "dedupField", dedupField.name() ) );
+    retval.append( "    " + XMLHandler.addTagValue( "dedupExpectedField", dedupExpectedField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "coalesceField", coalesceField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "maxQueryLengthField", maxQueryLengthField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "streamModeField", streamModeField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "trackField", trackField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "followField", followField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "locationsField", locationsField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "streamBaseUrlField", streamBaseUrlField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "streamQueueSizeField", streamQueueSizeField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "overflowField", overflowField.name() ) );
+    retval.append( "    " + XMLHandler.addTagValue( "spillDirectoryField", spillDirectoryField ) );
+    retval.append( "    " + XMLHandler.openTag( "credentials" ) ).append( Const.CR );
+    for ( TwitterCredential credential : credentialsField ) {
+      retval.append( "      " + XMLHandler.openTag( "credential" ) ).append( Const.CR );
+      retval.append( "        " + XMLHandler.addTagValue( "consumerKeyField", credential.getConsumerKeyField() ) );
+      retval.append( "        " + XMLHandler.addTagValue( "consumerSecretField", credential.getConsumerSecretField() ) );
+      retval.append( "        " + XMLHandler.addTagValue( "accessTokenKeyField", credential.getAccessTokenKeyField() ) );
+      retval.append( "        "
+        + XMLHandler.addTagValue( "accessTokenSecretField", credential.getAccessTokenSecretField() ) );
+      retval.append( "      " + XMLHandler.closeTag( "credential" ) ).append( Const.CR );
+    }
+    retval.append( "    " + XMLHandler.closeTag( "credentials" ) ).append( Const.CR );
+    retval.append( "    " + XMLHandler.addTagValue( "credentialDispatchField", credentialDispatchField.name() ) );
+    retval.append( "    " + XMLHandler.addTagValue( "searchApiField", searchApiField.name() ) );
+    retval.append( "    " + XMLHandler.addTagValue( "baseUrlField", baseUrlField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "keepAliveField", keepAliveField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "gzipField", gzipField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "connectTimeoutField", connectTimeoutField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "readTimeoutField", readTimeoutField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "debugField", debugField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "maxRetriesField", maxRetriesField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "retryDelayField", retryDelayField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "maxRetryDelayField", maxRetryDelayField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "breakerThresholdField", breakerThresholdField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "breakerPauseField", breakerPauseField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "quotaDirectoryField", quotaDirectoryField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "metricsIntervalField", metricsIntervalField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "jmxField", jmxField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "aggregateField", aggregateField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "tweetCountField", tweetCountField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "firstTweetDateField", firstTweetDateField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "lastTweetDateField", lastTweetDateField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "tweetsField", tweetsField ) );
     retval.append( "    " + XMLHandler.addTagValue( "creationDateField", creationDateField ) );
     retval.append( "    " + XMLHandler.addTagValue( "authorField", authorField ) );
     retval.append( "    " + XMLHandler.addTagValue( "authorScreenNameField", authorScreenNameField ) );
     retval.append( "    " + XMLHandler.addTagValue( "authorLocationField", authorLocationField ) );
     retval.append( "    " + XMLHandler.addTagValue( "tweetBodyField", tweetBodyField ) );
+    retval.append( "    " + XMLHandler.openTag( "additionalFields" ) ).append( Const.CR );
+    for ( TwitterOutputField field : additionalFieldsField ) {
+      retval.append( "      " + XMLHandler.openTag( "field" ) ).append( Const.CR );
+      retval.append( "        " + XMLHandler.addTagValue( "nameField", field.getNameField() ) );
+      retval.append( "        " + XMLHandler.addTagValue( "attributeField", field.getAttributeField().name() ) );
+      retval.append( "      " + XMLHandler.closeTag( "field" ) ).append( Const.CR );
+    }
+    retval.append( "    " + XMLHandler.closeTag( "additionalFields" ) ).append( Const.CR );
+    for ( TwitterEntity.Type type : TwitterEntity.Type.values() ) {
+      retval.append( "    " + XMLHandler.addTagValue( targetTagOf( type ), getEntityStepName( type ) ) );
+    }
     return retval.toString();
   }
 
@@ -220,25 +571,277 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
       rep.saveStepAttribute( id_transformation, id_step, "langCodeField", langCodeField );
       rep.saveStepAttribute( id_transformation, id_step, "sensitiveField", sensitiveField );
       rep.saveStepAttribute( id_transformation, id_step, "onlyVerifiedUsersField", onlyVerifiedUsersField );
-      rep.saveStepAttribute( id_transformation, id_step, "consumerKeyField", consumerKeyField );
-      rep.saveStepAttribute( id_transformation, id_step, "consumerSecretField", consumerSecretField );
-      rep.saveStepAttribute( id_transformation, id_step, "accessTokenKeyField", accessTokenKeyField );
-      rep.saveStepAttribute( id_transformation, id_step, "accessTokenSecretField", accessTokenSecretField );
+      rep.saveStepAttribute( id_transformation, id_step, "excludeRetweetsField", excludeRetweetsField );
+      rep.saveStepAttribute( id_transformation, id_step, "excludeRepliesField", excludeRepliesField );
+      rep.saveStepAttribute( id_transformation, id_step, "untilField", untilField );
+      rep.saveStepAttribute( id_transformation, id_step, "geocodeField", geocodeField );
+      rep.saveStepAttribute( id_transformation, id_step, "windowsField", windowsField );
+      rep.saveStepAttribute( id_transformation, id_step, "concurrencyField", concurrencyField );
+      rep.saveStepAttribute( id_transformation, id_step, "preserveOrderField", preserveOrderField );
+      rep.saveStepAttribute( id_transformation, id_step, "pageSizeField", pageSizeField );
+      rep.saveStepAttribute( id_transformation, id_step, "maxPagesField", maxPagesField );
+      rep.saveStepAttribute( id_transformation, id_step, "maxTweetsField", maxTweetsField );
+      rep.saveStepAttribute( id_transformation, id_step, "topTweetsField", topTweetsField );
+      rep.saveStepAttribute( id_transformation, id_step, "rankField", rankField.name() );
+      rep.saveStepAttribute( id_transformation, id_step, "sampleField", sampleField.name() );
+      rep.saveStepAttribute( id_transformation, id_step, "sampleSizeField", sampleSizeField );
+      rep.saveStepAttribute( id_transformation, id_step, "sampleRateField", String.valueOf( sampleRateField ) );
+      rep.saveStepAttribute( id_transformation, id_step, "sampleRunField", sampleRunField );
+      rep.saveStepAttribute( id_transformation, id_step, "sampleSeedField", sampleSeedField );
+      rep.saveStepAttribute( id_transformation, id_step, "maxAgeField", maxAgeField );
+      rep.saveStepAttribute( id_transformation, id_step, "checkpointFileField", checkpointFileField );
+      rep.saveStepAttribute( id_transformation, id_step, "journalFileField", journalFileField );
+      rep.saveStepAttribute( id_transformation, id_step, "cacheSizeField", cacheSizeField );
+      rep.saveStepAttribute( id_transformation, id_step, "cacheTtlField", cacheTtlField );
+      rep.saveStepAttribute( id_transformation, id_step, "cacheDirectoryField", cacheDirectoryField );
+      rep.saveStepAttribute( id_transformation, id_step, "dedupField", dedupField.name() );
+      rep.saveStepAttribute( id_transformation, id_step, "dedupExpectedField", dedupExpectedField );
+      rep.saveStepAttribute( id_transformation, id_step, "coalesceField", coalesceField );
+      rep.saveStepAttribute( id_transformation, id_step, "maxQueryLengthField", maxQueryLengthField );
+      rep.saveStepAttribute( id_transformation, id_step, "streamModeField", streamModeField );
+      rep.saveStepAttribute( id_transformation, id_step, "trackField", trackField );
+      rep.saveStepAttribute( id_transformation, id_step, "followField", followField );
+      rep.saveStepAttribute( id_transformation, id_step, "locationsField", locationsField );
+      rep.saveStepAttribute( id_transformation, id_step, "streamBaseUrlField", streamBaseUrlField );
+      rep.saveStepAttribute( id_transformation, id_step, "streamQueueSizeField", streamQueueSizeField );
+      rep.saveStepAttribute( id_transformation, id_step, "overflowField", overflowField.name() );
+      rep.saveStepAttribute( id_transformation, id_step, "spillDirectoryField", spillDirectoryField );
+      for ( int i = 0; i < credentialsField.size(); i++ ) {
+        TwitterCredential credential = credentialsField.get( i );
+        rep.saveStepAttribute( id_transformation, id_step, i, "consumerKeyField", credential.getConsumerKeyField() );
+        rep.saveStepAttribute( id_transformation, id_step, i, "consumerSecretField",
+          credential.getConsumerSecretField() );
+        rep.saveStepAttribute( id_transformation, id_step, i, "accessTokenKeyField",
+          credential.getAccessTokenKeyField() );
+        rep.saveStepAttribute( id_transformation, id_step, i, "accessTokenSecretField",
+          credential.getAccessTokenSecretField() );
+      }
+      rep.saveStepAttribute( id_transformation, id_step, "credentialDispatchField", credentialDispatchField.name() );
+      rep.saveStepAttribute( id_transformation, id_step, "searchApiField", searchApiField.name() );
+      rep.saveStepAttribute( id_transformation, id_step, "baseUrlField", baseUrlField );
+      rep.saveStepAttribute( id_transformation, id_step, "keepAliveField", keepAliveField );
+      rep.saveStepAttribute( id_transformation, id_step, "gzipField", gzipField );
+      rep.saveStepAttribute( id_transformation, id_step, "connectTimeoutField", connectTimeoutField );
+      rep.saveStepAttribute( id_transformation, id_step, "readTimeoutField", readTimeoutField );
+      rep.saveStepAttribute( id_transformation, id_step, "debugField", debugField );
+      rep.saveStepAttribute( id_transformation, id_step, "maxRetriesField", maxRetriesField );
+      rep.saveStepAttribute( id_transformation, id_step, "retryDelayField", retryDelayField );
+      rep.saveStepAttribute( id_transformation, id_step, "maxRetryDelayField", maxRetryDelayField );
+      rep.saveStepAttribute( id_transformation, id_step, "breakerThresholdField", breakerThresholdField );
+      rep.saveStepAttribute( id_transformation, id_step, "breakerPauseField", breakerPauseField );
+      rep.saveStepAttribute( id_transformation, id_step, "quotaDirectoryField", quotaDirectoryField );
+      rep.saveStepAttribute( id_transformation, id_step, "metricsIntervalField", metricsIntervalField );
+      rep.saveStepAttribute( id_transformation, id_step, "jmxField", jmxField );
+      rep.saveStepAttribute( id_transformation, id_step, "aggregateField", aggregateField );
+      rep.saveStepAttribute( id_transformation, id_step, "tweetCountField", tweetCountField );
+      rep.saveStepAttribute( id_transformation, id_step, "firstTweetDateField", firstTweetDateField );
+      rep.saveStepAttribute( id_transformation, id_step, "lastTweetDateField", lastTweetDateField );
+      rep.saveStepAttribute( id_transformation, id_step, "tweetsField", tweetsField );
       rep.saveStepAttribute( id_transformation, id_step, "creationDateField", creationDateField );
       rep.saveStepAttribute( id_transformation, id_step, "authorField", authorField );
       rep.saveStepAttribute( id_transformation, id_step, "authorScreenNameField", authorScreenNameField );
       rep.saveStepAttribute( id_transformation, id_step, "authorLocationField", authorLocationField );
       rep.saveStepAttribute( id_transformation, id_step, "tweetBodyField", tweetBodyField );
+      for ( int i = 0; i < additionalFieldsField.size(); i++ ) {
+        TwitterOutputField field = additionalFieldsField.get( i );
+        rep.saveStepAttribute( id_transformation, id_step, i, "additionalFieldName", field.getNameField() );
+        rep.saveStepAttribute( id_transformation, id_step, i, "additionalFieldAttribute",
+          field.getAttributeField().name() );
+      }
+      for ( TwitterEntity.Type type : TwitterEntity.Type.values() ) {
+        rep.saveStepAttribute( id_transformation, id_step, targetTagOf( type ), getEntityStepName( type ) );
+      }
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString(
         PKG, "TwitterSearchMeta.Exception.UnableToSaveStepInfoToRepository", id_step ), e );
     }
   }
 
+  /**
+   * @return the integer attribute of the step, or the default if the step was saved before the attribute existed.
+   */
+  private static int getStepAttributeInteger( Repository rep, ObjectId id_step, String code, int defaultValue )
+    throws KettleException {
+    return rep.countNrStepAttributes( id_step, code ) == 0
+      ? defaultValue : (int) rep.getStepAttributeInteger( id_step, code );
+  }
+
+  private static String targetTagOf( TwitterEntity.Type type ) {
+    return type.name().toLowerCase( Locale.ROOT ) + "StepField";
+  }
+
+  /**
+   * The hashtags, mentions and URLs of the tweets can each be sent to a target step, one row per entity.
+   */
+  @Override
+  public StepIOMetaInterface getStepIOMeta() {
+    StepIOMetaInterface ioMeta = super.getStepIOMeta( false );
+    if ( ioMeta == null ) {
+      ioMeta = new StepIOMeta( true, true, false, false, false, false );
+      for ( TwitterEntity.Type type : TwitterEntity.Type.values() ) {
+        ioMeta.addStream( new Stream( StreamType.TARGET, null,
+          BaseMessages.getString( PKG, "TwitterSearchMeta.TargetStream." + type.name() ), StreamIcon.TARGET, null ) );
+      }
+      setStepIOMeta( ioMeta );
+    }
+    return ioMeta;
+  }
+
+  @Override
+  public void searchInfoAndTargetSteps( List<StepMeta> steps ) {
+    for ( StreamInterface stream : getStepIOMeta().getTargetStreams() ) {
+      stream.setStepMeta( StepMeta.findStep( steps, (String) stream.getSubject() ) );
+    }
+  }
+
+  @Override
+  public void resetStepIoMeta() {
+    // The target streams are part of the settings, keep them.
+  }
+
+  /**
+   * @return the name of the step the entities of the type are sent to, or null if they aren't sent.
+   */
+  public String getEntityStepName( TwitterEntity.Type type ) {
+    StreamInterface stream = getStepIOMeta().getTargetStreams().get( type.ordinal() );
+    return stream.getStepMeta() != null ? stream.getStepMeta().getName() : (String) stream.getSubject();
+  }
+
+  public void setEntityStep( TwitterEntity.Type type, StepMeta stepMeta ) {
+    StreamInterface stream = getStepIOMeta().getTargetStreams().get( type.ordinal() );
+    stream.setStepMeta( stepMeta );
+    stream.setSubject( stepMeta == null ? null : stepMeta.getName() );
+  }
+
+  /**
+   * @return true if the entities of at least one type are sent to a step.
+   */
+  public boolean hasEntitySteps() {
+    for ( TwitterEntity.Type type : TwitterEntity.Type.values() ) {
+      if ( !Utils.isEmpty( getEntityStepName( type ) ) ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Add the fields of the rows sent to the entity steps: the status ID, the type, the value and the position of
+   * the entity in the text.
+   */
+  public void getEntityFields( RowMetaInterface rowMeta, String origin ) {
+    ValueMetaInterface[] valueMetas = new ValueMetaInterface[] {
+      new ValueMetaInteger( "status_id" ),
+      new ValueMetaString( "entity_type" ),
+      new ValueMetaString( "entity_value" ),
+      new ValueMetaInteger( "entity_start" ),
+      new ValueMetaInteger( "entity_end" ) };
+    for ( ValueMetaInterface valueMeta : valueMetas ) {
+      valueMeta.setOrigin( origin );
+      rowMeta.addValueMeta( valueMeta );
+    }
+  }
+
+  /**
+   * @return the tweet attributes written to the output fields, in the order of {@link #getFields}.
+   */
+  public TwitterField[] getOutputFields() {
+    List<TwitterField> fields = new ArrayList<>();
+    if ( !Utils.isEmpty( creationDateField ) ) {
+      fields.add( TwitterField.CREATION_DATE );
+    }
+    if ( !Utils.isEmpty( authorField ) ) {
+      fields.add( TwitterField.AUTHOR_NAME );
+    }
+    if ( !Utils.isEmpty( authorScreenNameField ) ) {
+      fields.add( TwitterField.AUTHOR_SCREEN_NAME );
+    }
+    if ( !Utils.isEmpty( authorLocationField ) ) {
+      fields.add( TwitterField.AUTHOR_LOCATION );
+    }
+    if ( !Utils.isEmpty( tweetBodyField ) ) {
+      fields.add( TwitterField.TWEET_BODY );
+    }
+    for ( TwitterOutputField field : additionalFieldsField ) {
+      fields.add( field.getAttributeField() );
+    }
+    return fields.toArray( new TwitterField[0] );
+  }
+
+  /**
+   * @return the names of the output fields, in the order of {@link #getOutputFields}.
+   */
+  public String[] getOutputFieldNames() {
+    List<String> names = new ArrayList<>();
+    for ( String name : new String[] { creationDateField, authorField, authorScreenNameField, authorLocationField,
+      tweetBodyField } ) {
+      if ( !Utils.isEmpty( name ) ) {
+        names.add( name );
+      }
+    }
+    for ( TwitterOutputField field : additionalFieldsField ) {
+      names.add( field.getNameField() );
+    }
+    return names.toArray( new String[0] );
+  }
+
+  /**
+   * @return true if the tweets of each query are collected in a single output row.
+   */
+  public boolean isAggregated() {
+    // The stream has no queries to collect tweets for.
+    return aggregateField && !streamModeField;
+  }
+
+  /**
+   * @return true if only the highest ranked tweets of each query are sent.
+   */
+  public boolean isRanked() {
+    return topTweetsField > 0 && !streamModeField;
+  }
+
+  /**
+   * @return true if a reservoir sample of the tweets is sent, once each query, or the run, is done.
+   */
+  public boolean isReservoirSampled() {
+    // The top tweets are already a bounded number of tweets per query.
+    return sampleField == Sampling.RESERVOIR && sampleSizeField > 0 && !isRanked() && !streamModeField;
+  }
+
   public void getFields( RowMetaInterface rowMeta, String origin, RowMetaInterface[] info, StepMeta nextStep,
     VariableSpace space, Repository repository, IMetaStore metaStore ) throws KettleStepException {
     ValueMetaInterface valueMeta;
 
+    for ( StreamInterface stream : getStepIOMeta().getTargetStreams() ) {
+      if ( nextStep != null && nextStep.equals( stream.getStepMeta() ) ) {
+        rowMeta.clear();
+        getEntityFields( rowMeta, origin );
+        return;
+      }
+    }
+
+    if ( streamModeField ) {
+      // The stream doesn't read input rows.
+      rowMeta.clear();
+    }
+
+    if ( isAggregated() ) {
+      // The output fields are written in the JSON of the tweets.
+      valueMeta = new ValueMetaInteger( tweetCountField );
+      valueMeta.setOrigin( origin );
+      rowMeta.addValueMeta( valueMeta );
+      valueMeta = new ValueMetaDate( firstTweetDateField );
+      valueMeta.setOrigin( origin );
+      rowMeta.addValueMeta( valueMeta );
+      valueMeta = new ValueMetaDate( lastTweetDateField );
+      valueMeta.setOrigin( origin );
+      rowMeta.addValueMeta( valueMeta );
+      valueMeta = new ValueMetaString( tweetsField );
+      valueMeta.setOrigin( origin );
+      rowMeta.addValueMeta( valueMeta );
+      return;
+    }
+
     if ( !Utils.isEmpty( creationDateField ) ) {
       valueMeta = new ValueMetaDate( creationDateField );
       valueMeta.setOrigin( origin );
@@ -268,6 +871,12 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
       valueMeta.setOrigin( origin );
       rowMeta.addValueMeta( valueMeta );
     }
+
+    for ( TwitterOutputField field : additionalFieldsField ) {
+      valueMeta = field.getAttributeField().createValueMeta( field.getNameField() );
+      valueMeta.setOrigin( origin );
+      rowMeta.addValueMeta( valueMeta );
+    }
   }
   
   public void check( List<CheckResultInterface> remarks, TransMeta transMeta, 
@@ -275,6 +884,14 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
     RowMetaInterface info, VariableSpace space, Repository repository, 
     IMetaStore metaStore ) {
     CheckResult cr;
+    if ( streamModeField ) {
+      // The filter stream is an input of its own, read through a single connection.
+      if ( credentialsField.size() > 1 ) {
+        remarks.add( new CheckResult( CheckResultInterface.TYPE_RESULT_WARNING, BaseMessages.getString( PKG,
+          "TwitterSearchMeta.CheckResult.StreamCredentials", credentialsField.size() ), stepMeta ) );
+      }
+      return;
+    }
     if ( prev == null || prev.size() == 0 ) {
       cr = new CheckResult( CheckResultInterface.TYPE_RESULT_WARNING, BaseMessages.getString( PKG, "TwitterSearchMeta.CheckResult.NotReceivingFields" ), stepMeta ); 
       remarks.add( cr );
@@ -313,36 +930,180 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
     this.searchQueryField = searchQueryField;
   }
 
-  public String getConsumerKeyField() {
-    return consumerKeyField;
+  public List<TwitterCredential> getCredentialsField() {
+    return credentialsField;
+  }
+
+  public void setCredentialsField( List<TwitterCredential> credentialsField ) {
+    this.credentialsField = credentialsField;
+  }
+
+  public Dispatch getCredentialDispatchField() {
+    return credentialDispatchField;
+  }
+
+  public void setCredentialDispatchField( String credentialDispatchField ) {
+    this.credentialDispatchField = Dispatch.valueOf( credentialDispatchField );
+  }
+
+  public Type getSearchApiField() {
+    return searchApiField;
+  }
+
+  public void setSearchApiField( String searchApiField ) {
+    this.searchApiField = Type.valueOf( searchApiField );
+  }
+
+  public String getBaseUrlField() {
+    return baseUrlField;
+  }
+
+  public void setBaseUrlField( String baseUrlField ) {
+    this.baseUrlField = baseUrlField;
+  }
+
+  public boolean isKeepAliveField() {
+    return keepAliveField;
+  }
+
+  public void setKeepAliveField( boolean keepAliveField ) {
+    this.keepAliveField = keepAliveField;
+  }
+
+  public boolean isGzipField() {
+    return gzipField;
+  }
+
+  public void setGzipField( boolean gzipField ) {
+    this.gzipField = gzipField;
+  }
+
+  public int getConnectTimeoutField() {
+    return connectTimeoutField;
+  }
+
+  public void setConnectTimeoutField( int connectTimeoutField ) {
+    this.connectTimeoutField = connectTimeoutField;
+  }
+
+  public int getReadTimeoutField() {
+    return readTimeoutField;
+  }
+
+  public void setReadTimeoutField( int readTimeoutField ) {
+    this.readTimeoutField = readTimeoutField;
+  }
+
+  public boolean isDebugField() {
+    return debugField;
+  }
+
+  public void setDebugField( boolean debugField ) {
+    this.debugField = debugField;
+  }
+
+  public int getMaxRetriesField() {
+    return maxRetriesField;
+  }
+
+  public void setMaxRetriesField( int maxRetriesField ) {
+    this.maxRetriesField = maxRetriesField;
+  }
+
+  public int getRetryDelayField() {
+    return retryDelayField;
+  }
+
+  public void setRetryDelayField( int retryDelayField ) {
+    this.retryDelayField = retryDelayField;
+  }
+
+  public int getMaxRetryDelayField() {
+    return maxRetryDelayField;
+  }
+
+  public void setMaxRetryDelayField( int maxRetryDelayField ) {
+    this.maxRetryDelayField = maxRetryDelayField;
+  }
+
+  public int getBreakerThresholdField() {
+    return breakerThresholdField;
+  }
+
+  public void setBreakerThresholdField( int breakerThresholdField ) {
+    this.breakerThresholdField = breakerThresholdField;
+  }
+
+  public int getBreakerPauseField() {
+    return breakerPauseField;
+  }
+
+  public void setBreakerPauseField( int breakerPauseField ) {
+    this.breakerPauseField = breakerPauseField;
+  }
+
+  public String getQuotaDirectoryField() {
+    return quotaDirectoryField;
+  }
+
+  public void setQuotaDirectoryField( String quotaDirectoryField ) {
+    this.quotaDirectoryField = quotaDirectoryField;
+  }
+
+  public int getMetricsIntervalField() {
+    return metricsIntervalField;
+  }
+
+  public void setMetricsIntervalField( int metricsIntervalField ) {
+    this.metricsIntervalField = metricsIntervalField;
+  }
+
+  public boolean isJmxField() {
+    return jmxField;
+  }
+
+  public void setJmxField( boolean jmxField ) {
+    this.jmxField = jmxField;
+  }
+
+  public boolean isAggregateField() {
+    return aggregateField;
   }
 
-  public void setConsumerKeyField( String consumerKeyField ) {
-    this.consumerKeyField = consumerKeyField;
+  public void setAggregateField( boolean aggregateField ) {
+    this.aggregateField = aggregateField;
   }
 
-  public String getConsumerSecretField() {
-    return consumerSecretField;
+  public String getTweetCountField() {
+    return tweetCountField;
   }
 
-  public void setConsumerSecretField( String consumerSecretField ) {
-    this.consumerSecretField = consumerSecretField;
+  public void setTweetCountField( String tweetCountField ) {
+    this.tweetCountField = tweetCountField;
   }
 
-  public String getAccessTokenKeyField() {
-    return accessTokenKeyField;
+  public String getFirstTweetDateField() {
+    return firstTweetDateField;
   }
 
-  public void setAccessTokenKeyField( String accessTokenKeyField ) {
-    this.accessTokenKeyField = accessTokenKeyField;
+  public void setFirstTweetDateField( String firstTweetDateField ) {
+    this.firstTweetDateField = firstTweetDateField;
   }
 
-  public String getAccessTokenSecretField() {
-    return accessTokenSecretField;
+  public String getLastTweetDateField() {
+    return lastTweetDateField;
   }
 
-  public void setAccessTokenSecretField( String accessTokenSecretField ) {
-    this.accessTokenSecretField = accessTokenSecretField;
+  public void setLastTweetDateField( String lastTweetDateField ) {
+    this.lastTweetDateField = lastTweetDateField;
+  }
+
+  public String getTweetsField() {
+    return tweetsField;
+  }
+
+  public void setTweetsField( String tweetsField ) {
+    this.tweetsField = tweetsField;
   }
 
   public ResultType getResultTypeField() {
@@ -382,6 +1143,286 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
     this.onlyVerifiedUsersField = onlyVerifiedUsersField;
   }
 
+  public boolean isExcludeRetweetsField() {
+    return excludeRetweetsField;
+  }
+
+  public void setExcludeRetweetsField( boolean excludeRetweetsField ) {
+    this.excludeRetweetsField = excludeRetweetsField;
+  }
+
+  public boolean isExcludeRepliesField() {
+    return excludeRepliesField;
+  }
+
+  public void setExcludeRepliesField( boolean excludeRepliesField ) {
+    this.excludeRepliesField = excludeRepliesField;
+  }
+
+  public String getUntilField() {
+    return untilField;
+  }
+
+  public void setUntilField( String untilField ) {
+    this.untilField = untilField;
+  }
+
+  public String getGeocodeField() {
+    return geocodeField;
+  }
+
+  public void setGeocodeField( String geocodeField ) {
+    this.geocodeField = geocodeField;
+  }
+
+  public int getWindowsField() {
+    return windowsField;
+  }
+
+  public void setWindowsField( int windowsField ) {
+    this.windowsField = windowsField;
+  }
+
+  public int getConcurrencyField() {
+    return concurrencyField;
+  }
+
+  public void setConcurrencyField( int concurrencyField ) {
+    this.concurrencyField = concurrencyField;
+  }
+
+  public boolean isPreserveOrderField() {
+    return preserveOrderField;
+  }
+
+  public void setPreserveOrderField( boolean preserveOrderField ) {
+    this.preserveOrderField = preserveOrderField;
+  }
+
+  public int getPageSizeField() {
+    return pageSizeField;
+  }
+
+  public void setPageSizeField( int pageSizeField ) {
+    this.pageSizeField = pageSizeField;
+  }
+
+  public int getMaxPagesField() {
+    return maxPagesField;
+  }
+
+  public void setMaxPagesField( int maxPagesField ) {
+    this.maxPagesField = maxPagesField;
+  }
+
+  public int getMaxTweetsField() {
+    return maxTweetsField;
+  }
+
+  public void setMaxTweetsField( int maxTweetsField ) {
+    this.maxTweetsField = maxTweetsField;
+  }
+
+  public int getTopTweetsField() {
+    return topTweetsField;
+  }
+
+  public void setTopTweetsField( int topTweetsField ) {
+    this.topTweetsField = topTweetsField;
+  }
+
+  public TwitterField getRankField() {
+    return rankField;
+  }
+
+  public void setRankField( String rankField ) {
+    this.rankField = TwitterField.valueOf( rankField );
+  }
+
+  public Sampling getSampleField() {
+    return sampleField;
+  }
+
+  public void setSampleField( String sampleField ) {
+    this.sampleField = Sampling.valueOf( sampleField );
+  }
+
+  public int getSampleSizeField() {
+    return sampleSizeField;
+  }
+
+  public void setSampleSizeField( int sampleSizeField ) {
+    this.sampleSizeField = sampleSizeField;
+  }
+
+  public double getSampleRateField() {
+    return sampleRateField;
+  }
+
+  public void setSampleRateField( double sampleRateField ) {
+    this.sampleRateField = sampleRateField;
+  }
+
+  public boolean isSampleRunField() {
+    return sampleRunField;
+  }
+
+  public void setSampleRunField( boolean sampleRunField ) {
+    this.sampleRunField = sampleRunField;
+  }
+
+  public String getSampleSeedField() {
+    return sampleSeedField;
+  }
+
+  public void setSampleSeedField( String sampleSeedField ) {
+    this.sampleSeedField = sampleSeedField;
+  }
+
+  public int getMaxAgeField() {
+    return maxAgeField;
+  }
+
+  public void setMaxAgeField( int maxAgeField ) {
+    this.maxAgeField = maxAgeField;
+  }
+
+  public String getCheckpointFileField() {
+    return checkpointFileField;
+  }
+
+  public void setCheckpointFileField( String checkpointFileField ) {
+    this.checkpointFileField = checkpointFileField;
+  }
+
+  public String getJournalFileField() {
+    return journalFileField;
+  }
+
+  public void setJournalFileField( String journalFileField ) {
+    this.journalFileField = journalFileField;
+  }
+
+  public int getCacheSizeField() {
+    return cacheSizeField;
+  }
+
+  public void setCacheSizeField( int cacheSizeField ) {
+    this.cacheSizeField = cacheSizeField;
+  }
+
+  public int getCacheTtlField() {
+    return cacheTtlField;
+  }
+
+  public void setCacheTtlField( int cacheTtlField ) {
+    this.cacheTtlField = cacheTtlField;
+  }
+
+  public String getCacheDirectoryField() {
+    return cacheDirectoryField;
+  }
+
+  public void setCacheDirectoryField( String cacheDirectoryField ) {
+    this.cacheDirectoryField = cacheDirectoryField;
+  }
+
+  public Dedup getDedupField() {
+    return dedupField;
+  }
+
+  public void setDedupField( String dedupField ) {
+    this.dedupField = Dedup.valueOf( dedupField );
+  }
+
+  public int getDedupExpectedField() {
+    return dedupExpectedField;
+  }
+
+  public void setDedupExpectedField( int dedupExpectedField ) {
+    this.dedupExpectedField = dedupExpectedField;
+  }
+
+  public boolean isCoalesceField() {
+    return coalesceField;
+  }
+
+  public void setCoalesceField( boolean coalesceField ) {
+    this.coalesceField = coalesceField;
+  }
+
+  public int getMaxQueryLengthField() {
+    return maxQueryLengthField;
+  }
+
+  public void setMaxQueryLengthField( int maxQueryLengthField ) {
+    this.maxQueryLengthField = maxQueryLengthField;
+  }
+
+  public boolean isStreamModeField() {
+    return streamModeField;
+  }
+
+  public void setStreamModeField( boolean streamModeField ) {
+    this.streamModeField = streamModeField;
+  }
+
+  public String getTrackField() {
+    return trackField;
+  }
+
+  public void setTrackField( String trackField ) {
+    this.trackField = trackField;
+  }
+
+  public String getFollowField() {
+    return followField;
+  }
+
+  public void setFollowField( String followField ) {
+    this.followField = followField;
+  }
+
+  public String getLocationsField() {
+    return locationsField;
+  }
+
+  public void setLocationsField( String locationsField ) {
+    this.locationsField = locationsField;
+  }
+
+  public String getStreamBaseUrlField() {
+    return streamBaseUrlField;
+  }
+
+  public void setStreamBaseUrlField( String streamBaseUrlField ) {
+    this.streamBaseUrlField = streamBaseUrlField;
+  }
+
+  public int getStreamQueueSizeField() {
+    return streamQueueSizeField;
+  }
+
+  public void setStreamQueueSizeField( int streamQueueSizeField ) {
+    this.streamQueueSizeField = streamQueueSizeField;
+  }
+
+  public Overflow getOverflowField() {
+    return overflowField;
+  }
+
+  public void setOverflowField( String overflowField ) {
+    this.overflowField = Overflow.valueOf( overflowField );
+  }
+
+  public String getSpillDirectoryField() {
+    return spillDirectoryField;
+  }
+
+  public void setSpillDirectoryField( String spillDirectoryField ) {
+    this.spillDirectoryField = spillDirectoryField;
+  }
+
   public String[] getSupportedLanguages() {
     String[] languages = supportedLanguages.keySet().toArray( new String[0] );
     Arrays.sort( languages );
@@ -427,4 +1468,12 @@ public class TwitterSearchMeta extends BaseStepMeta implements StepMetaInterface
   public void setTweetBodyField( String tweetBodyField ) {
     this.tweetBodyField = tweetBodyField;
   }
+
+  public List<TwitterOutputField> getAdditionalFieldsField() {
+    return additionalFieldsField;
+  }
+
+  public void setAdditionalFieldsField( List<TwitterOutputField> additionalFieldsField ) {
+    this.additionalFieldsField = additionalFieldsField;
+  }
 }
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts the search calls of a step copy and the tweets they return, and keeps a histogram of the call latencies.
+ * The histogram has four buckets per power of two microseconds, so percentiles are within 25% of the exact value.
+ */
+public class TwitterSearchMetrics implements TwitterSearchMetricsMXBean {
+  // Enough buckets for calls of up to 2^40 microseconds.
+  private static final int BUCKETS = 160;
+
+  private final long start = System.nanoTime();
+  private final AtomicLongArray latencies = new AtomicLongArray( BUCKETS );
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong received = new AtomicLong();
+  private final AtomicLong emitted = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final LongSupplier retries;
+  private final LongSupplier budget;
+
+  /**
+   * @param retries tells how many failed calls were made again.
+   * @param budget tells how many calls are left in the rate limit windows, or -1 if it is unknown.
+   */
+  public TwitterSearchMetrics( LongSupplier retries, LongSupplier budget ) {
+    this.retries = retries;
+    this.budget = budget;
+  }
+
+  /**
+   * @return the API making its calls through the given one, timing each of them.
+   */
+  public TwitterSearchApi timed( TwitterSearchApi api ) {
+    return ( lease, query ) -> {
+      long begin = System.nanoTime();
+      try {
+        return api.search( lease, query );
+      } finally {
+        recordCall( System.nanoTime() - begin );
+      }
+    };
+  }
+
+  public void recordCall( long nanos ) {
+    calls.incrementAndGet();
+    latencies.incrementAndGet( bucketOf( TimeUnit.NANOSECONDS.toMicros( nanos ) ) );
+  }
+
+  public void recordReceived( int tweets ) {
+    received.addAndGet( tweets );
+  }
+
+  public void recordEmitted() {
+    emitted.incrementAndGet();
+  }
+
+  /**
+   * Record a received tweet left out by the filters of the step.
+   */
+  public void recordDropped() {
+    dropped.incrementAndGet();
+  }
+
+  @Override
+  public long getCalls() {
+    return calls.get();
+  }
+
+  @Override
+  public double getLatencyP50Millis() {
+    return percentile( 0.50 );
+  }
+
+  @Override
+  public double getLatencyP95Millis() {
+    return percentile( 0.95 );
+  }
+
+  @Override
+  public double getLatencyP99Millis() {
+    return percentile( 0.99 );
+  }
+
+  @Override
+  public long getTweetsReceived() {
+    return received.get();
+  }
+
+  @Override
+  public long getTweetsEmitted() {
+    return emitted.get();
+  }
+
+  @Override
+  public double getTweetsPerSecond() {
+    double seconds = ( System.nanoTime() - start ) / (double) TimeUnit.SECONDS.toNanos( 1 );
+    return seconds > 0 ? emitted.get() / seconds : 0;
+  }
+
+  @Override
+  public double getDropRatio() {
+    long total = received.get();
+    return total > 0 ? dropped.get() / (double) total : 0;
+  }
+
+  @Override
+  public long getRetries() {
+    return retries.getAsLong();
+  }
+
+  @Override
+  public long getRemainingBudget() {
+    return budget.getAsLong();
+  }
+
+  /**
+   * @return the latency, in milliseconds, under which the given share of the calls completed.
+   */
+  private double percentile( double share ) {
+    long total = 0;
+    long[] counts = new long[ BUCKETS ];
+    for ( int i = 0; i < BUCKETS; i++ ) {
+      counts[ i ] = latencies.get( i );
+      total += counts[ i ];
+    }
+    long rank = (long) Math.ceil( share * total );
+    long seen = 0;
+    for ( int i = 0; i < BUCKETS; i++ ) {
+      seen += counts[ i ];
+      if ( seen >= rank && counts[ i ] > 0 ) {
+        return upperBoundOf( i ) / 1000.0;
+      }
+    }
+    return 0;
+  }
+
+  private static int bucketOf( long micros ) {
+    if ( micros < 4 ) {
+      return (int) Math.max( 0, micros );
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros( micros );
+    int fraction = (int) ( ( micros >>> ( exponent - 2 ) ) & 3 );
+    return Math.min( BUCKETS - 1, exponent * 4 + fraction - 4 );
+  }
+
+  private static long upperBoundOf( int bucket ) {
+    if ( bucket < 4 ) {
+      return bucket;
+    }
+    int exponent = ( bucket + 4 ) / 4;
+    int fraction = ( bucket + 4 ) % 4;
+    return ( ( 4L + fraction + 1 ) << ( exponent - 2 ) ) - 1;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.QueryResult;
+import twitter4j.Status;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of search results, holding for each tweet only the values of the output fields and the
+ * attributes the step filters on.
+ */
+public class TwitterSearchPage implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * A tweet of the page.
+   */
+  public static class Tweet implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long id;
+    private final long createdAt;
+    private final boolean possiblySensitive;
+    private final boolean authorVerified;
+    private final Object[] values;
+    private final List<TwitterEntity> entities;
+
+    /**
+     * @param createdAt the creation time of the tweet, in milliseconds.
+     * @param values the values of the output fields, in their order.
+     */
+    public Tweet( long id, long createdAt, boolean possiblySensitive, boolean authorVerified, Object[] values ) {
+      this( id, createdAt, possiblySensitive, authorVerified, values, null );
+    }
+
+    /**
+     * @param entities the hashtags, mentions and URLs of the tweet, or null if they weren't read.
+     */
+    public Tweet( long id, long createdAt, boolean possiblySensitive, boolean authorVerified, Object[] values,
+      List<TwitterEntity> entities ) {
+      this.id = id;
+      this.createdAt = createdAt;
+      this.possiblySensitive = possiblySensitive;
+      this.authorVerified = authorVerified;
+      this.values = values;
+      this.entities = entities;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    public long getCreatedAt() {
+      return createdAt;
+    }
+
+    public boolean isPossiblySensitive() {
+      return possiblySensitive;
+    }
+
+    public boolean isAuthorVerified() {
+      return authorVerified;
+    }
+
+    public Object[] getValues() {
+      return values;
+    }
+
+    /**
+     * @return the hashtags, mentions and URLs of the tweet, or null if they weren't read.
+     */
+    public List<TwitterEntity> getEntities() {
+      return entities;
+    }
+  }
+
+  private final List<Tweet> tweets;
+  private final boolean hasNext;
+
+  public TwitterSearchPage( List<Tweet> tweets, boolean hasNext ) {
+    this.tweets = tweets;
+    this.hasNext = hasNext;
+  }
+
+  /**
+   * @return the page of a twitter4j result, keeping the values of the given output fields.
+   */
+  public static TwitterSearchPage of( QueryResult result, TwitterField[] fields ) {
+    return of( result, fields, false );
+  }
+
+  /**
+   * @param entities whether the hashtags, mentions and URLs of the tweets are kept too.
+   * @return the page of a twitter4j result, keeping the values of the given output fields.
+   */
+  public static TwitterSearchPage of( QueryResult result, TwitterField[] fields, boolean entities ) {
+    List<Tweet> tweets = new ArrayList<>( result.getTweets().size() );
+    for ( Status status : result.getTweets() ) {
+      Object[] values = new Object[ fields.length ];
+      for ( int i = 0; i < fields.length; i++ ) {
+        values[ i ] = fields[ i ].extract( status );
+      }
+      tweets.add( new Tweet( status.getId(), status.getCreatedAt().getTime(), status.isPossiblySensitive(),
+        status.getUser().isVerified(), values, entities ? TwitterEntity.of( status ) : null ) );
+    }
+    return new TwitterSearchPage( tweets, result.hasNext() );
+  }
+
+  public List<Tweet> getTweets() {
+    return tweets;
+  }
+
+  /**
+   * @return true if older tweets match the query.
+   */
+  public boolean hasNext() {
+    return hasNext;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Keeps up to a fixed number of search tasks in flight on a bounded executor.
+ * Completed tasks are handed back either in submission order or as soon as they finish.
+ * A concurrency of one runs every task on the calling thread.
+ */
+public class TwitterSearchPipeline {
+  private final int capacity;
+  private final boolean preserveOrder;
+  private final ExecutorService executor;
+  private final Deque<Future<TwitterSearchTask>> ordered = new ArrayDeque<>();
+  private final CompletionService<TwitterSearchTask> completion;
+  private int inFlight;
+
+  public TwitterSearchPipeline( String name, int concurrency, boolean preserveOrder ) {
+    this.capacity = Math.max( 1, concurrency );
+    this.preserveOrder = preserveOrder;
+    if ( capacity == 1 ) {
+      // Tasks run one at a time on the calling thread, and are handed back as they were submitted.
+      executor = null;
+      completion = null;
+    } else {
+      executor = Executors.newFixedThreadPool( capacity, new ThreadFactoryBuilder()
+        .setNameFormat( name + "-%d" )
+        .setDaemon( true )
+        .build() );
+      completion = new ExecutorCompletionService<>( executor );
+    }
+  }
+
+  /**
+   * Queue a task behind everything already submitted.
+   */
+  public void submit( TwitterSearchTask task ) {
+    if ( executor == null ) {
+      ordered.addLast( run( task ) );
+    } else if ( preserveOrder ) {
+      ordered.addLast( executor.submit( task ) );
+    } else {
+      completion.submit( task );
+    }
+    inFlight++;
+  }
+
+  /**
+   * Queue a task ahead of everything still waiting to be handed back.
+   * Used for the following page of a query, so that all its pages stay together when order is preserved.
+   */
+  public void submitFirst( TwitterSearchTask task ) {
+    if ( executor == null ) {
+      ordered.addFirst( run( task ) );
+    } else if ( preserveOrder ) {
+      ordered.addFirst( executor.submit( task ) );
+    } else {
+      completion.submit( task );
+    }
+    inFlight++;
+  }
+
+  private static Future<TwitterSearchTask> run( TwitterSearchTask task ) {
+    FutureTask<TwitterSearchTask> future = new FutureTask<>( task );
+    future.run();
+    return future;
+  }
+
+  /**
+   * Wait for the next task to hand back, or return null when nothing is in flight.
+   */
+  public TwitterSearchTask take() throws InterruptedException, ExecutionException {
+    if ( inFlight == 0 ) {
+      return null;
+    }
+    Future<TwitterSearchTask> future = completion == null || preserveOrder ? ordered.pollFirst() : completion.take();
+    inFlight--;
+    return future.get();
+  }
+
+  /**
+   * Return the next task only if it is already done, without blocking.
+   */
+  public TwitterSearchTask poll() throws InterruptedException, ExecutionException {
+    if ( inFlight == 0 ) {
+      return null;
+    }
+    Future<TwitterSearchTask> future;
+    if ( completion == null || preserveOrder ) {
+      future = ordered.peekFirst().isDone() ? ordered.pollFirst() : null;
+    } else {
+      future = completion.poll();
+    }
+    if ( future == null ) {
+      return null;
+    }
+    inFlight--;
+    return future.get();
+  }
+
+  public boolean isFull() {
+    return inFlight >= capacity;
+  }
+
+  public boolean isEmpty() {
+    return inFlight == 0;
+  }
+
+  public void shutdown() {
+    if ( executor != null ) {
+      executor.shutdownNow();
+    }
+  }
+}
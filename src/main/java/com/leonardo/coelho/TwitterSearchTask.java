@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import twitter4j.Query;
+import twitter4j.TwitterException;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A single search call for one page of results of one input row, of one window of its query, or of a batch of
+ * input rows.
+ * The call never throws a {@link TwitterException}: it is kept on the task so the step thread can report it.
+ * A task interrupted while waiting for the rate limit ends without result nor exception.
+ */
+public class TwitterSearchTask implements Callable<TwitterSearchTask> {
+  private final TwitterSearchClient client;
+  private final Object[] row;
+  private final TwitterQueryBatch batch;
+  private final TwitterQueryWindows windows;
+  private final int window;
+  private final Query query;
+  private final int page;
+  private final long emitted;
+  private final long highestId;
+  private TwitterSearchPage result;
+  private TwitterException exception;
+
+  public TwitterSearchTask( TwitterSearchClient client, Object[] row, Query query ) {
+    this( client, row, null, null, 0, query, 1, 0, 0 );
+  }
+
+  /**
+   * @param windows the windows the query of the row was split in.
+   * @param window the index of the window searched.
+   * @param query the query of the window.
+   */
+  public TwitterSearchTask( TwitterSearchClient client, Object[] row, TwitterQueryWindows windows, int window,
+    Query query ) {
+    this( client, row, null, windows, window, query, 1, 0, 0 );
+  }
+
+  /**
+   * @param query the combined query of the batch.
+   */
+  public TwitterSearchTask( TwitterSearchClient client, TwitterQueryBatch batch, Query query ) {
+    this( client, null, batch, null, 0, query, 1, 0, 0 );
+  }
+
+  private TwitterSearchTask( TwitterSearchClient client, Object[] row, TwitterQueryBatch batch,
+    TwitterQueryWindows windows, int window, Query query, int page, long emitted, long highestId ) {
+    this.client = client;
+    this.row = row;
+    this.batch = batch;
+    this.windows = windows;
+    this.window = window;
+    this.query = query;
+    this.page = page;
+    this.emitted = emitted;
+    this.highestId = highestId;
+  }
+
+  /**
+   * Build the task fetching the page that follows this one.
+   * Only call it once this task has completed, as the query is reused.
+   *
+   * @param maxId the highest status ID the next page may contain.
+   * @param emitted the number of tweets emitted so far for this input row.
+   * @param highestId the highest status ID seen so far for this input row.
+   */
+  public TwitterSearchTask nextPage( long maxId, long emitted, long highestId ) {
+    query.setMaxId( maxId );
+    return new TwitterSearchTask( client, row, batch, windows, window, query, page + 1, emitted, highestId );
+  }
+
+  /**
+   * Build the task searching one row of the batch on its own, from the page of this task on.
+   * Only call it once this task has completed, for each row of the batch.
+   */
+  public TwitterSearchTask split( int i ) {
+    Query single = batch.getQuery( i );
+    if ( query.getMaxId() > 0 ) {
+      single.setMaxId( query.getMaxId() );
+    }
+    return new TwitterSearchTask( client, batch.getRow( i ), null, null, 0, single, page, batch.getEmitted( i ),
+      highestId );
+  }
+
+  /**
+   * Build the task fetching the page that follows the last one done by a previous run, within the bounds the query
+   * had in that run.
+   * Only call it before this task was submitted, as the query is reused.
+   */
+  public TwitterSearchTask resume( TwitterPaginationJournal.Cursor cursor ) {
+    // A checkpoint or cutoff moved since, or the windows of this run, would page past the tweets already sent.
+    query.setSinceId( cursor.getSinceId() );
+    if ( cursor.getMaxId() > 0 ) {
+      query.setMaxId( cursor.getMaxId() );
+    }
+    return new TwitterSearchTask( client, row, batch, windows, window, query, cursor.getPage() + 1,
+      cursor.getEmitted(), cursor.getHighestId() );
+  }
+
+  @Override
+  public TwitterSearchTask call() {
+    try {
+      result = client.search( query );
+    } catch ( TwitterException e ) {
+      exception = e;
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    return this;
+  }
+
+  public Object[] getRow() {
+    return row;
+  }
+
+  /**
+   * @return the batch of input rows searched together, or null for a single row.
+   */
+  public TwitterQueryBatch getBatch() {
+    return batch;
+  }
+
+  /**
+   * @return the windows the query of the row was split in, or null if it wasn't split.
+   */
+  public TwitterQueryWindows getWindows() {
+    return windows;
+  }
+
+  /**
+   * @return the index of the window searched, if the query was split in windows.
+   */
+  public int getWindow() {
+    return window;
+  }
+
+  public Query getQuery() {
+    return query;
+  }
+
+  public int getPage() {
+    return page;
+  }
+
+  public long getEmitted() {
+    return emitted;
+  }
+
+  public long getHighestId() {
+    return highestId;
+  }
+
+  public TwitterSearchPage getResult() {
+    return result;
+  }
+
+  public TwitterException getException() {
+    return exception;
+  }
+}
@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads tweets from API responses as they are parsed, keeping only the attributes selected by the output fields.
+ * A parser reuses its buffer from one tweet to the next, so it must not be shared between threads.
+ */
+public class TwitterStatusParser {
+  public static final JsonFactory JSON = new JsonFactory();
+
+  private static final DateTimeFormatter CREATED_AT =
+    DateTimeFormatter.ofPattern( "EEE MMM dd HH:mm:ss Z yyyy", Locale.ENGLISH );
+
+  // Attributes read as a plain value of the tweet or of its author.
+  private static final Map<String, TwitterField> STATUS_VALUES = new HashMap<>();
+  private static final Map<String, TwitterField> USER_VALUES = new HashMap<>();
+
+  static {
+    STATUS_VALUES.put( "retweet_count", TwitterField.RETWEET_COUNT );
+    STATUS_VALUES.put( "favorite_count", TwitterField.FAVORITE_COUNT );
+    STATUS_VALUES.put( "in_reply_to_status_id", TwitterField.IN_REPLY_TO_STATUS_ID );
+    STATUS_VALUES.put( "in_reply_to_screen_name", TwitterField.IN_REPLY_TO_SCREEN_NAME );
+    STATUS_VALUES.put( "quoted_status_id", TwitterField.QUOTED_STATUS_ID );
+    STATUS_VALUES.put( "lang", TwitterField.LANGUAGE );
+    STATUS_VALUES.put( "source", TwitterField.SOURCE );
+    USER_VALUES.put( "id", TwitterField.AUTHOR_ID );
+    USER_VALUES.put( "name", TwitterField.AUTHOR_NAME );
+    USER_VALUES.put( "screen_name", TwitterField.AUTHOR_SCREEN_NAME );
+    USER_VALUES.put( "location", TwitterField.AUTHOR_LOCATION );
+    USER_VALUES.put( "followers_count", TwitterField.AUTHOR_FOLLOWERS_COUNT );
+    USER_VALUES.put( "friends_count", TwitterField.AUTHOR_FRIENDS_COUNT );
+  }
+
+  private final TwitterField[] fields;
+  private final boolean entities;
+  private final boolean[] wanted = new boolean[ TwitterField.values().length ];
+  // Only the values of the output fields are copied out of it.
+  private final Object[] attributes = new Object[ wanted.length ];
+
+  public TwitterStatusParser( TwitterField[] fields ) {
+    this( fields, false );
+  }
+
+  /**
+   * @param entities whether the hashtags, mentions and URLs of the tweets are read too.
+   */
+  public TwitterStatusParser( TwitterField[] fields, boolean entities ) {
+    this.fields = fields;
+    this.entities = entities;
+    for ( TwitterField field : fields ) {
+      wanted[ field.ordinal() ] = true;
+    }
+  }
+
+  /**
+   * Read the object the parser is on.
+   *
+   * @return the tweet, or null if the object isn't a tweet.
+   */
+  public TwitterSearchPage.Tweet parse( JsonParser json ) throws IOException {
+    Arrays.fill( attributes, null );
+    long id = -1;
+    long createdAt = 0;
+    boolean possiblySensitive = false;
+    boolean authorVerified = false;
+    List<TwitterEntity> found = null;
+    while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = json.getCurrentName();
+      JsonToken token = json.nextToken();
+      if ( token == JsonToken.VALUE_NULL ) {
+        continue;
+      }
+      switch ( name ) {
+        case "id":
+          id = json.getLongValue();
+          break;
+        case "created_at":
+          createdAt = parseDate( json );
+          break;
+        case "text":
+        case "full_text":
+          if ( wanted[ TwitterField.TWEET_BODY.ordinal() ] ) {
+            attributes[ TwitterField.TWEET_BODY.ordinal() ] = unescape( json.getText() );
+          }
+          break;
+        case "possibly_sensitive":
+          possiblySensitive = json.getBooleanValue();
+          break;
+        case "user":
+          authorVerified = parseUser( json );
+          break;
+        case "retweeted_status":
+          if ( wanted[ TwitterField.RETWEETED_STATUS_ID.ordinal() ] ) {
+            attributes[ TwitterField.RETWEETED_STATUS_ID.ordinal() ] = parseId( json );
+          } else {
+            json.skipChildren();
+          }
+          break;
+        case "entities":
+          if ( entities ) {
+            found = parseEntities( json );
+            if ( wanted[ TwitterField.HASHTAGS.ordinal() ] ) {
+              attributes[ TwitterField.HASHTAGS.ordinal() ] = joinHashtags( found );
+            }
+          } else if ( wanted[ TwitterField.HASHTAGS.ordinal() ] ) {
+            attributes[ TwitterField.HASHTAGS.ordinal() ] = parseHashtags( json );
+          } else {
+            json.skipChildren();
+          }
+          break;
+        case "coordinates":
+          if ( wanted[ TwitterField.LATITUDE.ordinal() ] || wanted[ TwitterField.LONGITUDE.ordinal() ] ) {
+            parseCoordinates( json );
+          } else {
+            json.skipChildren();
+          }
+          break;
+        case "place":
+          if ( wanted[ TwitterField.PLACE.ordinal() ] ) {
+            attributes[ TwitterField.PLACE.ordinal() ] = parseString( json, "full_name" );
+          } else {
+            json.skipChildren();
+          }
+          break;
+        default:
+          readValue( json, STATUS_VALUES.get( name ) );
+          break;
+      }
+    }
+    if ( id < 0 ) {
+      // Stream messages such as deletions and limit notices.
+      return null;
+    }
+    if ( wanted[ TwitterField.STATUS_ID.ordinal() ] ) {
+      attributes[ TwitterField.STATUS_ID.ordinal() ] = id;
+    }
+    if ( wanted[ TwitterField.CREATION_DATE.ordinal() ] ) {
+      attributes[ TwitterField.CREATION_DATE.ordinal() ] = new Date( createdAt );
+    }
+    if ( wanted[ TwitterField.POSSIBLY_SENSITIVE.ordinal() ] ) {
+      attributes[ TwitterField.POSSIBLY_SENSITIVE.ordinal() ] = possiblySensitive;
+    }
+    if ( wanted[ TwitterField.AUTHOR_VERIFIED.ordinal() ] ) {
+      attributes[ TwitterField.AUTHOR_VERIFIED.ordinal() ] = authorVerified;
+    }
+
+    Object[] values = new Object[ fields.length ];
+    for ( int i = 0; i < fields.length; i++ ) {
+      values[ i ] = attributes[ fields[ i ].ordinal() ];
+    }
+    if ( entities && found == null ) {
+      found = Collections.emptyList();
+    }
+    return new TwitterSearchPage.Tweet( id, createdAt, possiblySensitive, authorVerified, values, found );
+  }
+
+  /**
+   * @return whether the user is verified.
+   */
+  private boolean parseUser( JsonParser json ) throws IOException {
+    boolean verified = false;
+    if ( json.getCurrentToken() != JsonToken.START_OBJECT ) {
+      json.skipChildren();
+      return false;
+    }
+    while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = json.getCurrentName();
+      JsonToken token = json.nextToken();
+      if ( "verified".equals( name ) ) {
+        verified = token == JsonToken.VALUE_TRUE;
+      } else if ( token != JsonToken.VALUE_NULL ) {
+        readValue( json, USER_VALUES.get( name ) );
+      }
+    }
+    return verified;
+  }
+
+  /**
+   * Keep the current value if it is an attribute of an output field, skip it otherwise.
+   */
+  private void readValue( JsonParser json, TwitterField field ) throws IOException {
+    if ( field == null || !wanted[ field.ordinal() ] || json.getCurrentToken().isStructStart() ) {
+      json.skipChildren();
+      return;
+    }
+    switch ( field.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        attributes[ field.ordinal() ] = json.getValueAsLong();
+        break;
+      case ValueMetaInterface.TYPE_NUMBER:
+        attributes[ field.ordinal() ] = json.getValueAsDouble();
+        break;
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        attributes[ field.ordinal() ] = json.getValueAsBoolean();
+        break;
+      default:
+        attributes[ field.ordinal() ] = json.getText();
+        break;
+    }
+  }
+
+  private static long parseDate( JsonParser json ) throws IOException {
+    try {
+      return ZonedDateTime.parse( json.getText(), CREATED_AT ).toInstant().toEpochMilli();
+    } catch ( DateTimeParseException e ) {
+      throw new JsonParseException( json, "Invalid date " + json.getText(), e );
+    }
+  }
+
+  private static Long parseId( JsonParser json ) throws IOException {
+    return json.getCurrentToken() == JsonToken.START_OBJECT ? (Long) parseMember( json, "id" ) : null;
+  }
+
+  private static String parseString( JsonParser json, String member ) throws IOException {
+    if ( json.getCurrentToken() != JsonToken.START_OBJECT ) {
+      json.skipChildren();
+      return null;
+    }
+    Object value = parseMember( json, member );
+    return value == null ? null : value.toString();
+  }
+
+  /**
+   * @return the scalar member of the current object, skipping the rest of the object.
+   */
+  private static Object parseMember( JsonParser json, String member ) throws IOException {
+    Object value = null;
+    while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = json.getCurrentName();
+      JsonToken token = json.nextToken();
+      if ( member.equals( name ) && token.isScalarValue() && token != JsonToken.VALUE_NULL ) {
+        value = token == JsonToken.VALUE_NUMBER_INT ? (Object) json.getLongValue() : json.getText();
+      } else {
+        json.skipChildren();
+      }
+    }
+    return value;
+  }
+
+  private static String parseHashtags( JsonParser json ) throws IOException {
+    if ( json.getCurrentToken() != JsonToken.START_OBJECT ) {
+      json.skipChildren();
+      return null;
+    }
+    StringBuilder joined = null;
+    while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = json.getCurrentName();
+      if ( json.nextToken() != JsonToken.START_ARRAY || !"hashtags".equals( name ) ) {
+        json.skipChildren();
+        continue;
+      }
+      while ( json.nextToken() == JsonToken.START_OBJECT ) {
+        Object text = parseMember( json, "text" );
+        if ( text != null ) {
+          joined = joined == null ? new StringBuilder() : joined.append( ',' );
+          joined.append( text );
+        }
+      }
+    }
+    return joined == null ? null : joined.toString();
+  }
+
+  private static List<TwitterEntity> parseEntities( JsonParser json ) throws IOException {
+    List<TwitterEntity> found = new ArrayList<>();
+    if ( json.getCurrentToken() != JsonToken.START_OBJECT ) {
+      json.skipChildren();
+      return found;
+    }
+    while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = json.getCurrentName();
+      if ( json.nextToken() != JsonToken.START_ARRAY ) {
+        json.skipChildren();
+        continue;
+      }
+      switch ( name ) {
+        case "hashtags":
+          parseEntities( json, TwitterEntity.Type.HASHTAG, "text", found );
+          break;
+        case "user_mentions":
+          parseEntities( json, TwitterEntity.Type.MENTION, "screen_name", found );
+          break;
+        case "urls":
+          parseEntities( json, TwitterEntity.Type.URL, "expanded_url", found );
+          break;
+        default:
+          json.skipChildren();
+          break;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Read the array of entities the parser is on.
+   *
+   * @param member the member of each entity holding its value.
+   */
+  private static void parseEntities( JsonParser json, TwitterEntity.Type type, String member,
+    List<TwitterEntity> found ) throws IOException {
+    while ( json.nextToken() == JsonToken.START_OBJECT ) {
+      String value = null;
+      int[] indices = new int[ 2 ];
+      while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+        String name = json.getCurrentName();
+        JsonToken token = json.nextToken();
+        if ( member.equals( name ) && token == JsonToken.VALUE_STRING ) {
+          value = json.getText();
+        } else if ( "indices".equals( name ) && token == JsonToken.START_ARRAY ) {
+          int i = 0;
+          while ( json.nextToken() != JsonToken.END_ARRAY ) {
+            if ( i < indices.length ) {
+              indices[ i++ ] = json.getValueAsInt();
+            } else {
+              json.skipChildren();
+            }
+          }
+        } else {
+          json.skipChildren();
+        }
+      }
+      if ( value != null ) {
+        found.add( new TwitterEntity( type, value, indices[ 0 ], indices[ 1 ] ) );
+      }
+    }
+  }
+
+  private static String joinHashtags( List<TwitterEntity> found ) {
+    StringBuilder joined = null;
+    for ( TwitterEntity entity : found ) {
+      if ( entity.getType() == TwitterEntity.Type.HASHTAG ) {
+        joined = joined == null ? new StringBuilder() : joined.append( ',' );
+        joined.append( entity.getValue() );
+      }
+    }
+    return joined == null ? null : joined.toString();
+  }
+
+  private void parseCoordinates( JsonParser json ) throws IOException {
+    if ( json.getCurrentToken() != JsonToken.START_OBJECT ) {
+      json.skipChildren();
+      return;
+    }
+    while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+      String name = json.getCurrentName();
+      if ( json.nextToken() != JsonToken.START_ARRAY || !"coordinates".equals( name ) ) {
+        json.skipChildren();
+        continue;
+      }
+      // GeoJSON puts the longitude first.
+      double[] point = new double[ 2 ];
+      int i = 0;
+      while ( json.nextToken() != JsonToken.END_ARRAY ) {
+        if ( i < point.length ) {
+          point[ i++ ] = json.getValueAsDouble();
+        } else {
+          json.skipChildren();
+        }
+      }
+      if ( i == point.length ) {
+        attributes[ TwitterField.LONGITUDE.ordinal() ] = point[ 0 ];
+        attributes[ TwitterField.LATITUDE.ordinal() ] = point[ 1 ];
+      }
+    }
+  }
+
+  /**
+   * The API escapes these characters in the text of tweets.
+   */
+  private static String unescape( String text ) {
+    if ( text.indexOf( '&' ) < 0 ) {
+      return text;
+    }
+    return text.replace( "&lt;", "<" ).replace( "&gt;", ">" ).replace( "&amp;", "&" );
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded queue between the filter stream and the step.
+ * When the step can't keep up, the overflow policy decides whether the stream waits, the oldest tweets are
+ * dropped, or tweets are spilled to a file and read back once the queue has room.
+ */
+public class TwitterStreamQueue {
+
+  public enum Overflow {
+    // Stop reading the stream until the step takes a tweet.
+    BLOCK,
+    // Drop the oldest queued tweet to make room.
+    DROP_OLDEST,
+    // Write tweets to a file until the step has caught up.
+    SPILL
+  }
+
+  private final Deque<TwitterSearchPage.Tweet> memory = new ArrayDeque<>();
+  private final int capacity;
+  private final Overflow overflow;
+  private final Path spillDirectory;
+
+  private Path spillFile;
+  private ObjectOutputStream spillOut;
+  private ObjectInputStream spillIn;
+  // Tweets written to the spill file and not read back yet.
+  private long spilled;
+  private long dropped;
+  private boolean closed;
+
+  /**
+   * @param spillDirectory the directory of the spill file, or null for the temporary directory.
+   */
+  public TwitterStreamQueue( int capacity, Overflow overflow, String spillDirectory ) {
+    this.capacity = Math.max( 1, capacity );
+    this.overflow = overflow;
+    this.spillDirectory = Paths.get( spillDirectory == null ? System.getProperty( "java.io.tmpdir" ) : spillDirectory );
+  }
+
+  /**
+   * Add a tweet, applying the overflow policy if the queue is full.
+   *
+   * @throws InterruptedException if interrupted while waiting for room.
+   * @throws IOException if the tweet couldn't be spilled.
+   */
+  public synchronized void put( TwitterSearchPage.Tweet tweet ) throws InterruptedException, IOException {
+    switch ( overflow ) {
+      case BLOCK:
+        while ( memory.size() >= capacity && !closed ) {
+          wait();
+        }
+        break;
+      case DROP_OLDEST:
+        if ( memory.size() >= capacity ) {
+          memory.poll();
+          dropped++;
+        }
+        break;
+      default:
+        // Once tweets are spilled, the following ones are too so that they are taken in order.
+        if ( !closed && ( spilled > 0 || memory.size() >= capacity ) ) {
+          spill( tweet );
+          notifyAll();
+          return;
+        }
+        break;
+    }
+    if ( closed ) {
+      return;
+    }
+    memory.add( tweet );
+    notifyAll();
+  }
+
+  /**
+   * @return the oldest tweet, or null if none came within the timeout.
+   * @throws IOException if spilled tweets couldn't be read back.
+   */
+  public synchronized TwitterSearchPage.Tweet poll( long timeoutMillis ) throws InterruptedException, IOException {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    while ( memory.isEmpty() && spilled == 0 && !closed ) {
+      long left = deadline - System.currentTimeMillis();
+      if ( left <= 0 ) {
+        return null;
+      }
+      wait( left );
+    }
+    if ( memory.isEmpty() && spilled > 0 ) {
+      unspill();
+    }
+    TwitterSearchPage.Tweet tweet = memory.poll();
+    notifyAll();
+    return tweet;
+  }
+
+  /**
+   * @return the number of tweets dropped because the queue was full.
+   */
+  public synchronized long getDropped() {
+    return dropped;
+  }
+
+  /**
+   * Release the queue and delete the spill file, if any.
+   */
+  public synchronized void close() {
+    closed = true;
+    memory.clear();
+    deleteSpillFile();
+    notifyAll();
+  }
+
+  private void spill( TwitterSearchPage.Tweet tweet ) throws IOException {
+    if ( spillOut == null ) {
+      Files.createDirectories( spillDirectory );
+      spillFile = Files.createTempFile( spillDirectory, "twitter-stream", ".spill" );
+      spillOut = new ObjectOutputStream( new BufferedOutputStream( Files.newOutputStream( spillFile ) ) );
+    }
+    spillOut.writeObject( tweet );
+    // Don't keep a reference to every tweet written.
+    spillOut.reset();
+    spilled++;
+  }
+
+  private void unspill() throws IOException {
+    spillOut.flush();
+    if ( spillIn == null ) {
+      spillIn = new ObjectInputStream( new BufferedInputStream( Files.newInputStream( spillFile ) ) );
+    }
+    try {
+      while ( spilled > 0 && memory.size() < capacity ) {
+        memory.add( (TwitterSearchPage.Tweet) spillIn.readObject() );
+        spilled--;
+      }
+    } catch ( ClassNotFoundException e ) {
+      throw new IOException( e );
+    }
+    if ( spilled == 0 ) {
+      // Start a new file with the next spill, rather than letting this one grow.
+      deleteSpillFile();
+    }
+  }
+
+  private void deleteSpillFile() {
+    try {
+      if ( spillIn != null ) {
+        spillIn.close();
+      }
+      if ( spillOut != null ) {
+        spillOut.close();
+      }
+      if ( spillFile != null ) {
+        Files.deleteIfExists( spillFile );
+      }
+    } catch ( IOException e ) {
+      // Only a temporary file is left behind.
+    } finally {
+      spillIn = null;
+      spillOut = null;
+      spillFile = null;
+      spilled = 0;
+    }
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import twitter4j.HttpParameter;
+import twitter4j.HttpRequest;
+import twitter4j.Query;
+import twitter4j.RateLimitStatus;
+import twitter4j.RequestMethod;
+import twitter4j.TwitterException;
+import twitter4j.auth.Authorization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Searches with plain HTTP calls, parsing each response as it is read.
+ * Only the attributes selected by the output fields are kept, so no object is built for the rest of the tweet.
+ */
+public class TwitterStreamingSearchApi implements TwitterSearchApi {
+
+  /**
+   * A response refused by the API, carrying the rate limit status read from its headers.
+   */
+  private static class ResponseException extends TwitterException {
+    private static final long serialVersionUID = 1L;
+
+    private final RateLimitStatus rateLimitStatus;
+    private final int retryAfter;
+
+    ResponseException( String message, int statusCode, RateLimitStatus rateLimitStatus, int retryAfter ) {
+      super( message, null, statusCode );
+      this.rateLimitStatus = rateLimitStatus;
+      this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public RateLimitStatus getRateLimitStatus() {
+      return rateLimitStatus;
+    }
+
+    @Override
+    public int getRetryAfter() {
+      return retryAfter;
+    }
+  }
+
+  /**
+   * Rate limit status read from the headers of a response.
+   */
+  private static class HeaderRateLimitStatus implements RateLimitStatus {
+    private static final long serialVersionUID = 1L;
+
+    private final int limit;
+    private final int remaining;
+    private final int resetTimeInSeconds;
+
+    HeaderRateLimitStatus( int limit, int remaining, int resetTimeInSeconds ) {
+      this.limit = limit;
+      this.remaining = remaining;
+      this.resetTimeInSeconds = resetTimeInSeconds;
+    }
+
+    @Override
+    public int getRemaining() {
+      return remaining;
+    }
+
+    @Override
+    public int getLimit() {
+      return limit;
+    }
+
+    @Override
+    public int getResetTimeInSeconds() {
+      return resetTimeInSeconds;
+    }
+
+    @Override
+    public int getSecondsUntilReset() {
+      return (int) ( resetTimeInSeconds - TimeUnit.MILLISECONDS.toSeconds( System.currentTimeMillis() ) );
+    }
+  }
+
+  private final String searchUrl;
+  private final TwitterClientRegistry.Settings settings;
+  private final TwitterField[] fields;
+  private final boolean entities;
+
+  /**
+   * @param entities whether the hashtags, mentions and URLs of the tweets are read too.
+   */
+  public TwitterStreamingSearchApi( String baseUrl, TwitterClientRegistry.Settings settings, TwitterField[] fields,
+    boolean entities ) {
+    this.searchUrl = baseUrl + "search/tweets.json";
+    this.settings = settings;
+    this.fields = fields;
+    this.entities = entities;
+  }
+
+  @Override
+  public TwitterSearchPage search( TwitterCredentialPool.Lease lease, Query query ) throws TwitterException {
+    HttpParameter[] parameters = parametersOf( query );
+    Authorization authorization = lease.getTwitter().getAuthorization();
+    HttpRequest request = new HttpRequest( RequestMethod.GET, searchUrl, parameters, authorization, null );
+    try {
+      HttpURLConnection connection = (HttpURLConnection)
+        new URL( searchUrl + "?" + HttpParameter.encodeParameters( parameters ) ).openConnection();
+      connection.setRequestProperty( "Authorization", authorization.getAuthorizationHeader( request ) );
+      settings.apply( connection );
+      int statusCode = connection.getResponseCode();
+      RateLimitStatus rateLimitStatus = rateLimitStatusOf( connection );
+      if ( statusCode != HttpURLConnection.HTTP_OK ) {
+        InputStream error = connection.getErrorStream();
+        if ( error != null ) {
+          // Read the error to the end so that the connection can be reused.
+          try ( InputStream in = error ) {
+            byte[] buffer = new byte[ 4096 ];
+            while ( in.read( buffer ) >= 0 ) {
+              // Discard.
+            }
+          }
+        }
+        throw new ResponseException( statusCode + " " + connection.getResponseMessage(), statusCode, rateLimitStatus,
+          connection.getHeaderFieldInt( "Retry-After", -1 ) );
+      }
+      lease.getLimiter().update( rateLimitStatus );
+      InputStream body = connection.getInputStream();
+      if ( "gzip".equalsIgnoreCase( connection.getContentEncoding() ) ) {
+        body = new GZIPInputStream( body );
+      }
+      try ( InputStream in = body ) {
+        return parse( in );
+      }
+    } catch ( IOException e ) {
+      throw new TwitterException( e.getMessage(), e );
+    }
+  }
+
+  private static HttpParameter[] parametersOf( Query query ) {
+    List<HttpParameter> parameters = new ArrayList<>();
+    parameters.add( new HttpParameter( "q", query.getQuery() ) );
+    addParameter( parameters, "lang", query.getLang() );
+    addParameter( parameters, "locale", query.getLocale() );
+    if ( query.getMaxId() > 0 ) {
+      parameters.add( new HttpParameter( "max_id", String.valueOf( query.getMaxId() ) ) );
+    }
+    if ( query.getCount() > 0 ) {
+      parameters.add( new HttpParameter( "count", String.valueOf( query.getCount() ) ) );
+    }
+    addParameter( parameters, "since", query.getSince() );
+    if ( query.getSinceId() > 0 ) {
+      parameters.add( new HttpParameter( "since_id", String.valueOf( query.getSinceId() ) ) );
+    }
+    addParameter( parameters, "geocode", query.getGeocode() );
+    addParameter( parameters, "until", query.getUntil() );
+    if ( query.getResultType() != null ) {
+      parameters.add( new HttpParameter( "result_type", query.getResultType().name() ) );
+    }
+    return parameters.toArray( new HttpParameter[0] );
+  }
+
+  private static void addParameter( List<HttpParameter> parameters, String name, String value ) {
+    if ( value != null ) {
+      parameters.add( new HttpParameter( name, value ) );
+    }
+  }
+
+  private static RateLimitStatus rateLimitStatusOf( HttpURLConnection connection ) {
+    int limit = connection.getHeaderFieldInt( "x-rate-limit-limit", -1 );
+    int remaining = connection.getHeaderFieldInt( "x-rate-limit-remaining", -1 );
+    int reset = connection.getHeaderFieldInt( "x-rate-limit-reset", -1 );
+    if ( limit < 0 || remaining < 0 || reset < 0 ) {
+      return null;
+    }
+    return new HeaderRateLimitStatus( limit, remaining, reset );
+  }
+
+  private TwitterSearchPage parse( InputStream in ) throws IOException {
+    List<TwitterSearchPage.Tweet> tweets = new ArrayList<>();
+    boolean hasNext = false;
+    TwitterStatusParser statuses = new TwitterStatusParser( fields, entities );
+    try ( JsonParser json = TwitterStatusParser.JSON.createParser( in ) ) {
+      if ( json.nextToken() != JsonToken.START_OBJECT ) {
+        throw new JsonParseException( json, "Expected a search response" );
+      }
+      while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+        String name = json.getCurrentName();
+        JsonToken token = json.nextToken();
+        if ( "statuses".equals( name ) && token == JsonToken.START_ARRAY ) {
+          while ( json.nextToken() == JsonToken.START_OBJECT ) {
+            TwitterSearchPage.Tweet tweet = statuses.parse( json );
+            if ( tweet != null ) {
+              tweets.add( tweet );
+            }
+          }
+        } else if ( "search_metadata".equals( name ) && token == JsonToken.START_OBJECT ) {
+          while ( json.nextToken() == JsonToken.FIELD_NAME ) {
+            String metadata = json.getCurrentName();
+            if ( json.nextToken() == JsonToken.VALUE_STRING && "next_results".equals( metadata ) ) {
+              hasNext = true;
+            }
+            json.skipChildren();
+          }
+        } else {
+          json.skipChildren();
+        }
+      }
+    }
+    return new TwitterSearchPage( tweets, hasNext );
+  }
+}
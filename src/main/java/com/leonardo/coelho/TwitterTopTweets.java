@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the highest ranked tweets found by one query. They are kept in a min-heap bounded to their number, so a
+ * query finding many tweets doesn't take more memory, and the lowest ranked one is the first to be left out.
+ */
+public class TwitterTopTweets {
+  private final int size;
+  private final int rankIdx;
+  private final PriorityQueue<TwitterSearchPage.Tweet> heap;
+
+  /**
+   * @param size the number of tweets kept.
+   * @param rankIdx the index of the value the tweets are ranked by.
+   */
+  public TwitterTopTweets( int size, int rankIdx ) {
+    this.size = size;
+    this.rankIdx = rankIdx;
+    this.heap = new PriorityQueue<>( size, this::compare );
+  }
+
+  /**
+   * @return the tweet left out: the lowest ranked of the kept tweets and the added one, or null if there is room.
+   */
+  public TwitterSearchPage.Tweet add( TwitterSearchPage.Tweet tweet ) {
+    if ( heap.size() < size ) {
+      heap.add( tweet );
+      return null;
+    }
+    if ( compare( tweet, heap.peek() ) <= 0 ) {
+      return tweet;
+    }
+    TwitterSearchPage.Tweet lowest = heap.poll();
+    heap.add( tweet );
+    return lowest;
+  }
+
+  /**
+   * @return the kept tweets, the highest ranked first.
+   */
+  public List<TwitterSearchPage.Tweet> getTweets() {
+    List<TwitterSearchPage.Tweet> tweets = new ArrayList<>( heap );
+    tweets.sort( ( a, b ) -> compare( b, a ) );
+    return tweets;
+  }
+
+  /**
+   * Tweets without a value rank last, and tweets with the same value are ranked newest first.
+   */
+  @SuppressWarnings( "unchecked" )
+  private int compare( TwitterSearchPage.Tweet a, TwitterSearchPage.Tweet b ) {
+    Comparable<Object> x = (Comparable<Object>) a.getValues()[ rankIdx ];
+    Object y = b.getValues()[ rankIdx ];
+    int result = x == null ? ( y == null ? 0 : -1 ) : ( y == null ? 1 : x.compareTo( y ) );
+    return result != 0 ? result : Long.compare( a.getId(), b.getId() );
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Date;
+
+/**
+ * Collects the tweets found by one query into a single output row: their count, the creation dates of the oldest
+ * and newest ones, and the tweets themselves as a JSON array of objects, keyed by the names of the output fields.
+ */
+public class TwitterTweetAggregate {
+  private final String[] names;
+  private final StringWriter tweets = new StringWriter();
+  private final JsonGenerator json;
+  private long count;
+  private long first = Long.MAX_VALUE;
+  private long last = Long.MIN_VALUE;
+
+  /**
+   * @param names the names of the output fields, in the order of the values of the tweets.
+   */
+  public TwitterTweetAggregate( String[] names ) {
+    this.names = names;
+    try {
+      json = TwitterStatusParser.JSON.createGenerator( tweets );
+      json.writeStartArray();
+    } catch ( IOException e ) {
+      // Writing to a string doesn't fail.
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  public void add( TwitterSearchPage.Tweet tweet ) {
+    count++;
+    first = Math.min( first, tweet.getCreatedAt() );
+    last = Math.max( last, tweet.getCreatedAt() );
+    Object[] values = tweet.getValues();
+    try {
+      json.writeStartObject();
+      for ( int i = 0; i < names.length; i++ ) {
+        json.writeFieldName( names[ i ] );
+        write( values[ i ] );
+      }
+      json.writeEndObject();
+    } catch ( IOException e ) {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private void write( Object value ) throws IOException {
+    if ( value == null ) {
+      json.writeNull();
+    } else if ( value instanceof Long ) {
+      json.writeNumber( (Long) value );
+    } else if ( value instanceof Double ) {
+      json.writeNumber( (Double) value );
+    } else if ( value instanceof Boolean ) {
+      json.writeBoolean( (Boolean) value );
+    } else if ( value instanceof Date ) {
+      json.writeString( ( (Date) value ).toInstant().toString() );
+    } else {
+      json.writeString( value.toString() );
+    }
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return the creation date of the oldest tweet, or null if there is none.
+   */
+  public Date getFirst() {
+    return count == 0 ? null : new Date( first );
+  }
+
+  /**
+   * @return the creation date of the newest tweet, or null if there is none.
+   */
+  public Date getLast() {
+    return count == 0 ? null : new Date( last );
+  }
+
+  /**
+   * @return the JSON array of the tweets. No tweet can be added afterwards.
+   */
+  public String getTweets() {
+    try {
+      json.writeEndArray();
+      json.close();
+    } catch ( IOException e ) {
+      throw new UncheckedIOException( e );
+    }
+    return tweets.toString();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.google.common.hash.Hashing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Samples the tweets found by the queries. Each tweet is given a random key derived from the seed and its status ID,
+ * so that a seeded run samples the same tweets whatever the order their pages come in.
+ * A reservoir keeps the tweets with the lowest keys, a uniform sample of a fixed size, and a Bernoulli sample keeps
+ * the tweets whose key is under the rate.
+ */
+public class TwitterTweetSampler {
+
+  public enum Sampling {
+    // Send every tweet.
+    NONE,
+    // Send a fixed number of tweets, once the query or the run is done.
+    RESERVOIR,
+    // Send each tweet with a fixed probability, as soon as it is found.
+    BERNOULLI
+  }
+
+  private final long seed;
+
+  public TwitterTweetSampler( long seed ) {
+    this.seed = seed;
+  }
+
+  /**
+   * @return the key of a tweet, uniformly distributed in [0, 1).
+   */
+  public double keyOf( long id ) {
+    long hash = Hashing.murmur3_128().newHasher().putLong( seed ).putLong( id ).hash().asLong();
+    // The 53 bits a double holds.
+    return ( hash >>> 11 ) * 0x1.0p-53;
+  }
+
+  /**
+   * @return true if the tweet is in a Bernoulli sample of the given rate.
+   */
+  public boolean accept( long id, double rate ) {
+    return keyOf( id ) < rate;
+  }
+
+  /**
+   * @param size the number of tweets kept.
+   */
+  public Reservoir newReservoir( int size ) {
+    return new Reservoir( size );
+  }
+
+  /**
+   * A tweet kept in a reservoir, with the input row whose query found it.
+   */
+  public static class Sampled {
+    private final Object[] row;
+    private final TwitterSearchPage.Tweet tweet;
+    private final double key;
+
+    private Sampled( Object[] row, TwitterSearchPage.Tweet tweet, double key ) {
+      this.row = row;
+      this.tweet = tweet;
+      this.key = key;
+    }
+
+    public Object[] getRow() {
+      return row;
+    }
+
+    public TwitterSearchPage.Tweet getTweet() {
+      return tweet;
+    }
+  }
+
+  /**
+   * Keeps the tweets with the lowest keys in a max-heap bounded to their number, so memory stays bounded whatever
+   * the number of tweets added.
+   */
+  public class Reservoir {
+    private final int size;
+    private final PriorityQueue<Sampled> heap;
+
+    private Reservoir( int size ) {
+      this.size = size;
+      this.heap = new PriorityQueue<>( size, ( a, b ) -> Double.compare( b.key, a.key ) );
+    }
+
+    /**
+     * @return true if a tweet was left out: the added one, or one it took the place of.
+     */
+    public boolean add( Object[] row, TwitterSearchPage.Tweet tweet ) {
+      double key = keyOf( tweet.getId() );
+      if ( heap.size() < size ) {
+        heap.add( new Sampled( row, tweet, key ) );
+        return false;
+      }
+      if ( key >= heap.peek().key ) {
+        return true;
+      }
+      heap.poll();
+      heap.add( new Sampled( row, tweet, key ) );
+      return true;
+    }
+
+    /**
+     * @return the kept tweets, the newest first.
+     */
+    public List<Sampled> getSampled() {
+      List<Sampled> sampled = new ArrayList<>( heap );
+      sampled.sort( ( a, b ) -> Long.compare( b.tweet.getId(), a.tweet.getId() ) );
+      return sampled;
+    }
+  }
+}
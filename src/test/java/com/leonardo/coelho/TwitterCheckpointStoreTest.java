@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import twitter4j.GeoLocation;
+import twitter4j.Query;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterCheckpointStoreTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  // The stores are cached by path for the life of the JVM, so each test uses its own file.
+  private File newFile() {
+    return new File( folder.getRoot(), "checkpoints" );
+  }
+
+  @Test
+  public void testKeyOf() {
+    Query query = new Query( "pentaho kettle" );
+    query.setLang( "en" );
+    query.setResultType( Query.ResultType.recent );
+    Query other = new Query( "pentaho kettle" );
+    other.setLang( "fr" );
+    other.setResultType( Query.ResultType.recent );
+
+    assertEquals( "recent:en:pentaho+kettle", TwitterCheckpointStore.keyOf( query ) );
+    assertFalse( TwitterCheckpointStore.keyOf( query ).equals( TwitterCheckpointStore.keyOf( other ) ) );
+    // Keys never contain the separator of the file.
+    assertFalse( TwitterCheckpointStore.keyOf( new Query( "a\nb" ) ).contains( "\n" ) );
+  }
+
+  @Test
+  public void testKeyOfFilters() {
+    Query query = new Query( "pentaho" );
+    query.setUntil( "2020-01-31" );
+    query.setGeoCode( new GeoLocation( 38.72, -9.14 ), 10, Query.Unit.km );
+
+    assertEquals( "null:null:pentaho:until=2020-01-31:geocode=38.72%2C-9.14%2C10.0km",
+      TwitterCheckpointStore.keyOf( query ) );
+  }
+
+  @Test
+  public void testKeepsHighest() throws Exception {
+    File file = newFile();
+    TwitterCheckpointStore store = TwitterCheckpointStore.forFile( file.getPath() );
+
+    assertEquals( 0, store.get( "a" ) );
+    store.put( "a", 100 );
+    store.put( "a", 50 );
+    assertEquals( 100, store.get( "a" ) );
+    store.put( "a", 200 );
+    assertEquals( 200, store.get( "a" ) );
+    assertEquals( "100 a\n200 a\n", new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test
+  public void testLoadDropsTornLine() throws Exception {
+    File file = newFile();
+    Files.write( file.toPath(), "100 a\n300 b\n200 a\n900".getBytes( StandardCharsets.UTF_8 ) );
+    TwitterCheckpointStore store = TwitterCheckpointStore.forFile( file.getPath() );
+
+    assertEquals( 200, store.get( "a" ) );
+    assertEquals( 300, store.get( "b" ) );
+    String content = new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+    assertTrue( content, content.endsWith( "\n" ) );
+    assertEquals( 2, Files.readAllLines( file.toPath() ).size() );
+  }
+
+  @Test
+  public void testCompactWhileRecording() throws Exception {
+    File file = newFile();
+    TwitterCheckpointStore store = TwitterCheckpointStore.forFile( file.getPath() );
+    for ( long id = 1; id <= 5000; id++ ) {
+      store.put( "a", id );
+    }
+
+    assertEquals( 5000, store.get( "a" ) );
+    assertTrue( Files.readAllLines( file.toPath() ).size() <= 1001 );
+  }
+
+  @Test
+  public void testCompactKeepsOtherProcesses() throws Exception {
+    File file = newFile();
+    TwitterCheckpointStore store = TwitterCheckpointStore.forFile( file.getPath() );
+    store.put( "a", 1 );
+    // Recorded by another process once the file was loaded.
+    Files.write( file.toPath(), "500 b\n".getBytes( StandardCharsets.UTF_8 ), StandardOpenOption.APPEND );
+    for ( long id = 2; id <= 1500; id++ ) {
+      store.put( "a", id );
+    }
+
+    List<String> lines = Files.readAllLines( file.toPath() );
+    assertTrue( lines.size() < 1000 );
+    assertTrue( lines.contains( "500 b" ) );
+    assertEquals( 500, store.get( "b" ) );
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterCircuitBreakerTest {
+
+  private static void record( TwitterCircuitBreaker breaker, int successes, int failures ) {
+    for ( int i = 0; i < successes; i++ ) {
+      breaker.success();
+    }
+    for ( int i = 0; i < failures; i++ ) {
+      breaker.failure();
+    }
+  }
+
+  @Test
+  public void testStaysClosedBelowThreshold() throws InterruptedException {
+    TwitterCircuitBreaker breaker = new TwitterCircuitBreaker( 50, 60000 );
+    record( breaker, 11, 9 );
+    breaker.acquire( () -> true );
+
+    assertEquals( 0, breaker.getOpened() );
+  }
+
+  @Test
+  public void testOpensAtThreshold() {
+    TwitterCircuitBreaker breaker = new TwitterCircuitBreaker( 50, 60000 );
+    record( breaker, 10, 10 );
+
+    assertEquals( 1, breaker.getOpened() );
+    try {
+      breaker.acquire( () -> true );
+    } catch ( InterruptedException e ) {
+      return;
+    }
+    throw new AssertionError( "the call was let through while the breaker is open" );
+  }
+
+  @Test
+  public void testNeedsFullWindow() throws InterruptedException {
+    TwitterCircuitBreaker breaker = new TwitterCircuitBreaker( 50, 60000 );
+    record( breaker, 0, 19 );
+
+    assertEquals( 0, breaker.getOpened() );
+    breaker.failure();
+    assertEquals( 1, breaker.getOpened() );
+  }
+
+  @Test
+  public void testOldOutcomesLeaveWindow() {
+    TwitterCircuitBreaker breaker = new TwitterCircuitBreaker( 50, 60000 );
+    record( breaker, 0, 9 );
+    // The failures slide out of the window as successes come in.
+    record( breaker, 20, 0 );
+    record( breaker, 0, 9 );
+
+    assertEquals( 0, breaker.getOpened() );
+  }
+
+  @Test
+  public void testProbe() throws InterruptedException {
+    TwitterCircuitBreaker breaker = new TwitterCircuitBreaker( 100, 10 );
+    record( breaker, 0, 20 );
+    assertEquals( 1, breaker.getOpened() );
+
+    // Once the pause is over, a single call probes the API.
+    long start = System.currentTimeMillis();
+    breaker.acquire( () -> false );
+    assertTrue( System.currentTimeMillis() - start >= 5 );
+    breaker.failure();
+    assertEquals( 2, breaker.getOpened() );
+
+    breaker.acquire( () -> false );
+    breaker.success();
+    // Closed again, with a fresh window.
+    record( breaker, 0, 19 );
+    breaker.acquire( () -> true );
+    assertEquals( 2, breaker.getOpened() );
+  }
+}
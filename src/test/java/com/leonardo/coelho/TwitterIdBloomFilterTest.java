@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterIdBloomFilterTest {
+
+  @Test
+  public void testNoFalseNegatives() {
+    TwitterIdBloomFilter filter = new TwitterIdBloomFilter( 10000, 0.01 );
+    long base = 1250000000000000000L;
+    for ( long i = 0; i < 10000; i++ ) {
+      filter.add( base + ( i << 22 ) );
+    }
+    for ( long i = 0; i < 10000; i++ ) {
+      assertFalse( filter.add( base + ( i << 22 ) ) );
+    }
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    TwitterIdBloomFilter filter = new TwitterIdBloomFilter( 10000, 0.01 );
+    long base = 1250000000000000000L;
+    for ( long i = 0; i < 10000; i++ ) {
+      filter.add( base + ( i << 22 ) );
+    }
+    int falsePositives = 0;
+    for ( long i = 10000; i < 11000; i++ ) {
+      if ( !filter.add( base + ( i << 22 ) ) ) {
+        falsePositives++;
+      }
+    }
+    // Each new ID added also fills the filter, so allow some margin over the rate at the expected count.
+    assertTrue( String.valueOf( falsePositives ), falsePositives < 30 );
+  }
+}
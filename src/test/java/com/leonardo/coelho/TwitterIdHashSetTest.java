@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterIdHashSetTest {
+
+  @Test
+  public void testAdd() {
+    TwitterIdHashSet set = new TwitterIdHashSet( 16 );
+
+    assertTrue( set.add( 1250000000000000000L ) );
+    assertFalse( set.add( 1250000000000000000L ) );
+    assertTrue( set.add( 1250000000000000001L ) );
+  }
+
+  @Test
+  public void testAddZero() {
+    // 0 marks the free slots of the table.
+    TwitterIdHashSet set = new TwitterIdHashSet( 16 );
+
+    assertTrue( set.add( 0 ) );
+    assertFalse( set.add( 0 ) );
+  }
+
+  @Test
+  public void testGrowBeyondExpected() {
+    TwitterIdHashSet set = new TwitterIdHashSet( 16 );
+    long base = 1250000000000000000L;
+    for ( long i = 0; i < 100000; i++ ) {
+      assertTrue( set.add( base + ( i << 22 ) ) );
+    }
+    for ( long i = 0; i < 100000; i++ ) {
+      assertFalse( set.add( base + ( i << 22 ) ) );
+    }
+  }
+
+  @Test
+  public void testOverflowBeyondMaxCapacity() {
+    // Holds 48 IDs exactly.
+    TwitterIdHashSet set = new TwitterIdHashSet( 16, 64 );
+    long base = 1250000000000000000L;
+    for ( long i = 0; i < 48; i++ ) {
+      assertTrue( set.add( base + ( i << 22 ) ) );
+    }
+    assertTrue( set.add( base + ( 48L << 22 ) ) );
+    for ( long i = 49; i < 1000; i++ ) {
+      set.add( base + ( i << 22 ) );
+    }
+    for ( long i = 0; i < 1000; i++ ) {
+      assertFalse( set.add( base + ( i << 22 ) ) );
+    }
+  }
+}
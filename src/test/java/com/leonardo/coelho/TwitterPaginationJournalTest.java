@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterPaginationJournalTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  // The journals are cached by path for the life of the JVM, so each test uses its own file.
+  private File newFile() {
+    return new File( folder.getRoot(), "journal" );
+  }
+
+  @Test
+  public void testPutGetRemove() throws Exception {
+    File file = newFile();
+    TwitterPaginationJournal journal = TwitterPaginationJournal.forFile( file.getPath() );
+
+    assertNull( journal.get( "a" ) );
+    journal.put( "a", new TwitterPaginationJournal.Cursor( 10, 99, 2, 200, 150 ) );
+    TwitterPaginationJournal.Cursor cursor = journal.get( "a" );
+    assertEquals( 10, cursor.getSinceId() );
+    assertEquals( 99, cursor.getMaxId() );
+    assertEquals( 2, cursor.getPage() );
+    assertEquals( 200, cursor.getEmitted() );
+    assertEquals( 150, cursor.getHighestId() );
+    assertFalse( cursor.isDone() );
+
+    journal.remove( "a" );
+    assertNull( journal.get( "a" ) );
+    assertEquals( "a 10 99 2 200 150\na\n",
+      new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test
+  public void testSameFileSameJournal() {
+    File file = newFile();
+    assertTrue( TwitterPaginationJournal.forFile( file.getPath() )
+      == TwitterPaginationJournal.forFile( file.getParent() + "/./" + file.getName() ) );
+  }
+
+  @Test
+  public void testLoadDropsTornLine() throws Exception {
+    File file = newFile();
+    Files.write( file.toPath(), "a 1 2 3 4 5\nb 6 7 8 9 10\nb\nc 11 12".getBytes( StandardCharsets.UTF_8 ) );
+    TwitterPaginationJournal journal = TwitterPaginationJournal.forFile( file.getPath() );
+
+    assertEquals( 3, journal.get( "a" ).getPage() );
+    assertNull( journal.get( "b" ) );
+    assertNull( journal.get( "c" ) );
+    assertEquals( "a 1 2 3 4 5\n", new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test
+  public void testCloseDeletesEmptyFile() throws Exception {
+    File file = newFile();
+    TwitterPaginationJournal journal = TwitterPaginationJournal.forFile( file.getPath() );
+    journal.put( "a", new TwitterPaginationJournal.Cursor( 1, 2, 3, 4, 5 ) );
+
+    journal.close();
+    assertTrue( file.exists() );
+    journal.remove( "a" );
+    journal.close();
+    assertFalse( file.exists() );
+  }
+
+  @Test
+  public void testCompactWhileRecording() throws Exception {
+    File file = newFile();
+    TwitterPaginationJournal journal = TwitterPaginationJournal.forFile( file.getPath() );
+    for ( int page = 0; page < 5000; page++ ) {
+      journal.put( "a", new TwitterPaginationJournal.Cursor( 1, 2, page, 4, 5 ) );
+    }
+
+    assertEquals( 4999, journal.get( "a" ).getPage() );
+    assertTrue( Files.readAllLines( file.toPath() ).size() <= 1001 );
+  }
+
+  @Test
+  public void testCloseKeepsOtherProcesses() throws Exception {
+    File file = newFile();
+    TwitterPaginationJournal journal = TwitterPaginationJournal.forFile( file.getPath() );
+    journal.put( "a", new TwitterPaginationJournal.Cursor( 1, 2, 3, 4, 5 ) );
+    journal.remove( "a" );
+    // Another process starts a query.
+    Files.write( file.toPath(), "b 6 7 8 9 10\n".getBytes( StandardCharsets.UTF_8 ), StandardOpenOption.APPEND );
+
+    journal.close();
+    assertTrue( file.exists() );
+    assertEquals( 8, journal.get( "b" ).getPage() );
+  }
+}
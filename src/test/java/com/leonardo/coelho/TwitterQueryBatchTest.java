@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+import twitter4j.Query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterQueryBatchTest {
+
+  private static TwitterQueryBatch batchOf( String... terms ) {
+    TwitterQueryBatch batch = new TwitterQueryBatch( 500, "" );
+    for ( String term : terms ) {
+      batch.add( new Object[] { term }, term, new Query( term ) );
+    }
+    return batch;
+  }
+
+  @Test
+  public void testIsCoalescable() {
+    assertTrue( TwitterQueryBatch.isCoalescable( "pentaho" ) );
+    assertTrue( TwitterQueryBatch.isCoalescable( " #kettle " ) );
+    assertTrue( TwitterQueryBatch.isCoalescable( "@pentaho" ) );
+    assertTrue( TwitterQueryBatch.isCoalescable( "\"data integration\"" ) );
+    assertFalse( TwitterQueryBatch.isCoalescable( "data integration" ) );
+    assertFalse( TwitterQueryBatch.isCoalescable( "kettle -spoon" ) );
+    assertFalse( TwitterQueryBatch.isCoalescable( null ) );
+  }
+
+  @Test
+  public void testCombinedTerms() {
+    assertEquals( "cat OR #dog OR \"red fox\"", batchOf( "cat", "#dog", "\"red fox\"" ).getCombinedTerms() );
+  }
+
+  @Test
+  public void testFits() {
+    TwitterQueryBatch batch = new TwitterQueryBatch( 20, "" );
+    // The first term always fits.
+    assertTrue( batch.fits( "averyveryverylongterm" ) );
+    batch.add( new Object[ 0 ], "abcdefgh", new Query( "abcdefgh" ) );
+    // " OR " takes 8 characters once encoded.
+    assertTrue( batch.fits( "abcd" ) );
+    assertFalse( batch.fits( "abcde" ) );
+  }
+
+  @Test
+  public void testFitsWithOperators() {
+    // "filter:verified" takes 17 characters once encoded.
+    TwitterQueryBatch batch = new TwitterQueryBatch( 37, "filter:verified" );
+    batch.add( new Object[ 0 ], "abcdefgh", new Query( "abcdefgh" ) );
+
+    assertTrue( batch.fits( "abcd" ) );
+    assertFalse( batch.fits( "abcde" ) );
+  }
+
+  @Test
+  public void testMatchesWholeWords() {
+    TwitterQueryBatch batch = batchOf( "cat", "#dog", "\"red fox\"" );
+
+    assertTrue( batch.matches( 0, 1, "my cat, sleeping" ) );
+    assertFalse( batch.matches( 0, 1, "a category" ) );
+    assertFalse( batch.matches( 0, 1, "bobcat" ) );
+    assertTrue( batch.matches( 1, 1, "walking the #dog" ) );
+    assertFalse( batch.matches( 1, 1, "walking the dog" ) );
+    assertTrue( batch.matches( 2, 1, "the red fox jumps" ) );
+    assertFalse( batch.matches( 2, 1, "the red foxes" ) );
+  }
+
+  @Test
+  public void testContainsIgnoresSinceId() {
+    TwitterQueryBatch batch = new TwitterQueryBatch( 500, "" );
+    Query query = new Query( "cat" );
+    query.setSinceId( 100 );
+    batch.add( new Object[ 0 ], "cat", query );
+
+    assertTrue( batch.contains( 0, "my cat" ) );
+    assertFalse( batch.contains( 0, "my dog" ) );
+    assertFalse( batch.matches( 0, 50, "my cat" ) );
+  }
+
+  @Test
+  public void testSinceId() {
+    TwitterQueryBatch batch = new TwitterQueryBatch( 500, "" );
+    Query newer = new Query( "cat" );
+    newer.setSinceId( 100 );
+    Query older = new Query( "dog" );
+    older.setSinceId( 50 );
+    batch.add( new Object[ 0 ], "cat", newer );
+    batch.add( new Object[ 0 ], "dog", older );
+
+    assertEquals( 50, batch.getSinceId() );
+    assertFalse( batch.admits( 0, 100 ) );
+    assertTrue( batch.admits( 1, 100 ) );
+    assertFalse( batch.matches( 0, 100, "cat" ) );
+    assertTrue( batch.matches( 0, 101, "cat" ) );
+  }
+
+  @Test
+  public void testEmitted() {
+    TwitterQueryBatch batch = batchOf( "cat", "dog" );
+    batch.addEmitted( 1 );
+    batch.addEmitted( 1 );
+
+    assertEquals( 0, batch.getEmitted( 0 ) );
+    assertEquals( 2, batch.getEmitted( 1 ) );
+  }
+}
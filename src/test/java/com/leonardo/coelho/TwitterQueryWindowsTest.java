@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterQueryWindowsTest {
+  private static final long DAY = 24 * 60 * 60 * 1000L;
+  private static final long NOW = 1600000000000L;
+
+  @Test
+  public void testIdOfTime() {
+    long id = TwitterQueryWindows.idOf( NOW );
+    assertEquals( NOW, TwitterQueryWindows.timeOf( id ) );
+    // Every ID of the same millisecond has the same time.
+    assertEquals( NOW, TwitterQueryWindows.timeOf( id + ( 1 << 22 ) - 1 ) );
+    assertEquals( NOW + 1, TwitterQueryWindows.timeOf( id + ( 1 << 22 ) ) );
+  }
+
+  @Test
+  public void testSplitNewestFirstWithoutOverlap() {
+    long sinceId = TwitterQueryWindows.idOf( NOW - 7 * DAY );
+    TwitterQueryWindows windows = TwitterQueryWindows.split( sinceId, NOW, 7 );
+
+    assertEquals( 7, windows.size() );
+    // The newest window is left open, the oldest starts at the since ID.
+    assertEquals( 0, windows.getMaxId( 0 ) );
+    assertEquals( sinceId, windows.getSinceId( 6 ) );
+    for ( int i = 0; i < windows.size() - 1; i++ ) {
+      // Each window starts after the highest ID of the older one.
+      assertEquals( windows.getMaxId( i + 1 ), windows.getSinceId( i ) );
+      assertEquals( DAY, TwitterQueryWindows.timeOf( windows.getSinceId( i ) + 1 )
+        - TwitterQueryWindows.timeOf( windows.getSinceId( i + 1 ) + 1 ) );
+    }
+  }
+
+  @Test
+  public void testSplitTooShort() {
+    long sinceId = TwitterQueryWindows.idOf( NOW - 3 );
+    assertNull( TwitterQueryWindows.split( sinceId, NOW, 4 ) );
+    assertNull( TwitterQueryWindows.split( sinceId, NOW, 1 ) );
+  }
+
+  @Test
+  public void testComplete() {
+    TwitterQueryWindows windows = TwitterQueryWindows.split( TwitterQueryWindows.idOf( NOW - DAY ), NOW, 3 );
+
+    assertFalse( windows.complete( 5 ) );
+    assertFalse( windows.complete( 9 ) );
+    assertTrue( windows.complete( 7 ) );
+    assertEquals( 9, windows.getHighestId() );
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+import twitter4j.TwitterException;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterRetryPolicyTest {
+
+  @Test
+  public void testIsTransient() {
+    assertTrue( TwitterRetryPolicy.isTransient( new TwitterException( "reset", new IOException() ) ) );
+    assertTrue( TwitterRetryPolicy.isTransient( new TwitterException( "unavailable", null, 503 ) ) );
+    assertFalse( TwitterRetryPolicy.isTransient( new TwitterException( "rate limited", null, 429 ) ) );
+    assertFalse( TwitterRetryPolicy.isTransient( new TwitterException( "unauthorized", null, 401 ) ) );
+  }
+
+  @Test
+  public void testShouldRetry() {
+    TwitterRetryPolicy policy = new TwitterRetryPolicy( 2, 100, 1000 );
+    TwitterException error = new TwitterException( "unavailable", null, 503 );
+
+    assertTrue( policy.shouldRetry( error, 0 ) );
+    assertTrue( policy.shouldRetry( error, 1 ) );
+    assertFalse( policy.shouldRetry( error, 2 ) );
+    assertFalse( new TwitterRetryPolicy( 0, 100, 1000 ).shouldRetry( error, 0 ) );
+  }
+
+  @Test
+  public void testDelayOf() {
+    TwitterRetryPolicy policy = new TwitterRetryPolicy( 10, 100, 1000 );
+    for ( int i = 0; i < 1000; i++ ) {
+      long first = policy.delayOf( 0 );
+      assertTrue( String.valueOf( first ), first >= 1 && first <= 100 );
+      long third = policy.delayOf( 2 );
+      assertTrue( String.valueOf( third ), third >= 1 && third <= 400 );
+      long capped = policy.delayOf( 10 );
+      assertTrue( String.valueOf( capped ), capped >= 1 && capped <= 1000 );
+      // Shifting past the sign bit must not overflow the backoff.
+      long overflow = policy.delayOf( 62 );
+      assertTrue( String.valueOf( overflow ), overflow >= 1 && overflow <= 1000 );
+    }
+  }
+
+  @Test( expected = InterruptedException.class )
+  public void testSleepStopped() throws InterruptedException {
+    TwitterRetryPolicy.sleep( 60000, () -> true );
+  }
+}
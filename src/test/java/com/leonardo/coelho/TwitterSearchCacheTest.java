@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import twitter4j.Query;
+import twitter4j.TwitterException;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TwitterSearchCacheTest {
+  private static final TwitterField[] FIELDS = { TwitterField.STATUS_ID };
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static TwitterSearchCache.Loader loader( AtomicInteger calls, long id ) {
+    return () -> {
+      calls.incrementAndGet();
+      // The ID tells the pages apart.
+      return new TwitterSearchPage( Collections.singletonList(
+        new TwitterSearchPage.Tweet( id, 0, false, false, new Object[] { id } ) ), false );
+    };
+  }
+
+  @Test
+  public void testRepeatedQueryLoadsOnce() throws Exception {
+    TwitterSearchCache cache = new TwitterSearchCache( 10, 60, null, FIELDS, false, null );
+    AtomicInteger calls = new AtomicInteger();
+
+    TwitterSearchPage first = cache.get( new Query( "pentaho" ), loader( calls, 1 ) );
+    assertSame( first, cache.get( new Query( "pentaho" ), loader( calls, 2 ) ) );
+    assertEquals( 1, calls.get() );
+  }
+
+  @Test
+  public void testKeyTakenWhenCalled() throws Exception {
+    TwitterSearchCache cache = new TwitterSearchCache( 10, 60, null, FIELDS, false, null );
+    AtomicInteger calls = new AtomicInteger();
+    Query query = new Query( "pentaho" );
+
+    cache.get( query, loader( calls, 1 ) );
+    // The next page of the same query.
+    query.setMaxId( 100 );
+    assertEquals( 2, cache.get( query, loader( calls, 2 ) ).getTweets().get( 0 ).getId() );
+    assertEquals( 2, calls.get() );
+  }
+
+  @Test
+  public void testKeyedByFields() throws Exception {
+    String directory = folder.getRoot().getPath();
+    AtomicInteger calls = new AtomicInteger();
+    new TwitterSearchCache( 10, 60, directory, FIELDS, false, null ).get( new Query( "pentaho" ), loader( calls, 1 ) );
+
+    new TwitterSearchCache( 10, 60, directory, new TwitterField[] { TwitterField.TWEET_BODY }, false, null )
+      .get( new Query( "pentaho" ), loader( calls, 2 ) );
+    assertEquals( 2, calls.get() );
+    // Pages without entities can't serve a run sending them.
+    new TwitterSearchCache( 10, 60, directory, FIELDS, true, null ).get( new Query( "pentaho" ), loader( calls, 3 ) );
+    assertEquals( 3, calls.get() );
+  }
+
+  @Test
+  public void testErrorsAreNotCached() throws Exception {
+    TwitterSearchCache cache = new TwitterSearchCache( 10, 60, null, FIELDS, false, null );
+    try {
+      cache.get( new Query( "pentaho" ), () -> {
+        throw new TwitterException( "unavailable", null, 503 );
+      } );
+      fail( "the error of the search was swallowed" );
+    } catch ( TwitterException e ) {
+      assertEquals( 503, e.getStatusCode() );
+    }
+    AtomicInteger calls = new AtomicInteger();
+    cache.get( new Query( "pentaho" ), loader( calls, 1 ) );
+    assertEquals( 1, calls.get() );
+  }
+
+  @Test
+  public void testDirectorySurvivesRuns() throws Exception {
+    String directory = folder.getRoot().getPath();
+    AtomicInteger calls = new AtomicInteger();
+    new TwitterSearchCache( 10, 60, directory, FIELDS, false, null ).get( new Query( "pentaho" ), loader( calls, 1 ) );
+
+    TwitterSearchPage result = new TwitterSearchCache( 10, 60, directory, FIELDS, false, null )
+      .get( new Query( "pentaho" ), loader( calls, 2 ) );
+    assertEquals( 1, result.getTweets().get( 0 ).getId() );
+    assertEquals( 1, calls.get() );
+  }
+
+  @Test
+  public void testExpiredFileIsMiss() throws Exception {
+    String directory = folder.getRoot().getPath();
+    AtomicInteger calls = new AtomicInteger();
+    new TwitterSearchCache( 10, 60, directory, FIELDS, false, null ).get( new Query( "pentaho" ), loader( calls, 1 ) );
+    for ( File file : folder.getRoot().listFiles() ) {
+      Files.setLastModifiedTime( file.toPath(), FileTime.fromMillis( System.currentTimeMillis() - 61000 ) );
+    }
+
+    TwitterSearchPage result = new TwitterSearchCache( 10, 60, directory, FIELDS, false, null )
+      .get( new Query( "pentaho" ), loader( calls, 2 ) );
+    assertEquals( 2, result.getTweets().get( 0 ).getId() );
+    assertEquals( 2, calls.get() );
+  }
+
+  @Test
+  public void testExpiredFilesArePurged() throws Exception {
+    String directory = folder.getRoot().getPath();
+    AtomicInteger calls = new AtomicInteger();
+    new TwitterSearchCache( 10, 60, directory, FIELDS, false, null ).get( new Query( "pentaho" ), loader( calls, 1 ) );
+    new TwitterSearchCache( 10, 60, directory, FIELDS, false, null ).get( new Query( "kettle" ), loader( calls, 2 ) );
+    File expired = folder.getRoot().listFiles()[ 0 ];
+    Files.setLastModifiedTime( expired.toPath(), FileTime.fromMillis( System.currentTimeMillis() - 61000 ) );
+
+    new TwitterSearchCache( 10, 60, directory, FIELDS, false, null );
+    assertFalse( expired.exists() );
+    assertEquals( 1, folder.getRoot().listFiles().length );
+  }
+}
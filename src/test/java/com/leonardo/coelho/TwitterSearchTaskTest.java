@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+import twitter4j.Query;
+
+import static org.junit.Assert.assertEquals;
+
+public class TwitterSearchTaskTest {
+  @Test
+  public void testResumeRestoresBounds() {
+    Query query = new Query( "pentaho" );
+    // The checkpoint moved since the run that started the query.
+    query.setSinceId( 500 );
+
+    TwitterSearchTask task = new TwitterSearchTask( null, new Object[ 0 ], query )
+      .resume( new TwitterPaginationJournal.Cursor( 100, 999, 2, 40, 1200 ) );
+    assertEquals( 100, task.getQuery().getSinceId() );
+    assertEquals( 999, task.getQuery().getMaxId() );
+    assertEquals( 3, task.getPage() );
+    assertEquals( 40, task.getEmitted() );
+    assertEquals( 1200, task.getHighestId() );
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterStatusParserTest {
+  private static final String TWEET = "{\"created_at\":\"Wed Oct 10 20:19:24 +0000 2018\",\"id\":1050118621198921728,"
+    + "\"text\":\"Kettle &amp; Spoon &lt;3 #pdi #etl\",\"possibly_sensitive\":true,"
+    + "\"user\":{\"id\":6253282,\"screen_name\":\"pentaho\",\"verified\":true,\"entities\":{\"url\":{}}},"
+    + "\"entities\":{\"hashtags\":[{\"text\":\"pdi\",\"indices\":[21,25]},{\"text\":\"etl\",\"indices\":[26,30]}],"
+    + "\"user_mentions\":[{\"screen_name\":\"hitachi\",\"indices\":[0,8]}],"
+    + "\"urls\":[{\"url\":\"https://t.co/x\",\"expanded_url\":\"https://pentaho.com\",\"indices\":[31,45]}]},"
+    + "\"coordinates\":{\"type\":\"Point\",\"coordinates\":[-9.14,38.72]},"
+    + "\"place\":{\"id\":\"1\",\"full_name\":\"Lisbon, Portugal\",\"bounding_box\":{\"coordinates\":[[[1,2]]]}},"
+    + "\"retweeted_status\":{\"id\":1050000000000000000,\"text\":\"original\"},"
+    + "\"retweet_count\":12,\"in_reply_to_status_id\":null,\"lang\":\"en\"}";
+
+  private static TwitterSearchPage.Tweet parse( TwitterStatusParser parser, String text ) throws IOException {
+    try ( JsonParser json = TwitterStatusParser.JSON.createParser( text ) ) {
+      json.nextToken();
+      return parser.parse( json );
+    }
+  }
+
+  @Test
+  public void testParse() throws Exception {
+    TwitterField[] fields = {
+      TwitterField.STATUS_ID, TwitterField.CREATION_DATE, TwitterField.TWEET_BODY, TwitterField.AUTHOR_SCREEN_NAME,
+      TwitterField.AUTHOR_ID, TwitterField.RETWEET_COUNT, TwitterField.HASHTAGS, TwitterField.LATITUDE,
+      TwitterField.LONGITUDE, TwitterField.PLACE, TwitterField.RETWEETED_STATUS_ID, TwitterField.LANGUAGE,
+      TwitterField.IN_REPLY_TO_STATUS_ID };
+    TwitterSearchPage.Tweet tweet = parse( new TwitterStatusParser( fields ), TWEET );
+
+    assertEquals( 1050118621198921728L, tweet.getId() );
+    assertEquals( 1539202764000L, tweet.getCreatedAt() );
+    assertTrue( tweet.isPossiblySensitive() );
+    assertTrue( tweet.isAuthorVerified() );
+    assertArrayEquals( new Object[] {
+      1050118621198921728L, new Date( 1539202764000L ), "Kettle & Spoon <3 #pdi #etl", "pentaho", 6253282L, 12L,
+      "pdi,etl", 38.72, -9.14, "Lisbon, Portugal", 1050000000000000000L, "en", null }, tweet.getValues() );
+  }
+
+  @Test
+  public void testParseOnlyOutputFields() throws Exception {
+    TwitterStatusParser parser = new TwitterStatusParser( new TwitterField[] { TwitterField.RETWEET_COUNT } );
+    TwitterSearchPage.Tweet tweet = parse( parser, TWEET );
+
+    assertArrayEquals( new Object[] { 12L }, tweet.getValues() );
+    // The attributes the step filters on are read anyway.
+    assertTrue( tweet.isAuthorVerified() );
+  }
+
+  @Test
+  public void testParserIsReused() throws Exception {
+    TwitterStatusParser parser = new TwitterStatusParser( new TwitterField[] { TwitterField.PLACE } );
+    assertEquals( "Lisbon, Portugal", parse( parser, TWEET ).getValues()[ 0 ] );
+
+    TwitterSearchPage.Tweet tweet = parse( parser, "{\"id\":1,\"created_at\":\"Wed Oct 10 20:19:24 +0000 2018\"}" );
+    assertNull( tweet.getValues()[ 0 ] );
+    assertFalse( tweet.isAuthorVerified() );
+  }
+
+  @Test
+  public void testEntities() throws Exception {
+    TwitterStatusParser parser = new TwitterStatusParser( new TwitterField[] { TwitterField.HASHTAGS }, true );
+    TwitterSearchPage.Tweet tweet = parse( parser, TWEET );
+
+    assertEquals( "pdi,etl", tweet.getValues()[ 0 ] );
+    List<TwitterEntity> entities = tweet.getEntities();
+    assertEquals( 4, entities.size() );
+    assertEntity( entities.get( 0 ), TwitterEntity.Type.HASHTAG, "pdi", 21, 25 );
+    assertEntity( entities.get( 1 ), TwitterEntity.Type.HASHTAG, "etl", 26, 30 );
+    assertEntity( entities.get( 2 ), TwitterEntity.Type.MENTION, "hitachi", 0, 8 );
+    assertEntity( entities.get( 3 ), TwitterEntity.Type.URL, "https://pentaho.com", 31, 45 );
+  }
+
+  @Test
+  public void testNoEntities() throws Exception {
+    String text = "{\"id\":1,\"created_at\":\"Wed Oct 10 20:19:24 +0000 2018\"}";
+
+    assertTrue( parse( new TwitterStatusParser( new TwitterField[ 0 ], true ), text ).getEntities().isEmpty() );
+    // Entities that weren't asked for aren't read.
+    assertNull( parse( new TwitterStatusParser( new TwitterField[ 0 ] ), TWEET ).getEntities() );
+  }
+
+  private static void assertEntity( TwitterEntity entity, TwitterEntity.Type type, String value, int start,
+    int end ) {
+    assertEquals( type, entity.getType() );
+    assertEquals( value, entity.getValue() );
+    assertEquals( start, entity.getStart() );
+    assertEquals( end, entity.getEnd() );
+  }
+
+  @Test
+  public void testStreamMessageIsNotTweet() throws Exception {
+    TwitterStatusParser parser = new TwitterStatusParser( new TwitterField[] { TwitterField.STATUS_ID } );
+
+    assertNull( parse( parser, "{\"delete\":{\"status\":{\"id\":1,\"user_id\":2}}}" ) );
+    assertNull( parse( parser, "{\"limit\":{\"track\":10}}" ) );
+  }
+
+  @Test( expected = IOException.class )
+  public void testInvalidDate() throws Exception {
+    parse( new TwitterStatusParser( new TwitterField[ 0 ] ), "{\"id\":1,\"created_at\":\"yesterday\"}" );
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TwitterStreamQueueTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static TwitterSearchPage.Tweet tweet( long id ) {
+    return new TwitterSearchPage.Tweet( id, 0, false, false, new Object[] { "tweet " + id } );
+  }
+
+  private void assertPolled( TwitterStreamQueue queue, long... ids ) throws Exception {
+    for ( long id : ids ) {
+      assertEquals( id, queue.poll( 1000 ).getId() );
+    }
+    assertNull( queue.poll( 1 ) );
+  }
+
+  @Test
+  public void testPollTimesOut() throws Exception {
+    TwitterStreamQueue queue = new TwitterStreamQueue( 10, TwitterStreamQueue.Overflow.BLOCK, null );
+    assertNull( queue.poll( 10 ) );
+  }
+
+  @Test
+  public void testDropOldest() throws Exception {
+    TwitterStreamQueue queue = new TwitterStreamQueue( 2, TwitterStreamQueue.Overflow.DROP_OLDEST, null );
+    for ( long id = 1; id <= 5; id++ ) {
+      queue.put( tweet( id ) );
+    }
+
+    assertEquals( 3, queue.getDropped() );
+    assertPolled( queue, 4, 5 );
+  }
+
+  @Test
+  public void testSpillKeepsOrder() throws Exception {
+    TwitterStreamQueue queue =
+      new TwitterStreamQueue( 2, TwitterStreamQueue.Overflow.SPILL, folder.getRoot().getPath() );
+    for ( long id = 1; id <= 5; id++ ) {
+      queue.put( tweet( id ) );
+    }
+    assertEquals( 1, folder.getRoot().list().length );
+    assertEquals( 1, queue.poll( 1000 ).getId() );
+    // Tweets put once some are spilled follow them.
+    queue.put( tweet( 6 ) );
+
+    assertPolled( queue, 2, 3, 4, 5, 6 );
+    assertEquals( 0, queue.getDropped() );
+    // The spill file is deleted once read back.
+    assertEquals( 0, folder.getRoot().list().length );
+  }
+
+  @Test
+  public void testBlockWaitsForRoom() throws Exception {
+    TwitterStreamQueue queue = new TwitterStreamQueue( 1, TwitterStreamQueue.Overflow.BLOCK, null );
+    queue.put( tweet( 1 ) );
+    Thread producer = new Thread( () -> {
+      try {
+        queue.put( tweet( 2 ) );
+      } catch ( Exception e ) {
+        throw new IllegalStateException( e );
+      }
+    } );
+    producer.start();
+    producer.join( 100 );
+    assertEquals( Thread.State.WAITING, producer.getState() );
+
+    assertEquals( 1, queue.poll( 1000 ).getId() );
+    producer.join( 1000 );
+    assertPolled( queue, 2 );
+  }
+
+  @Test
+  public void testCloseReleasesProducer() throws Exception {
+    TwitterStreamQueue queue = new TwitterStreamQueue( 1, TwitterStreamQueue.Overflow.BLOCK, null );
+    queue.put( tweet( 1 ) );
+    Thread producer = new Thread( () -> {
+      try {
+        queue.put( tweet( 2 ) );
+      } catch ( Exception e ) {
+        throw new IllegalStateException( e );
+      }
+    } );
+    producer.start();
+    queue.close();
+    producer.join( 1000 );
+
+    assertEquals( Thread.State.TERMINATED, producer.getState() );
+    assertNull( queue.poll( 1 ) );
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TwitterTopTweetsTest {
+
+  private static TwitterSearchPage.Tweet tweet( long id, Long retweets ) {
+    return new TwitterSearchPage.Tweet( id, 0, false, false, new Object[] { "tweet " + id, retweets } );
+  }
+
+  private static List<Long> idsOf( List<TwitterSearchPage.Tweet> tweets ) {
+    List<Long> ids = new ArrayList<>();
+    for ( TwitterSearchPage.Tweet tweet : tweets ) {
+      ids.add( tweet.getId() );
+    }
+    return ids;
+  }
+
+  @Test
+  public void testKeepsHighestRanked() {
+    TwitterTopTweets top = new TwitterTopTweets( 2, 1 );
+    TwitterSearchPage.Tweet low = tweet( 1, 5L );
+
+    assertNull( top.add( low ) );
+    assertNull( top.add( tweet( 2, 50L ) ) );
+    assertSame( low, top.add( tweet( 3, 10L ) ) );
+    TwitterSearchPage.Tweet lower = tweet( 4, 1L );
+    assertSame( lower, top.add( lower ) );
+
+    assertEquals( Arrays.asList( 2L, 3L ), idsOf( top.getTweets() ) );
+  }
+
+  @Test
+  public void testTiesRankNewestFirst() {
+    TwitterTopTweets top = new TwitterTopTweets( 2, 1 );
+    top.add( tweet( 1, 5L ) );
+    top.add( tweet( 3, 5L ) );
+    top.add( tweet( 2, 5L ) );
+
+    assertEquals( Arrays.asList( 3L, 2L ), idsOf( top.getTweets() ) );
+  }
+
+  @Test
+  public void testMissingValuesRankLast() {
+    TwitterTopTweets top = new TwitterTopTweets( 2, 1 );
+    top.add( tweet( 1, null ) );
+    top.add( tweet( 2, 0L ) );
+    top.add( tweet( 3, null ) );
+
+    assertEquals( Arrays.asList( 2L, 3L ), idsOf( top.getTweets() ) );
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TwitterTweetAggregateTest {
+
+  private static TwitterSearchPage.Tweet tweet( long id, long createdAt, Object... values ) {
+    return new TwitterSearchPage.Tweet( id, createdAt, false, false, values );
+  }
+
+  @Test
+  public void testEmpty() {
+    TwitterTweetAggregate aggregate = new TwitterTweetAggregate( new String[] { "id" } );
+
+    assertEquals( 0, aggregate.getCount() );
+    assertNull( aggregate.getFirst() );
+    assertNull( aggregate.getLast() );
+    assertEquals( "[]", aggregate.getTweets() );
+  }
+
+  @Test
+  public void testAdd() {
+    TwitterTweetAggregate aggregate =
+      new TwitterTweetAggregate( new String[] { "id", "text", "date", "sensitive", "latitude", "place" } );
+    aggregate.add( tweet( 2, 2000, 2L, "say \"hi\"", new Date( 2000 ), true, 38.5, null ) );
+    aggregate.add( tweet( 1, 1000, 1L, "hello", new Date( 1000 ), false, null, null ) );
+    aggregate.add( tweet( 3, 3000, 3L, "bye", new Date( 3000 ), false, null, "Lisbon" ) );
+
+    assertEquals( 3, aggregate.getCount() );
+    assertEquals( new Date( 1000 ), aggregate.getFirst() );
+    assertEquals( new Date( 3000 ), aggregate.getLast() );
+    assertEquals( "["
+      + "{\"id\":2,\"text\":\"say \\\"hi\\\"\",\"date\":\"1970-01-01T00:00:02Z\",\"sensitive\":true,"
+      + "\"latitude\":38.5,\"place\":null},"
+      + "{\"id\":1,\"text\":\"hello\",\"date\":\"1970-01-01T00:00:01Z\",\"sensitive\":false,"
+      + "\"latitude\":null,\"place\":null},"
+      + "{\"id\":3,\"text\":\"bye\",\"date\":\"1970-01-01T00:00:03Z\",\"sensitive\":false,"
+      + "\"latitude\":null,\"place\":\"Lisbon\"}]", aggregate.getTweets() );
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.leonardo.coelho;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TwitterTweetSamplerTest {
+  private static final long BASE = 1250000000000000000L;
+
+  private static TwitterSearchPage.Tweet tweet( long id ) {
+    return new TwitterSearchPage.Tweet( id, 0, false, false, new Object[ 0 ] );
+  }
+
+  private static List<Long> sampledIds( TwitterTweetSampler.Reservoir reservoir ) {
+    List<Long> ids = new ArrayList<>();
+    for ( TwitterTweetSampler.Sampled sampled : reservoir.getSampled() ) {
+      ids.add( sampled.getTweet().getId() );
+    }
+    return ids;
+  }
+
+  @Test
+  public void testKeysAreSeeded() {
+    TwitterTweetSampler sampler = new TwitterTweetSampler( 42 );
+
+    assertEquals( sampler.keyOf( BASE ), new TwitterTweetSampler( 42 ).keyOf( BASE ), 0 );
+    assertNotEquals( sampler.keyOf( BASE ), new TwitterTweetSampler( 43 ).keyOf( BASE ), 0 );
+    for ( long i = 0; i < 1000; i++ ) {
+      double key = sampler.keyOf( BASE + i );
+      assertTrue( key >= 0 && key < 1 );
+    }
+  }
+
+  @Test
+  public void testBernoulliRate() {
+    TwitterTweetSampler sampler = new TwitterTweetSampler( 42 );
+    int accepted = 0;
+    for ( long i = 0; i < 100000; i++ ) {
+      if ( sampler.accept( BASE + ( i << 22 ), 0.1 ) ) {
+        accepted++;
+      }
+    }
+    assertTrue( String.valueOf( accepted ), accepted > 9500 && accepted < 10500 );
+    assertFalse( sampler.accept( BASE, 0 ) );
+    assertTrue( sampler.accept( BASE, 1 ) );
+  }
+
+  @Test
+  public void testReservoirIsBounded() {
+    TwitterTweetSampler.Reservoir reservoir = new TwitterTweetSampler( 42 ).newReservoir( 10 );
+    for ( long i = 0; i < 10; i++ ) {
+      assertFalse( reservoir.add( null, tweet( BASE + i ) ) );
+    }
+    for ( long i = 10; i < 1000; i++ ) {
+      assertTrue( reservoir.add( null, tweet( BASE + i ) ) );
+    }
+
+    List<Long> ids = sampledIds( reservoir );
+    assertEquals( 10, ids.size() );
+    for ( int i = 1; i < ids.size(); i++ ) {
+      // Newest first.
+      assertTrue( ids.get( i - 1 ) > ids.get( i ) );
+    }
+  }
+
+  @Test
+  public void testReservoirIgnoresOrder() {
+    TwitterTweetSampler sampler = new TwitterTweetSampler( 42 );
+    TwitterTweetSampler.Reservoir forward = sampler.newReservoir( 10 );
+    TwitterTweetSampler.Reservoir backward = sampler.newReservoir( 10 );
+    for ( long i = 0; i < 1000; i++ ) {
+      forward.add( null, tweet( BASE + i ) );
+      backward.add( null, tweet( BASE + 999 - i ) );
+    }
+
+    assertEquals( sampledIds( forward ), sampledIds( backward ) );
+  }
+
+  @Test
+  public void testReservoirKeepsRow() {
+    TwitterTweetSampler.Reservoir reservoir = new TwitterTweetSampler( 42 ).newReservoir( 1 );
+    Object[] row = { "pentaho" };
+    reservoir.add( row, tweet( BASE ) );
+
+    assertSame( row, reservoir.getSampled().get( 0 ).getRow() );
+  }
+}